@@ -27,6 +27,8 @@ import com.netflix.exhibitor.core.automanage.RemoteInstanceRequestClientImpl;
 import com.netflix.exhibitor.core.automanage.RemoteInstanceRequestHttpsClientImpl;
 import com.netflix.exhibitor.core.backup.BackupManager;
 import com.netflix.exhibitor.core.backup.BackupProvider;
+import com.netflix.exhibitor.core.config.ConfigCache;
+import com.netflix.exhibitor.core.config.ConfigDiff;
 import com.netflix.exhibitor.core.config.ConfigListener;
 import com.netflix.exhibitor.core.config.ConfigManager;
 import com.netflix.exhibitor.core.config.ConfigProvider;
@@ -42,7 +44,10 @@ import com.netflix.exhibitor.core.rest.UITab;
 import com.netflix.exhibitor.core.servo.GetMonitorData;
 import com.netflix.exhibitor.core.servo.ZookeeperMonitoredData;
 import com.netflix.exhibitor.core.state.CleanupManager;
+import com.netflix.exhibitor.core.state.FourLetterWordProbes;
 import com.netflix.exhibitor.core.state.MonitorRunningInstance;
+import com.netflix.exhibitor.core.state.RestartStats;
+import com.netflix.exhibitor.core.state.ServerSnapshots;
 import com.netflix.servo.monitor.CompositeMonitor;
 import com.netflix.servo.monitor.Monitors;
 import org.apache.curator.framework.CuratorFramework;
@@ -61,7 +66,10 @@ import java.util.prefs.Preferences;
 
 public class Exhibitor implements Closeable {
     private final ActivityLog log;
-    private final ActivityQueue activityQueue = new ActivityQueue();
+    private final ActivityQueue activityQueue;
+    private final FourLetterWordProbes fourLetterWordProbes;
+    private final ServerSnapshots serverSnapshots;
+    private final RestartStats restartStats = new RestartStats();
     private final MonitorRunningInstance monitorRunningInstance;
     private final Collection<UITab> additionalUITabs;
     private final ProcessOperations processOperations;
@@ -114,7 +122,11 @@ public class Exhibitor implements Closeable {
 
         this.arguments = arguments;
         log = new ActivityLog(arguments.logWindowSizeLines);
-        this.configManager = new ConfigManager(this, configProvider, arguments.configCheckMs);
+        activityQueue = new ActivityQueue(arguments.queueGroupThreads, log);
+        fourLetterWordProbes = new FourLetterWordProbes();
+        serverSnapshots = new ServerSnapshots(this);
+        ConfigCache configCache = (arguments.configCachePath != null) ? new ConfigCache(new File(arguments.configCachePath)) : null;
+        this.configManager = new ConfigManager(this, configProvider, arguments.configCheckMs, configCache);
         this.additionalUITabs = (additionalUITabs != null) ? ImmutableList.copyOf(additionalUITabs)
                 : ImmutableList.<UITab>of();
         this.processOperations = new StandardProcessOperations(this);
@@ -140,7 +152,7 @@ public class Exhibitor implements Closeable {
 
         controlPanelValues = new ControlPanelValues(getPreferences());
 
-        this.backupManager = new BackupManager(this, backupProvider);
+        this.backupManager = new BackupManager(this, backupProvider, arguments.backupCodecs);
     }
 
     public String getVersion() {
@@ -173,6 +185,7 @@ public class Exhibitor implements Closeable {
         backupManager.restoreAll();
 
         activityQueue.start();
+        fourLetterWordProbes.start();
         configManager.start();
         monitorRunningInstance.start();
         cleanupManager.start();
@@ -184,14 +197,14 @@ public class Exhibitor implements Closeable {
 
         configManager.addConfigListener(new ConfigListener() {
             @Override
-            public void configUpdated() {
+            public void configUpdated(ConfigDiff diff) {
                 try {
                     resetLocalConnection();
                 } catch (IOException e) {
                     log.add(ActivityLog.Type.ERROR, "Resetting connection", e);
                 }
             }
-        });
+        }, IntConfigs.CLIENT_PORT);
     }
 
     public String getExtraHeadingText() {
@@ -204,6 +217,9 @@ public class Exhibitor implements Closeable {
 
         if ((arguments.servoRegistration != null) && (servoCompositeMonitor != null)) {
             arguments.servoRegistration.getMonitorRegistry().unregister(servoCompositeMonitor);
+            activityQueue.getActivityStats().stopMonitoring();
+            restartStats.stopMonitoring();
+            configManager.getLockStats().stopMonitoring();
         }
 
         CloseableUtils.closeQuietly(servoMonitoring);
@@ -215,6 +231,7 @@ public class Exhibitor implements Closeable {
         CloseableUtils.closeQuietly(monitorRunningInstance);
         CloseableUtils.closeQuietly(configManager);
         CloseableUtils.closeQuietly(activityQueue);
+        CloseableUtils.closeQuietly(fourLetterWordProbes);
         CloseableUtils.closeQuietly(remoteInstanceRequestClient);
         closeLocalConnection();
     }
@@ -337,6 +354,27 @@ public class Exhibitor implements Closeable {
         return arguments.logDirection;
     }
 
+    /**
+     * @return engine for issuing four letter word commands
+     */
+    public FourLetterWordProbes getFourLetterWordProbes() {
+        return fourLetterWordProbes;
+    }
+
+    /**
+     * @return cached four letter word data for the local ZooKeeper instance
+     */
+    public ServerSnapshots getServerSnapshots() {
+        return serverSnapshots;
+    }
+
+    /**
+     * @return timing of the stops/starts of the ZooKeeper instance
+     */
+    public RestartStats getRestartStats() {
+        return restartStats;
+    }
+
     public ForkJoinPool getForkJoinPool() {
         return forkJoinPool;
     }
@@ -376,6 +414,9 @@ public class Exhibitor implements Closeable {
             localServoMonitoring = new RepeatingActivityImpl(log, activityQueue, QueueGroups.IO,
                     getMonitorData, arguments.servoRegistration.getZookeeperPollMs());
             arguments.servoRegistration.getMonitorRegistry().register(compositeMonitor);
+            activityQueue.getActivityStats().startMonitoring(arguments.servoRegistration.getMonitorRegistry());
+            exhibitor.getRestartStats().startMonitoring(arguments.servoRegistration.getMonitorRegistry());
+            exhibitor.getConfigManager().getLockStats().startMonitoring(arguments.servoRegistration.getMonitorRegistry());
 
             theMonitor.set(compositeMonitor);
         }
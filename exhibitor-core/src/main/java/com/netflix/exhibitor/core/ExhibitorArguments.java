@@ -17,9 +17,16 @@
 package com.netflix.exhibitor.core;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.apache.curator.framework.api.ACLProvider;
+import com.netflix.exhibitor.core.activity.QueueGroups;
+import com.netflix.exhibitor.core.backup.BackupCodec;
 import com.netflix.exhibitor.core.config.JQueryStyle;
 import com.netflix.exhibitor.core.servo.ServoRegistration;
+import java.util.List;
+import java.util.Map;
 
 public class ExhibitorArguments
 {
@@ -40,6 +47,9 @@ public class ExhibitorArguments
     final String preferencesPath;
     final RemoteConnectionConfiguration remoteConnectionConfiguration;
     final HttpsConfiguration httpsConfiguration;
+    final Map<QueueGroups, Integer> queueGroupThreads;
+    final String configCachePath;
+    final List<BackupCodec> backupCodecs;
 
     public enum LogDirection
     {
@@ -57,7 +67,7 @@ public class ExhibitorArguments
          */
         public Builder connectionTimeOutMs(int connectionTimeOutMs)
         {
-            arguments = new ExhibitorArguments(connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -67,7 +77,7 @@ public class ExhibitorArguments
          */
         public Builder logWindowSizeLines(int logWindowSizeLines)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -77,7 +87,7 @@ public class ExhibitorArguments
          */
         public Builder configCheckMs(int configCheckMs)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -87,7 +97,7 @@ public class ExhibitorArguments
          */
         public Builder extraHeadingText(String extraHeadingText)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -97,7 +107,7 @@ public class ExhibitorArguments
          */
         public Builder thisJVMHostname(String thisJVMHostname)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -107,7 +117,7 @@ public class ExhibitorArguments
          */
         public Builder allowNodeMutations(boolean allowNodeMutations)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -117,7 +127,7 @@ public class ExhibitorArguments
          */
         public Builder jQueryStyle(JQueryStyle jQueryStyle)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -127,7 +137,7 @@ public class ExhibitorArguments
          */
         public Builder restPort(int restPort)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -137,7 +147,7 @@ public class ExhibitorArguments
          */
         public Builder restPath(String restPath)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -147,7 +157,7 @@ public class ExhibitorArguments
          */
         public Builder restScheme(String restScheme)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -157,7 +167,7 @@ public class ExhibitorArguments
          */
         public Builder shutdownProc(Runnable shutdownProc)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -168,7 +178,7 @@ public class ExhibitorArguments
         public Builder logDirection(LogDirection logDirection)
         {
             logDirection = Preconditions.checkNotNull(logDirection, "logDirection cannot be null");
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -180,7 +190,7 @@ public class ExhibitorArguments
          */
         public Builder aclProvider(ACLProvider aclProvider)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -192,7 +202,7 @@ public class ExhibitorArguments
          */
         public Builder servoRegistration(ServoRegistration servoRegistration)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -205,7 +215,7 @@ public class ExhibitorArguments
          */
         public Builder preferencesPath(String preferencesPath)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -218,7 +228,7 @@ public class ExhibitorArguments
          */
         public Builder remoteConnectionConfiguration(RemoteConnectionConfiguration remoteConnectionConfiguration)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, remoteConnectionConfiguration, arguments.httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
             return this;
         }
 
@@ -231,7 +241,55 @@ public class ExhibitorArguments
          */
         public Builder httpsConfiguration(HttpsConfiguration httpsConfiguration)
         {
-            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, httpsConfiguration);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
+            return this;
+        }
+
+        /**
+         * Each activity queue group is drained by its own threads. By default, each group gets a single
+         * thread. Use this to allow more concurrency for groups that support it
+         * (see {@link QueueGroups#isConcurrencyAllowed()})
+         *
+         * @param group the queue group
+         * @param threadQty number of threads for the group
+         * @return this
+         */
+        public Builder queueGroupThreads(QueueGroups group, int threadQty)
+        {
+            Preconditions.checkArgument(threadQty > 0, "threadQty must be a positive number");
+            Preconditions.checkArgument(group.isConcurrencyAllowed() || (threadQty == 1), "%s must be executed serially", group);
+
+            Map<QueueGroups, Integer> queueGroupThreads = Maps.newHashMap(arguments.queueGroupThreads);
+            queueGroupThreads.put(group, threadQty);
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, queueGroupThreads, arguments.configCachePath, arguments.backupCodecs);
+            return this;
+        }
+
+        /**
+         * The last config loaded from the config provider is kept in this file. At startup, Exhibitor starts from
+         * the cached copy immediately and reconciles with the config provider in the background. By default there
+         * is no cache and startup waits for the config provider.
+         *
+         * @param configCachePath path for the config cache file
+         * @return this
+         */
+        public Builder configCachePath(String configCachePath)
+        {
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, configCachePath, arguments.backupCodecs);
+            return this;
+        }
+
+        /**
+         * Add a backup codec. gzip and zstd are always available. Select the codec for new backups with
+         * the backup codec config - restores detect the codec from each backup.
+         *
+         * @param backupCodec the codec
+         * @return this
+         */
+        public Builder backupCodec(BackupCodec backupCodec)
+        {
+            List<BackupCodec>   backupCodecs = ImmutableList.<BackupCodec>builder().addAll(arguments.backupCodecs).add(backupCodec).build();
+            arguments = new ExhibitorArguments(arguments.connectionTimeOutMs, arguments.logWindowSizeLines, arguments.configCheckMs, arguments.extraHeadingText, arguments.thisJVMHostname, arguments.allowNodeMutations, arguments.jQueryStyle, arguments.restPort, arguments.restPath, arguments.restScheme, arguments.shutdownProc, arguments.logDirection, arguments.aclProvider, arguments.servoRegistration, arguments.preferencesPath, arguments.remoteConnectionConfiguration, arguments.httpsConfiguration, arguments.queueGroupThreads, arguments.configCachePath, backupCodecs);
             return this;
         }
 
@@ -260,10 +318,19 @@ public class ExhibitorArguments
 
     private ExhibitorArguments()
     {
-        this(30000, 1000, 5000, null, null, false, JQueryStyle.RED, 0, "/", "http", null, LogDirection.INVERTED, null, null, null, new RemoteConnectionConfiguration(), HttpsConfiguration.builder().build());
+        this(30000, 1000, 5000, null, null, false, JQueryStyle.RED, 0, "/", "http", null, LogDirection.INVERTED, null, null, null, new RemoteConnectionConfiguration(), HttpsConfiguration.builder().build(), ImmutableMap.<QueueGroups, Integer>of(), null, ImmutableList.<BackupCodec>of());
     }
 
+    /**
+     * @deprecated use {@link #builder()} - newer arguments can only be set via the builder
+     */
+    @Deprecated
     public ExhibitorArguments(int connectionTimeOutMs, int logWindowSizeLines, int configCheckMs, String extraHeadingText, String thisJVMHostname, boolean allowNodeMutations, JQueryStyle jQueryStyle, int restPort, String restPath, String restScheme, Runnable shutdownProc, LogDirection logDirection, ACLProvider aclProvider, ServoRegistration servoRegistration, String preferencesPath, RemoteConnectionConfiguration remoteConnectionConfiguration, HttpsConfiguration httpsConfiguration)
+    {
+        this(connectionTimeOutMs, logWindowSizeLines, configCheckMs, extraHeadingText, thisJVMHostname, allowNodeMutations, jQueryStyle, restPort, restPath, restScheme, shutdownProc, logDirection, aclProvider, servoRegistration, preferencesPath, remoteConnectionConfiguration, httpsConfiguration, ImmutableMap.<QueueGroups, Integer>of(), null, ImmutableList.<BackupCodec>of());
+    }
+
+    private ExhibitorArguments(int connectionTimeOutMs, int logWindowSizeLines, int configCheckMs, String extraHeadingText, String thisJVMHostname, boolean allowNodeMutations, JQueryStyle jQueryStyle, int restPort, String restPath, String restScheme, Runnable shutdownProc, LogDirection logDirection, ACLProvider aclProvider, ServoRegistration servoRegistration, String preferencesPath, RemoteConnectionConfiguration remoteConnectionConfiguration, HttpsConfiguration httpsConfiguration, Map<QueueGroups, Integer> queueGroupThreads, String configCachePath, List<BackupCodec> backupCodecs)
     {
         this.connectionTimeOutMs = connectionTimeOutMs;
         this.logWindowSizeLines = logWindowSizeLines;
@@ -282,5 +349,8 @@ public class ExhibitorArguments
         this.preferencesPath = preferencesPath;
         this.remoteConnectionConfiguration = remoteConnectionConfiguration;
         this.httpsConfiguration = httpsConfiguration;
+        this.queueGroupThreads = ImmutableMap.copyOf(queueGroupThreads);
+        this.configCachePath = configCachePath;
+        this.backupCodecs = ImmutableList.copyOf(backupCodecs);
     }
 }
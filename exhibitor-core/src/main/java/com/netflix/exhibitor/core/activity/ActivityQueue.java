@@ -16,89 +16,130 @@
 
 package com.netflix.exhibitor.core.activity;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ActivityQueue implements Closeable
 {
     private static final Logger log = LoggerFactory.getLogger(ActivityQueue.class);
 
     private final ExecutorService               service = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("ActivityQueue-%d").build());
-    private final Map<QueueGroups, DelayQueue<ActivityHolder>> queues;
+    private final ReentrantLock                 lock = new ReentrantLock();
+    private final Condition                     timerCondition = lock.newCondition();
+    private final TimingWheel                   wheel = new TimingWheel(TICK_MS, TimeUnit.MILLISECONDS, WHEEL_SIZE);
+    private final Map<QueueGroups, Lane>        lanes;
+    private final ActivityStats                 stats = new ActivityStats();
+    private final ActivityLog                   activityLog;
 
-    private static class ActivityHolder implements Delayed
+    private static final int        TICK_MS = 10;
+    private static final int        WHEEL_SIZE = 512;
+
+    private static class ActivityHolder extends TimingWheel.Node
     {
         private final Activity      activity;
-        private final long          endNs;
+        private final Lane          lane;
+        private final long          dueNs;
 
-        private ActivityHolder(Activity activity, long delayMs)
+        private ActivityHolder(Activity activity, Lane lane, long dueNs)
         {
             this.activity = activity;
-            endNs = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            this.lane = lane;
+            this.dueNs = dueNs;
         }
+    }
 
-        @Override
-        public long getDelay(TimeUnit unit)
-        {
-            return unit.convert(endNs - System.nanoTime(), TimeUnit.NANOSECONDS);
-        }
+    // a currently executing activity - in the wheel while it has a deadline pending
+    private static class Running extends TimingWheel.Node
+    {
+        private final ActivityHolder    holder;
+        private final Thread            thread;
+        private final long              deadlineMs;
+        private boolean                 done = false;       // guarded by the queue's lock
+        private boolean                 overran = false;    // guarded by the queue's lock
+        private boolean                 abandoned = false;  // guarded by the queue's lock
 
-        @Override
-        // Note: this class has a natural ordering that is inconsistent with equals
-        public int compareTo(Delayed rhs)
+        private Running(ActivityHolder holder, Thread thread, long deadlineMs)
         {
-            if ( rhs == this )
-            {
-                return 0;
-            }
-
-            long    diff = getDelay(TimeUnit.NANOSECONDS) - rhs.getDelay(TimeUnit.NANOSECONDS);
-            return (diff == 0) ? 0 : ((diff < 0) ? -1 : 1);
+            this.holder = holder;
+            this.thread = thread;
+            this.deadlineMs = deadlineMs;
         }
+    }
 
-        @Override
-        public boolean equals(Object o)
-        {
-            if ( this == o )
-            {
-                return true;
-            }
-            if ( o == null || getClass() != o.getClass() )
-            {
-                return false;
-            }
-
-            ActivityHolder rhs = (ActivityHolder)o;
-            return activity == rhs.activity;    // ID comparison on purpose
-        }
+    // all fields other than group/threadQty are guarded by the queue's lock
+    private class Lane
+    {
+        private final QueueGroups                           group;
+        private final int                                   threadQty;
+        private final TimingWheel.NodeList                  ready = new TimingWheel.NodeList();
+        private final Map<Activity, ActivityHolder>         pending = Maps.newIdentityHashMap();    // ID comparison on purpose
+        private final Map<Activity, Integer>                overrunning = Maps.newIdentityHashMap();   // abandoned calls still executing
+        private final Map<Activity, TimingWheel.NodeList>   deferred = Maps.newIdentityHashMap();   // ready but waiting for an overrun call of the same activity
+        private final Condition                             readyCondition = lock.newCondition();
+        private int                                         depth = 0;
+        private int                                         active = 0;
+        private int                                         abandoned = 0;
 
-        @Override
-        public int hashCode()
+        private Lane(QueueGroups group, int threadQty)
         {
-            int result = activity.hashCode();
-            result = 31 * result + (int)(endNs ^ (endNs >>> 32));
-            return result;
+            this.group = group;
+            this.threadQty = threadQty;
         }
     }
 
     public ActivityQueue()
     {
-        ImmutableMap.Builder<QueueGroups, DelayQueue<ActivityHolder>>   builder = ImmutableMap.builder();
+        this(ImmutableMap.<QueueGroups, Integer>of());
+    }
+
+    /**
+     * @param threadQtys number of threads that drain each group. Groups not in the map get one thread.
+     *                   Only groups where {@link QueueGroups#isConcurrencyAllowed()} is true can have
+     *                   more than one thread.
+     */
+    public ActivityQueue(Map<QueueGroups, Integer> threadQtys)
+    {
+        this(threadQtys, null);
+    }
+
+    /**
+     * @param threadQtys number of threads that drain each group. Groups not in the map get one thread.
+     *                   Only groups where {@link QueueGroups#isConcurrencyAllowed()} is true can have
+     *                   more than one thread.
+     * @param activityLog where to report activities that exceed their deadline - can be null
+     */
+    public ActivityQueue(Map<QueueGroups, Integer> threadQtys, ActivityLog activityLog)
+    {
+        this.activityLog = activityLog;
+
+        ImmutableMap.Builder<QueueGroups, Lane>   builder = ImmutableMap.builder();
         for ( QueueGroups group : QueueGroups.values() )
         {
-            builder.put(group, new DelayQueue<ActivityHolder>());
+            Integer     threadQty = threadQtys.get(group);
+            if ( threadQty == null )
+            {
+                threadQty = 1;
+            }
+            Preconditions.checkArgument(threadQty > 0, "thread quantity for %s must be a positive number", group);
+            Preconditions.checkArgument(group.isConcurrencyAllowed() || (threadQty == 1), "%s must be executed serially", group);
+
+            builder.put(group, new Lane(group, threadQty));
         }
-        queues = builder.build();
+        lanes = builder.build();
     }
 
     /**
@@ -106,49 +147,35 @@ public class ActivityQueue implements Closeable
      */
     public void start()
     {
-        for ( QueueGroups group : QueueGroups.values() )
-        {
-            final DelayQueue<ActivityHolder>      thisQueue = queues.get(group);
-            service.submit
-            (
-                new Runnable()
+        service.submit
+        (
+            new Runnable()
+            {
+                @Override
+                public void run()
                 {
-                    @Override
-                    public void run()
-                    {
-                        try
-                        {
-                            while ( !Thread.currentThread().isInterrupted() )
-                            {
-                                ActivityHolder holder = thisQueue.take();
-                                try
-                                {
-                                    Boolean result = holder.activity.call();
-                                    holder.activity.completed((result != null) && result);
-                                }
-                                catch ( Throwable e )
-                                {
-                                    log.error("Unhandled exception in background task", e);
-                                }
-                            }
-                        }
-                        catch ( InterruptedException dummy )
-                        {
-                            Thread.currentThread().interrupt();
-                        }
-                    }
+                    runTimer();
                 }
-            );
+            }
+        );
+
+        for ( QueueGroups group : QueueGroups.values() )
+        {
+            Lane      lane = lanes.get(group);
+            for ( int i = 0; i < lane.threadQty; ++i )
+            {
+                service.submit(newWorker(lane));
+            }
         }
     }
 
     /**
      * Add an activity to the given queue
      *
-     * @param group the queue - all activities within a queue are executed serially
+     * @param group the queue - see {@link QueueGroups#isConcurrencyAllowed()}
      * @param activity the activity
      */
-    public synchronized void     add(QueueGroups group, Activity activity)
+    public void     add(QueueGroups group, Activity activity)
     {
         add(group, activity, 0, TimeUnit.MILLISECONDS);
     }
@@ -156,15 +183,32 @@ public class ActivityQueue implements Closeable
     /**
      * Add an activity to the given queue that executes after a specified delay
      *
-     * @param group the queue - all activities within a queue are executed serially
+     * @param group the queue - see {@link QueueGroups#isConcurrencyAllowed()}
      * @param activity the activity
      * @param delay the delay
      * @param unit the delay unit
      */
-    public synchronized void     add(QueueGroups group, Activity activity, long delay, TimeUnit unit)
+    public void     add(QueueGroups group, Activity activity, long delay, TimeUnit unit)
+    {
+        lock.lock();
+        try
+        {
+            schedule(lanes.get(group), activity, unit.toNanos(delay));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return execution telemetry for the activities that have run in this queue
+     *
+     * @return stats
+     */
+    public ActivityStats getActivityStats()
     {
-        ActivityHolder  holder = new ActivityHolder(activity, TimeUnit.MILLISECONDS.convert(delay, unit));
-        queues.get(group).offer(holder);
+        return stats;
     }
 
     @Override
@@ -176,10 +220,10 @@ public class ActivityQueue implements Closeable
     /**
      * Replace the given activity in the given queue. If not in the queue, adds it to the queue.
      *
-     * @param group the queue - all activities within a queue are executed serially
+     * @param group the queue - see {@link QueueGroups#isConcurrencyAllowed()}
      * @param activity the activity
      */
-    public synchronized void     replace(QueueGroups group, Activity activity)
+    public void     replace(QueueGroups group, Activity activity)
     {
         replace(group, activity, 0, TimeUnit.MILLISECONDS);
     }
@@ -188,16 +232,366 @@ public class ActivityQueue implements Closeable
      * Replace the given activity in the given queue. If not in the queue, adds it to the queue. The activity
      * runs after the specified delay (the delay of the previous entry, if any, is ignored)
      *
-     * @param group the queue - all activities within a queue are executed serially
+     * @param group the queue - see {@link QueueGroups#isConcurrencyAllowed()}
      * @param activity the activity
      * @param delay the delay
      * @param unit the delay unit
      */
-    public synchronized void     replace(QueueGroups group, Activity activity, long delay, TimeUnit unit)
+    public void     replace(QueueGroups group, Activity activity, long delay, TimeUnit unit)
+    {
+        lock.lock();
+        try
+        {
+            Lane    lane = lanes.get(group);
+            cancel(lane, activity);
+            schedule(lane, activity, unit.toNanos(delay));
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the given activity from the given queue if it hasn't started executing yet
+     *
+     * @param group the queue
+     * @param activity the activity
+     * @return true if the activity was found and removed
+     */
+    public boolean  remove(QueueGroups group, Activity activity)
+    {
+        lock.lock();
+        try
+        {
+            return cancel(lanes.get(group), activity);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of activities waiting in the given queue (delayed or ready to run)
+     *
+     * @param group the queue
+     * @return depth
+     */
+    public int      getQueueDepth(QueueGroups group)
+    {
+        lock.lock();
+        try
+        {
+            return lanes.get(group).depth;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return true if nothing is waiting or executing in the given queue
+     *
+     * @param group the queue
+     * @return true/false
+     */
+    public boolean  isIdle(QueueGroups group)
+    {
+        lock.lock();
+        try
+        {
+            Lane    lane = lanes.get(group);
+            return (lane.depth == 0) && (lane.active == 0);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private Runnable newWorker(final Lane lane)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    boolean     abandoned = false;
+                    while ( !abandoned && !Thread.currentThread().isInterrupted() )
+                    {
+                        Running         running = take(lane);
+                        ActivityHolder  holder = running.holder;
+                        long            startNs = System.nanoTime();
+                        boolean         success = false;
+                        try
+                        {
+                            Boolean result = holder.activity.call();
+                            success = (result != null) && result;
+                            holder.activity.completed(success);
+                        }
+                        catch ( Throwable e )
+                        {
+                            log.error("Unhandled exception in background task", e);
+                        }
+                        finally
+                        {
+                            abandoned = release(running);
+                            stats.record(holder.activity, lane.group, startNs - holder.dueNs, System.nanoTime() - startNs, success);
+                        }
+                    }
+                }
+                catch ( InterruptedException dummy )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private void schedule(Lane lane, Activity activity, long delayNs)
+    {
+        ActivityHolder  holder = new ActivityHolder(activity, lane, System.nanoTime() + Math.max(0, delayNs));
+        if ( delayNs <= 0 )
+        {
+            lane.ready.addLast(holder);
+            lane.readyCondition.signal();
+        }
+        else
+        {
+            wheel.schedule(holder, delayNs);
+            timerCondition.signal();
+        }
+        lane.pending.put(activity, holder);
+        ++lane.depth;
+    }
+
+    private boolean cancel(Lane lane, Activity activity)
+    {
+        ActivityHolder  holder = lane.pending.remove(activity);
+        if ( (holder != null) && holder.isLinked() )
+        {
+            holder.unlink();
+            --lane.depth;
+            return true;
+        }
+        return false;
+    }
+
+    private Running take(Lane lane) throws InterruptedException
+    {
+        lock.lockInterruptibly();
+        try
+        {
+            ActivityHolder  holder;
+            for(;;)
+            {
+                while ( lane.ready.isEmpty() )
+                {
+                    lane.readyCondition.await();
+                }
+
+                holder = (ActivityHolder)lane.ready.pollFirst();
+                if ( !lane.overrunning.containsKey(holder.activity) )
+                {
+                    break;
+                }
+
+                // a previous call of this activity overran and is still executing - don't overlap it
+                TimingWheel.NodeList    list = lane.deferred.get(holder.activity);
+                if ( list == null )
+                {
+                    list = new TimingWheel.NodeList();
+                    lane.deferred.put(holder.activity, list);
+                }
+                list.addLast(holder);
+            }
+
+            if ( lane.pending.get(holder.activity) == holder )
+            {
+                lane.pending.remove(holder.activity);
+            }
+            --lane.depth;
+            ++lane.active;
+
+            long        deadlineMs = (holder.activity instanceof DeadlineActivity) ? ((DeadlineActivity)holder.activity).getDeadlineMs() : 0;
+            Running     running = new Running(holder, Thread.currentThread(), deadlineMs);
+            if ( deadlineMs > 0 )
+            {
+                wheel.schedule(running, TimeUnit.MILLISECONDS.toNanos(deadlineMs));
+                timerCondition.signal();
+            }
+            return running;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // returns true if the watchdog gave up on the activity - the calling worker has been replaced
+    private boolean release(Running running)
+    {
+        lock.lock();
+        try
+        {
+            running.unlink();
+            running.done = true;
+            if ( running.overran && !service.isShutdown() )
+            {
+                Thread.interrupted();   // clear the watchdog's interrupt so that it doesn't stop this worker
+            }
+
+            Lane    lane = running.holder.lane;
+            if ( running.abandoned )
+            {
+                --lane.abandoned;
+                Activity    activity = running.holder.activity;
+                int         count = lane.overrunning.remove(activity);
+                if ( count > 1 )
+                {
+                    lane.overrunning.put(activity, count - 1);
+                }
+                else
+                {
+                    TimingWheel.NodeList    list = lane.deferred.remove(activity);
+                    for ( TimingWheel.Node node = (list != null) ? list.pollFirst() : null; node != null; node = list.pollFirst() )
+                    {
+                        lane.ready.addLast(node);
+                        lane.readyCondition.signal();
+                    }
+                }
+                return true;
+            }
+            --lane.active;
+            return false;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held. The lane gets a replacement worker while fewer than threadQty of its threads
+    // are abandoned - for serial lanes that's one. The overrun activity itself is not run again until its
+    // abandoned call returns (see take()) so a serial lane never executes the same activity twice at once.
+    private boolean interruptOverrun(Running running)
+    {
+        if ( running.done )
+        {
+            return false;
+        }
+
+        Lane        lane = running.holder.lane;
+        running.overran = true;
+        running.thread.interrupt();
+        if ( (lane.abandoned < lane.threadQty) && !service.isShutdown() )
+        {
+            running.abandoned = true;
+            ++lane.abandoned;
+            --lane.active;
+            Integer     count = lane.overrunning.get(running.holder.activity);
+            lane.overrunning.put(running.holder.activity, (count != null) ? (count + 1) : 1);
+            service.submit(newWorker(lane));
+        }
+        return true;
+    }
+
+    // called without the lock held
+    private void deadlineExceeded(Running running)
+    {
+        Lane            lane = running.holder.lane;
+        Activity        activity = running.holder.activity;
+
+        try
+        {
+            ((DeadlineActivity)activity).deadlineExceeded();
+        }
+        catch ( Throwable e )
+        {
+            log.error("Unhandled exception in deadlineExceeded()", e);
+        }
+
+        String          outcome = running.abandoned ? "continuing with the rest of the queue on a new thread" : "the queue resumes when it returns";
+        String          message = String.format("%s in queue %s exceeded its deadline of %d ms - interrupted it and %s", ActivityStats.getName(activity), lane.group, running.deadlineMs, outcome);
+        if ( activityLog != null )
+        {
+            activityLog.add(ActivityLog.Type.ERROR, message);
+        }
+        else
+        {
+            log.error(message);
+        }
+        stats.recordTimeout(activity);
+    }
+
+    private void runTimer()
     {
-        ActivityHolder  holder = new ActivityHolder(activity, TimeUnit.MILLISECONDS.convert(delay, unit));
-        DelayQueue<ActivityHolder> queue = queues.get(group);
-        queue.remove(holder);
-        queue.offer(holder);
+        TimingWheel.NodeList    expired = new TimingWheel.NodeList();
+        List<Running>           overruns = Lists.newArrayList();
+        lock.lock();
+        try
+        {
+            while ( !Thread.currentThread().isInterrupted() )
+            {
+                long    nowNs = System.nanoTime();
+                wheel.expire(nowNs, expired);
+                for ( TimingWheel.Node node = expired.pollFirst(); node != null; node = expired.pollFirst() )
+                {
+                    if ( node instanceof Running )
+                    {
+                        if ( interruptOverrun((Running)node) )
+                        {
+                            overruns.add((Running)node);
+                        }
+                    }
+                    else
+                    {
+                        ActivityHolder  holder = (ActivityHolder)node;
+                        holder.lane.ready.addLast(holder);
+                        holder.lane.readyCondition.signal();
+                    }
+                }
+
+                if ( !overruns.isEmpty() )
+                {
+                    lock.unlock();
+                    try
+                    {
+                        for ( Running running : overruns )
+                        {
+                            deadlineExceeded(running);
+                        }
+                    }
+                    finally
+                    {
+                        overruns.clear();
+                        lock.lock();
+                    }
+                    continue;   // time has passed - expire again before waiting
+                }
+
+                long    waitNs = wheel.nanosUntilNextExpiration(nowNs);
+                if ( waitNs < 0 )
+                {
+                    timerCondition.await();
+                }
+                else if ( waitNs > 0 )
+                {
+                    timerCondition.awaitNanos(waitNs);
+                }
+            }
+        }
+        catch ( InterruptedException dummy )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 }
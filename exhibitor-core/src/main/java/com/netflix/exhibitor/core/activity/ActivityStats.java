@@ -0,0 +1,259 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.activity;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.netflix.exhibitor.core.servo.GaugeSet;
+import com.netflix.servo.MonitorRegistry;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Execution telemetry for the activities run by an {@link ActivityQueue}, kept per
+ * activity implementation class
+ */
+public class ActivityStats
+{
+    private final ConcurrentMap<String, Entry>      entries = Maps.newConcurrentMap();
+    private final List<GaugeSet>                    registeredGauges = Lists.newArrayList();
+    private MonitorRegistry                         monitorRegistry = null;  // protected by sync
+
+    public static class Entry
+    {
+        private final String                    name;
+        private final Histogram                 queueWaitMs = new Histogram(new ExponentiallyDecayingReservoir());
+        private final Histogram                 executionMs = new Histogram(new ExponentiallyDecayingReservoir());
+        private final AtomicLong                failureCount = new AtomicLong(0);
+        private final AtomicLong                timeoutCount = new AtomicLong(0);
+        private final AtomicLong                lastRunMs = new AtomicLong(0);
+        private final AtomicReference<QueueGroups> lastGroup = new AtomicReference<QueueGroups>();
+        private boolean                         registered = false;    // protected by the ActivityStats' sync
+
+        private Entry(String name)
+        {
+            this.name = name;
+        }
+
+        /**
+         * @return the activity name
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return the group the activity last executed in
+         */
+        public QueueGroups getLastGroup()
+        {
+            return lastGroup.get();
+        }
+
+        /**
+         * @return number of executions
+         */
+        public long getExecutionCount()
+        {
+            return executionMs.getCount();
+        }
+
+        /**
+         * @return number of executions that threw or returned false
+         */
+        public long getFailureCount()
+        {
+            return failureCount.get();
+        }
+
+        /**
+         * @return number of executions that exceeded their deadline
+         */
+        public long getTimeoutCount()
+        {
+            return timeoutCount.get();
+        }
+
+        /**
+         * @return epoch time that the activity last started executing or 0
+         */
+        public long getLastRunMs()
+        {
+            return lastRunMs.get();
+        }
+
+        /**
+         * @return time between when the activity was due to run and when it actually started
+         */
+        public Snapshot getQueueWaitMs()
+        {
+            return queueWaitMs.getSnapshot();
+        }
+
+        /**
+         * @return time spent in the activity's call()/completed()
+         */
+        public Snapshot getExecutionMs()
+        {
+            return executionMs.getSnapshot();
+        }
+    }
+
+    /**
+     * Return the name telemetry is kept under for the given activity: its class name without the
+     * package. Anonymous activities keep their binary name (e.g. "ConfigManager$1") so that each
+     * implementation gets its own entry.
+     *
+     * @param activity the activity
+     * @return name
+     */
+    public static String getName(Activity activity)
+    {
+        if ( activity instanceof RepeatingActivityImpl.Repeater )
+        {
+            return getName(((RepeatingActivityImpl.Repeater)activity).getActualActivity());
+        }
+
+        String          className = activity.getClass().getName();
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return current telemetry sorted by name
+     */
+    public List<Entry> getEntries()
+    {
+        return ImmutableList.copyOf(Ordering.natural().onResultOf(new Function<Entry, String>()
+        {
+            @Override
+            public String apply(Entry entry)
+            {
+                return entry.getName();
+            }
+        }).sortedCopy(entries.values()));
+    }
+
+    /**
+     * Publish the telemetry via Servo. Activities seen in the future are published as they appear.
+     *
+     * @param registry registry to publish to
+     */
+    public synchronized void startMonitoring(MonitorRegistry registry)
+    {
+        monitorRegistry = registry;
+        for ( Entry entry : entries.values() )
+        {
+            register(entry);
+        }
+    }
+
+    /**
+     * Remove everything published via {@link #startMonitoring(MonitorRegistry)}
+     */
+    public synchronized void stopMonitoring()
+    {
+        for ( GaugeSet gauges : registeredGauges )
+        {
+            gauges.unregister();
+        }
+        registeredGauges.clear();
+        for ( Entry entry : entries.values() )
+        {
+            entry.registered = false;
+        }
+        monitorRegistry = null;
+    }
+
+    void record(Activity activity, QueueGroups group, long queueWaitNs, long executionNs, boolean success)
+    {
+        Entry       entry = getEntry(getName(activity));
+        entry.lastGroup.set(group);
+        entry.lastRunMs.set(System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(executionNs));
+        entry.queueWaitMs.update(TimeUnit.NANOSECONDS.toMillis(Math.max(0, queueWaitNs)));
+        entry.executionMs.update(TimeUnit.NANOSECONDS.toMillis(executionNs));
+        if ( !success )
+        {
+            entry.failureCount.incrementAndGet();
+        }
+    }
+
+    void recordTimeout(Activity activity)
+    {
+        getEntry(getName(activity)).timeoutCount.incrementAndGet();
+    }
+
+    private Entry getEntry(String name)
+    {
+        Entry       entry = entries.get(name);
+        if ( entry == null )
+        {
+            Entry       newEntry = new Entry(name);
+            entry = entries.putIfAbsent(name, newEntry);
+            if ( entry == null )
+            {
+                entry = newEntry;
+                synchronized(this)
+                {
+                    if ( monitorRegistry != null )
+                    {
+                        register(entry);    // startMonitoring() may have already seen it
+                    }
+                }
+            }
+        }
+        return entry;
+    }
+
+    // called with the sync held
+    private void register(final Entry entry)
+    {
+        if ( entry.registered )
+        {
+            return;
+        }
+        entry.registered = true;
+
+        GaugeSet    gauges = new GaugeSet("activity")
+            .withTag("activity", entry.getName())
+            .addHistogram("queue_wait", entry.queueWaitMs)
+            .addHistogram("execution", entry.executionMs)
+            .add("execution_count", new Callable<Number>()
+            {
+                @Override
+                public Number call() throws Exception
+                {
+                    return entry.getExecutionCount();
+                }
+            })
+            .add("failure_count", entry.failureCount)
+            .add("timeout_count", entry.timeoutCount)
+            .add("last_run_ms", entry.lastRunMs);
+        gauges.register(monitorRegistry);
+        registeredGauges.add(gauges);
+    }
+}
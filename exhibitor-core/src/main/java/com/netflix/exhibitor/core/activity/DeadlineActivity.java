@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.activity;
+
+/**
+ * An activity with a time limit. If the activity executes for longer than its deadline, the
+ * queue interrupts the executing thread and lets the rest of the group proceed on a new thread (while
+ * fewer than the group's thread quantity are abandoned - one for serial groups). The activity itself
+ * is not executed again until the overrun call returns.
+ */
+public interface DeadlineActivity extends Activity
+{
+    /**
+     * @return maximum time in ms that {@link #call()} and {@link #completed(boolean)} may take or 0 for no limit
+     */
+    public long     getDeadlineMs();
+
+    /**
+     * Called by the queue when the deadline has been exceeded, just after the executing thread
+     * has been interrupted. Must not block.
+     */
+    public void     deadlineExceeded();
+}
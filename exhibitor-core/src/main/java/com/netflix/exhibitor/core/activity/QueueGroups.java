@@ -16,8 +16,52 @@
 
 package com.netflix.exhibitor.core.activity;
 
+/**
+ * Each group is an isolated lane in the {@link ActivityQueue} with its own worker threads so that
+ * slow work in one group never delays another
+ */
 public enum QueueGroups
 {
-    MAIN,
-    IO
+    /**
+     * Config polling, instance monitoring and automatic instance management
+     */
+    MAIN(false),
+
+    /**
+     * Light weight I/O such as log cleanup and Servo polling
+     */
+    IO(true),
+
+    /**
+     * Stopping and starting the ZooKeeper process
+     */
+    PROCESS(false),
+
+    /**
+     * Backups of the ZooKeeper transaction logs
+     */
+    BACKUP(true),
+
+    /**
+     * Indexing of ZooKeeper transaction logs
+     */
+    INDEX(true)
+    ;
+
+    private final boolean concurrencyAllowed;
+
+    QueueGroups(boolean concurrencyAllowed)
+    {
+        this.concurrencyAllowed = concurrencyAllowed;
+    }
+
+    /**
+     * @return true if the group can be drained by more than one thread. Otherwise, the
+     * activities in the group are executed serially. The only exception is a {@link DeadlineActivity}
+     * that overruns its deadline - the group moves on without it while the abandoned call finishes
+     */
+    public boolean isConcurrencyAllowed()
+    {
+        return concurrencyAllowed;
+    }
 }
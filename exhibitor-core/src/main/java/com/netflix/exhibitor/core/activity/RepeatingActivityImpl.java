@@ -31,47 +31,87 @@ public class RepeatingActivityImpl implements RepeatingActivity
 
     private static final int    MIN_TIME_PERIOD_MS = 5;
 
-    /**
-     * @param log the log
-     * @param queue the queue to add to
-     * @param group the queue group
-     * @param actualActivity the repeating activity
-     * @param timePeriodMs the period between executions
-     */
-    public RepeatingActivityImpl(final ActivityLog log, ActivityQueue queue, QueueGroups group, final Activity actualActivity, long timePeriodMs)
+    class Repeater implements DeadlineActivity
     {
-        this.queue = queue;
-        this.group = group;
-        this.activity = new Activity()
+        private final ActivityLog   log;
+        private final Activity      actualActivity;
+        private final AtomicLong    generation = new AtomicLong(0);
+
+        private Repeater(ActivityLog log, Activity actualActivity)
         {
-            @Override
-            public void completed(boolean wasSuccessful)
+            this.log = log;
+            this.actualActivity = actualActivity;
+        }
+
+        Activity getActualActivity()
+        {
+            return actualActivity;
+        }
+
+        @Override
+        public void completed(boolean wasSuccessful)
+        {
+            actualActivity.completed(wasSuccessful);
+        }
+
+        @Override
+        public long getDeadlineMs()
+        {
+            return (actualActivity instanceof DeadlineActivity) ? ((DeadlineActivity)actualActivity).getDeadlineMs() : 0;
+        }
+
+        @Override
+        public void deadlineExceeded()
+        {
+            ((DeadlineActivity)actualActivity).deadlineExceeded();
+
+            // the hung execution may never return - re-queue now and have it skip re-queueing if it does
+            generation.incrementAndGet();
+            if ( isStarted.get() )
             {
-                actualActivity.completed(wasSuccessful);
+                reQueue();
             }
+        }
 
-            @Override
-            public Boolean call() throws Exception
+        @Override
+        public Boolean call() throws Exception
+        {
+            boolean     result = false;
+            if ( isStarted.get() )
             {
-                boolean     result = false;
-                if ( isStarted.get() )
+                long        thisGeneration = generation.get();
+                try
                 {
-                    try
-                    {
-                        result = actualActivity.call();
-                    }
-                    catch ( Throwable e )
+                    result = actualActivity.call();
+                }
+                catch ( Throwable e )
+                {
+                    if ( log != null )
                     {
-                        if ( log != null )
-                        {
-                            log.add(ActivityLog.Type.ERROR, String.format("Unhandled exception in repeating activity (%s) - re-queueing", actualActivity.getClass().getSimpleName()), e);
-                        }
+                        log.add(ActivityLog.Type.ERROR, String.format("Unhandled exception in repeating activity (%s) - re-queueing", actualActivity.getClass().getSimpleName()), e);
                     }
+                }
+                if ( isStarted.get() && (thisGeneration == generation.get()) )
+                {
                     reQueue();
                 }
-                return result;
             }
-        };
+            return result;
+        }
+    }
+
+    /**
+     * @param log the log
+     * @param queue the queue to add to
+     * @param group the queue group
+     * @param actualActivity the repeating activity
+     * @param timePeriodMs the period between executions
+     */
+    public RepeatingActivityImpl(ActivityLog log, ActivityQueue queue, QueueGroups group, Activity actualActivity, long timePeriodMs)
+    {
+        this.queue = queue;
+        this.group = group;
+        this.activity = new Repeater(log, actualActivity);
         this.timePeriodMs = new AtomicLong(Math.max(MIN_TIME_PERIOD_MS, timePeriodMs));
     }
 
@@ -86,6 +126,7 @@ public class RepeatingActivityImpl implements RepeatingActivity
     public void close() throws IOException
     {
         isStarted.set(false);
+        queue.remove(group, activity);
     }
 
     @Override
@@ -97,6 +138,7 @@ public class RepeatingActivityImpl implements RepeatingActivity
 
     private void reQueue()
     {
-        queue.add(group, activity, timePeriodMs.get(), TimeUnit.MILLISECONDS);
+        // replace rather than add so that a period change made while executing can't leave two entries queued
+        queue.replace(group, activity, timePeriodMs.get(), TimeUnit.MILLISECONDS);
     }
 }
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.activity;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel. Nodes are hashed into buckets by their deadline tick so that scheduling
+ * and cancelling are constant time regardless of how many nodes are pending. A node never
+ * expires before its deadline - deadlines are rounded up to the next tick.<br>
+ * <br>
+ * NOTE: not thread safe - callers must provide synchronization
+ */
+class TimingWheel
+{
+    private final NodeList[]    buckets;
+    private final int           mask;
+    private final long          tickNs;
+    private final long          startNs;
+    private long                currentTick = 0;
+    private int                 size = 0;
+
+    /**
+     * An entry that can be linked into exactly one {@link NodeList} at a time
+     */
+    static class Node
+    {
+        private long        deadlineTick;
+        private Node        prev;
+        private Node        next;
+        private NodeList    list;
+
+        boolean isLinked()
+        {
+            return list != null;
+        }
+
+        /**
+         * Remove the node from whichever list it is in (if any)
+         */
+        void unlink()
+        {
+            if ( list != null )
+            {
+                list.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list of nodes - all operations are O(1)
+     */
+    static class NodeList
+    {
+        private Node    head;
+        private Node    tail;
+        private int     size;
+
+        void addLast(Node node)
+        {
+            Preconditions.checkState(!node.isLinked(), "node is already linked");
+
+            node.list = this;
+            node.prev = tail;
+            node.next = null;
+            if ( tail != null )
+            {
+                tail.next = node;
+            }
+            else
+            {
+                head = node;
+            }
+            tail = node;
+            ++size;
+        }
+
+        Node pollFirst()
+        {
+            Node    node = head;
+            if ( node != null )
+            {
+                remove(node);
+            }
+            return node;
+        }
+
+        void remove(Node node)
+        {
+            Preconditions.checkState(node.list == this, "node is not in this list");
+
+            if ( node.prev != null )
+            {
+                node.prev.next = node.next;
+            }
+            else
+            {
+                head = node.next;
+            }
+            if ( node.next != null )
+            {
+                node.next.prev = node.prev;
+            }
+            else
+            {
+                tail = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.list = null;
+            --size;
+        }
+
+        boolean isEmpty()
+        {
+            return head == null;
+        }
+
+        int size()
+        {
+            return size;
+        }
+    }
+
+    private class Bucket extends NodeList
+    {
+        @Override
+        void remove(Node node)
+        {
+            super.remove(node);
+            --TimingWheel.this.size;
+        }
+    }
+
+    /**
+     * @param tickDuration resolution of the wheel
+     * @param unit tick duration unit
+     * @param wheelSize number of buckets - rounded up to a power of 2
+     */
+    TimingWheel(long tickDuration, TimeUnit unit, int wheelSize)
+    {
+        Preconditions.checkArgument(tickDuration > 0, "tickDuration must be a positive number");
+        Preconditions.checkArgument(wheelSize > 0, "wheelSize must be a positive number");
+
+        int     normalizedSize = Integer.highestOneBit(wheelSize);
+        if ( normalizedSize < wheelSize )
+        {
+            normalizedSize <<= 1;
+        }
+
+        buckets = new NodeList[normalizedSize];
+        for ( int i = 0; i < normalizedSize; ++i )
+        {
+            buckets[i] = new Bucket();
+        }
+        mask = normalizedSize - 1;
+        tickNs = unit.toNanos(tickDuration);
+        startNs = System.nanoTime();
+    }
+
+    /**
+     * Add a node to the wheel. To reschedule a node, {@link Node#unlink()} it first.
+     *
+     * @param node the node
+     * @param delayNs how long from now the node should expire
+     */
+    void schedule(Node node, long delayNs)
+    {
+        long    elapsedNs = (System.nanoTime() - startNs) + Math.max(0, delayNs);
+        long    deadlineTick = (elapsedNs + tickNs - 1) / tickNs;
+        node.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+
+        buckets[(int)(node.deadlineTick & mask)].addLast(node);
+        ++size;
+    }
+
+    /**
+     * Advance the wheel to the given time, moving all nodes whose deadline has passed
+     * into <code>expired</code> (in deadline tick order)
+     *
+     * @param nowNs current value of {@link System#nanoTime()}
+     * @param expired receives the expired nodes
+     */
+    void expire(long nowNs, NodeList expired)
+    {
+        long    nowTick = (nowNs - startNs) / tickNs;
+        long    lastTick = Math.min(nowTick, currentTick + buckets.length);
+        for ( long tick = currentTick + 1; tick <= lastTick; ++tick )
+        {
+            Node    node = buckets[(int)(tick & mask)].head;
+            while ( node != null )
+            {
+                Node    next = node.next;
+                if ( node.deadlineTick <= nowTick )
+                {
+                    node.unlink();
+                    expired.addLast(node);
+                }
+                node = next;
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+    }
+
+    /**
+     * Return how long to wait before {@link #expire(long, NodeList)} could have something to do
+     *
+     * @param nowNs current value of {@link System#nanoTime()}
+     * @return nanoseconds to wait or -1 if the wheel is empty
+     */
+    long nanosUntilNextExpiration(long nowNs)
+    {
+        if ( size == 0 )
+        {
+            return -1;
+        }
+
+        long    nextTick = currentTick + buckets.length;
+        for ( long tick = currentTick + 1; tick < (currentTick + buckets.length); ++tick )
+        {
+            if ( !buckets[(int)(tick & mask)].isEmpty() )
+            {
+                nextTick = tick;
+                break;
+            }
+        }
+        return Math.max(0, (startNs + (nextTick * tickNs)) - nowNs);
+    }
+
+    /**
+     * @return number of nodes in the wheel
+     */
+    int size()
+    {
+        return size;
+    }
+}
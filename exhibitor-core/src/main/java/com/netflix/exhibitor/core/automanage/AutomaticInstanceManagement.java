@@ -20,6 +20,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.activity.Activity;
 import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.PseudoLock;
@@ -63,7 +64,7 @@ public class AutomaticInstanceManagement implements Activity
             return true;    // this instance hasn't warmed up yet
         }
 
-        ServerList serverList = new ServerList(exhibitor.getConfigManager().getConfig().getString(StringConfigs.SERVERS_SPEC));
+        ServerList serverList = ConfigSnapshot.of(exhibitor.getConfigManager().getConfig()).getServerList();
         List<ServerStatus> statuses = getStatuses(serverList);
         clusterState.update(serverList, statuses);
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression format for backups. Encoded backups must be self-describing - i.e. start with a
+ * signature that {@link #canDecode(byte[], int)} recognizes - so that backups written with any
+ * codec can be restored no matter which codec is currently configured.
+ */
+public interface BackupCodec
+{
+    /**
+     * Return the name used to select this codec in the config (e.g. "gzip")
+     *
+     * @return name
+     */
+    public String       getName();
+
+    /**
+     * Return true if the given leading bytes of an encoded backup were written by this codec
+     *
+     * @param header the first bytes of the backup
+     * @param length number of valid bytes in header - at most 16, fewer for tiny backups
+     * @return true/false
+     */
+    public boolean      canDecode(byte[] header, int length);
+
+    /**
+     * Encode the source file
+     *
+     * @param source file to encode
+     * @param destination destination stream - must not be closed
+     * @param threads number of threads the codec may use
+     * @throws IOException errors
+     */
+    public void         encode(File source, OutputStream destination, int threads) throws IOException;
+
+    /**
+     * Return a stream that decodes the given stream
+     *
+     * @param in encoded stream
+     * @return decoded stream
+     * @throws IOException errors
+     */
+    public InputStream  decode(InputStream in) throws IOException;
+
+    /**
+     * Decode an encoded file
+     *
+     * @param source encoded file
+     * @param destination destination stream - must not be closed
+     * @param threads number of threads the codec may use
+     * @throws IOException errors
+     */
+    public void         decode(File source, OutputStream destination, int threads) throws IOException;
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import org.apache.curator.utils.CloseableUtils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * The available codecs: the built-in ones plus any added via {@link com.netflix.exhibitor.core.ExhibitorArguments}.
+ * Encoding uses the configured codec. Decoding detects the codec from the backup's leading bytes.
+ */
+class BackupCodecs
+{
+    private final List<BackupCodec>     codecs;
+
+    static final int        HEADER_LENGTH = 16;
+
+    private static final int        BUFFER_SIZE = 1024 * 1024;  // 1 MB
+
+    BackupCodecs(List<BackupCodec> additionalCodecs)
+    {
+        codecs = ImmutableList.<BackupCodec>builder().add(new GzipBackupCodec()).add(new ZstdBackupCodec()).addAll(additionalCodecs).build();
+    }
+
+    /**
+     * Return the codec with the given name or null
+     *
+     * @param name codec name
+     * @return codec or null
+     */
+    BackupCodec get(String name)
+    {
+        for ( BackupCodec codec : codecs )
+        {
+            if ( codec.getName().equals(name) )
+            {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the codec that wrote the given header or null
+     *
+     * @param header leading bytes of the backup
+     * @param length number of valid bytes
+     * @return codec or null
+     */
+    BackupCodec detect(byte[] header, int length)
+    {
+        for ( BackupCodec codec : codecs )
+        {
+            if ( codec.canDecode(header, length) )
+            {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decode the file with whichever codec wrote it
+     *
+     * @param source encoded file
+     * @param destination destination stream - not closed
+     * @param threads number of threads the codec may use
+     * @throws IOException errors or an unknown format
+     */
+    void decode(File source, OutputStream destination, int threads) throws IOException
+    {
+        byte[]          header = new byte[HEADER_LENGTH];
+        int             length;
+        InputStream     in = new FileInputStream(source);
+        try
+        {
+            length = ByteStreams.read(in, header, 0, header.length);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(in);
+        }
+
+        getCodec(header, length).decode(source, destination, threads);
+    }
+
+    /**
+     * Return a stream that decodes the given stream with whichever codec wrote it
+     *
+     * @param in encoded stream - must support mark/reset
+     * @return decoded stream
+     * @throws IOException errors or an unknown format
+     */
+    InputStream decode(InputStream in) throws IOException
+    {
+        byte[]      header = new byte[HEADER_LENGTH];
+        in.mark(header.length);
+        int         length = ByteStreams.read(in, header, 0, header.length);
+        in.reset();
+
+        return getCodec(header, length).decode(in);
+    }
+
+    static void copy(InputStream in, OutputStream out) throws IOException
+    {
+        byte[]          buffer = new byte[BUFFER_SIZE];
+        for(;;)
+        {
+            int     bytesRead = in.read(buffer);
+            if ( bytesRead < 0 )
+            {
+                break;
+            }
+            out.write(buffer, 0, bytesRead);
+        }
+    }
+
+    private BackupCodec getCodec(byte[] header, int length) throws IOException
+    {
+        BackupCodec     codec = detect(header, length);
+        if ( codec == null )
+        {
+            throw new IOException("Unknown backup format");
+        }
+        return codec;
+    }
+}
@@ -17,7 +17,8 @@
 package com.netflix.exhibitor.core.backup;
 
 import com.google.common.base.Optional;
-import com.google.common.io.ByteStreams;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.activity.Activity;
 import com.netflix.exhibitor.core.activity.ActivityLog;
@@ -25,16 +26,18 @@ import com.netflix.exhibitor.core.activity.OnOffRepeatingActivity;
 import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.activity.RepeatingActivity;
 import com.netflix.exhibitor.core.activity.RepeatingActivityImpl;
+import com.netflix.exhibitor.core.config.ConfigDiff;
 import com.netflix.exhibitor.core.config.ConfigListener;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.EncodedConfigParser;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.StringConfigs;
 import com.netflix.exhibitor.core.controlpanel.ControlPanelTypes;
 import com.netflix.exhibitor.core.index.ZooKeeperLogFiles;
+import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -42,7 +45,6 @@ import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.zip.GZIPInputStream;
 import org.apache.curator.utils.CloseableUtils;
 import org.apache.log4j.Logger;
 
@@ -51,17 +53,31 @@ public class BackupManager implements Closeable
     private static Logger log = Logger.getLogger(BackupManager.class);
     private final Exhibitor exhibitor;
     private final Optional<BackupProvider> backupProvider;
+    private final BackupCodecs codecs;
     private final RepeatingActivity repeatingActivity;
     private final AtomicLong lastRollCheck = new AtomicLong(0);
 
+    private static final String MANIFEST_FILE_NAME = ".exhibitor-backup-manifest";
+
     /**
      * @param exhibitor      main instance
      * @param backupProvider provider
      */
-    public BackupManager(final Exhibitor exhibitor, BackupProvider backupProvider)
+    public BackupManager(Exhibitor exhibitor, BackupProvider backupProvider)
+    {
+        this(exhibitor, backupProvider, ImmutableList.<BackupCodec>of());
+    }
+
+    /**
+     * @param exhibitor        main instance
+     * @param backupProvider   provider
+     * @param additionalCodecs codecs in addition to the built-in gzip and zstd
+     */
+    public BackupManager(final Exhibitor exhibitor, BackupProvider backupProvider, List<BackupCodec> additionalCodecs)
     {
         this.exhibitor = exhibitor;
         this.backupProvider = Optional.fromNullable(backupProvider);
+        this.codecs = new BackupCodecs(additionalCodecs);
 
         final Activity activity = new Activity()
         {
@@ -85,7 +101,7 @@ public class BackupManager implements Closeable
                     @Override
                     public RepeatingActivity newRepeatingActivity(long timePeriodMs)
                     {
-                        return new RepeatingActivityImpl(exhibitor.getLog(), exhibitor.getActivityQueue(), QueueGroups.IO, activity, getBackupPeriodMs());
+                        return new RepeatingActivityImpl(exhibitor.getLog(), exhibitor.getActivityQueue(), QueueGroups.BACKUP, activity, getBackupPeriodMs());
                     }
                 },
                 getBackupPeriodMs()
@@ -110,11 +126,12 @@ public class BackupManager implements Closeable
                     new ConfigListener()
                     {
                         @Override
-                        public void configUpdated()
+                        public void configUpdated(ConfigDiff diff)
                         {
-                            repeatingActivity.setTimePeriodMs(exhibitor.getConfigManager().getConfig().getInt(IntConfigs.BACKUP_PERIOD_MS));
+                            repeatingActivity.setTimePeriodMs(diff.getNewConfig().getInt(IntConfigs.BACKUP_PERIOD_MS));
                         }
-                    }
+                    },
+                    IntConfigs.BACKUP_PERIOD_MS
                 );
         }
     }
@@ -150,7 +167,7 @@ public class BackupManager implements Closeable
     }
 
     /**
-     * Return a stream for the specified backup
+     * Return a stream for the specified backup as it is stored - i.e. still encoded
      *
      * @param metaData the backup to get
      * @return the stream or null if the stream doesn't exist
@@ -161,6 +178,50 @@ public class BackupManager implements Closeable
         return backupProvider.get().getBackupStream(exhibitor, metaData, getBackupConfig());
     }
 
+    /**
+     * Return a stream of the decoded contents of the given backup. The codec is detected
+     * from the backup itself.
+     *
+     * @param metaData the backup
+     * @return the stream or null if the stream doesn't exist
+     * @throws Exception errors
+     */
+    public BackupStream getDecodedBackupStream(BackupMetaData metaData) throws Exception
+    {
+        final BackupStream backupStream = getBackupStream(metaData);
+        if (backupStream == null) {
+            return null;
+        }
+
+        final InputStream in;
+        try {
+            in = codecs.decode(new BufferedInputStream(backupStream.getStream()));
+        }
+        catch (Exception e) {
+            CloseableUtils.closeQuietly(backupStream);
+            throw e;
+        }
+        return new BackupStream()
+        {
+            @Override
+            public InputStream getStream()
+            {
+                return in;
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                try {
+                    in.close();
+                }
+                finally {
+                    backupStream.close();
+                }
+            }
+        };
+    }
+
     /**
      * Return the stored backup config
      *
@@ -168,7 +229,7 @@ public class BackupManager implements Closeable
      */
     public EncodedConfigParser getBackupConfigParser()
     {
-        return new EncodedConfigParser(exhibitor.getConfigManager().getConfig().getString(StringConfigs.BACKUP_EXTRA));
+        return ConfigSnapshot.of(exhibitor.getConfigManager().getConfig()).getBackupExtra();
     }
 
     /**
@@ -223,19 +284,15 @@ public class BackupManager implements Closeable
     {
         File tempFile = File.createTempFile("exhibitor-backup", ".tmp");
         OutputStream out = new FileOutputStream(tempFile);
-        InputStream in = null;
         try {
             backupProvider.get().downloadBackup(exhibitor, backup, out, getBackupConfig());
             CloseableUtils.closeQuietly(out);
             out = null;
 
             out = new FileOutputStream(destinationFile);
-            in = new GZIPInputStream(new FileInputStream(tempFile));
-
-            ByteStreams.copy(in, out);
+            codecs.decode(tempFile, out, getCompressionThreads());
         }
         finally {
-            CloseableUtils.closeQuietly(in);
             CloseableUtils.closeQuietly(out);
             if (!tempFile.delete()) {
                 exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not delete temp file (for restore): " + tempFile);
@@ -261,48 +318,127 @@ public class BackupManager implements Closeable
             return;
         }
 
-        for (File f : zooKeeperLogFiles.getPaths()) {
-            TempCompressedFile tempCompressedFile = new TempCompressedFile(f);
+        BackupManifest manifest = BackupManifest.load(getManifestFile(), config);
+        try {
+            List<String> names = Lists.newArrayList();
+            for (File f : zooKeeperLogFiles.getPaths()) {
+                names.add(f.getName());
+                backupIfChanged(provider, manifest, f, config);
+            }
+            manifest.retain(names);
+
+            doRoll(config, manifest);
+        }
+        finally {
             try {
-                tempCompressedFile.compress();
-
-                BackupMetaData metaData = new BackupMetaData(f.getName(), f.lastModified());
-                BackupProvider.UploadResult result = provider.uploadBackup(exhibitor, metaData, tempCompressedFile.getTempFile(), config);
-                switch (result) {
-                    case SUCCEEDED: {
-                        exhibitor.getLog().add(ActivityLog.Type.DEBUG, "Backing up: " + f);
-                        break;
-                    }
+                manifest.save();
+            }
+            catch (IOException e) {
+                exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not save backup manifest", e);
+            }
+        }
+    }
 
-                    case DUPLICATE: {
-                        // ignore
-                        break;
-                    }
+    private File getManifestFile()
+    {
+        return new File(ZooKeeperLogFiles.getDataDir(exhibitor).getParentFile(), MANIFEST_FILE_NAME);
+    }
 
-                    case REPLACED_OLD_VERSION: {
-                        exhibitor.getLog().add(ActivityLog.Type.DEBUG, "Updated back up for: " + f);
-                        break;
-                    }
-                }
+    private void backupIfChanged(BackupProvider provider, BackupManifest manifest, File f, Map<String, String> config) throws Exception
+    {
+        // stat before reading - a change made while we read shows up as a new modified date next time
+        BackupManifest.Stat stat = new BackupManifest.Stat(f);
+        if (manifest.isUnchanged(f, stat)) {
+            return;
+        }
+
+        String hash = BackupManifest.hash(f);
+        if (manifest.hasContent(f, hash)) {
+            manifest.record(f, stat, hash);
+            return;
+        }
+
+        BackupMetaData metaData = new BackupMetaData(f.getName(), stat.getModifiedDate());
+        BackupCodec codec = getCodec();
+        int threads = getCompressionThreads();
+        BackupProvider.UploadResult result;
+        if (provider instanceof StreamingBackupProvider) {
+            result = ((StreamingBackupProvider) provider).uploadBackup(exhibitor, metaData, makeCompressingWriter(f, codec, threads), config);
+        } else {
+            result = uploadCompressedFile(provider, metaData, f, codec, threads, config);
+        }
+        switch (result) {
+            case SUCCEEDED: {
+                exhibitor.getLog().add(ActivityLog.Type.DEBUG, "Backing up: " + f);
+                break;
             }
-            finally {
-                if (!tempCompressedFile.getTempFile().delete()) {
-                    exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not delete temp file: " + tempCompressedFile.getTempFile());
-                }
+
+            case DUPLICATE: {
+                // ignore
+                break;
+            }
+
+            case REPLACED_OLD_VERSION: {
+                exhibitor.getLog().add(ActivityLog.Type.DEBUG, "Updated back up for: " + f);
+                break;
             }
         }
+        if (result != BackupProvider.UploadResult.FAILED) {
+            manifest.record(f, stat, hash);
+        }
+    }
 
-        doRoll(config);
+    private int getCompressionThreads()
+    {
+        return ParallelGzip.getThreads(exhibitor.getConfigManager().getConfig().getInt(IntConfigs.BACKUP_COMPRESSION_THREADS));
+    }
+
+    private BackupCodec getCodec()
+    {
+        String name = exhibitor.getConfigManager().getConfig().getString(StringConfigs.BACKUP_CODEC);
+        if ((name == null) || (name.length() == 0)) {
+            name = GzipBackupCodec.NAME;
+        }
+        BackupCodec codec = codecs.get(name);
+        if (codec == null) {
+            exhibitor.getLog().add(ActivityLog.Type.ERROR, "Unknown backup codec: " + name + " - using " + GzipBackupCodec.NAME);
+            codec = codecs.get(GzipBackupCodec.NAME);
+        }
+        return codec;
+    }
+
+    private BackupWriter makeCompressingWriter(final File f, final BackupCodec codec, final int threads)
+    {
+        return new BackupWriter()
+        {
+            @Override
+            public void write(OutputStream out) throws Exception
+            {
+                codec.encode(f, out, threads);
+            }
+        };
+    }
+
+    private BackupProvider.UploadResult uploadCompressedFile(BackupProvider provider, BackupMetaData metaData, File f, BackupCodec codec, int threads, Map<String, String> config) throws Exception
+    {
+        TempCompressedFile tempCompressedFile = new TempCompressedFile(f, codec, threads);
+        try {
+            tempCompressedFile.compress();
+            return provider.uploadBackup(exhibitor, metaData, tempCompressedFile.getTempFile(), config);
+        }
+        finally {
+            if (!tempCompressedFile.getTempFile().delete()) {
+                exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not delete temp file: " + tempCompressedFile.getTempFile());
+            }
+        }
     }
 
     private Map<String, String> getBackupConfig()
     {
-        String backupExtra = exhibitor.getConfigManager().getConfig().getString(StringConfigs.BACKUP_EXTRA);
-        EncodedConfigParser encodedConfigParser = new EncodedConfigParser(backupExtra);
-        return encodedConfigParser.getSortedMap();
+        return getBackupConfigParser().getSortedMap();
     }
 
-    private void doRoll(Map<String, String> config) throws Exception
+    private void doRoll(Map<String, String> config, BackupManifest manifest) throws Exception
     {
         long elapsed = System.currentTimeMillis() - lastRollCheck.get();
         if (elapsed < (exhibitor.getConfigManager().getConfig().getInt(IntConfigs.BACKUP_MAX_STORE_MS) / 3)) {
@@ -317,6 +453,7 @@ public class BackupManager implements Closeable
             if (age > exhibitor.getConfigManager().getConfig().getInt(IntConfigs.BACKUP_MAX_STORE_MS)) {
                 exhibitor.getLog().add(ActivityLog.Type.DEBUG, "Cleaning backup: " + backup);
                 backupProvider.get().deleteBackup(exhibitor, backup, config);
+                manifest.remove(backup.getName());  // so that it's backed up again if the file is still around
             }
         }
 
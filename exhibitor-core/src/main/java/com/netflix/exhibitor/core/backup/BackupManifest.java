@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.curator.utils.CloseableUtils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Local record of the log files that have been backed up: name, size, modified date and content hash.
+ * Lets {@link BackupManager} skip unchanged files without compressing them or calling the provider.
+ */
+class BackupManifest
+{
+    private final File                  file;
+    private final String                configFingerprint;
+    private final Map<String, Entry>    entries = Maps.newTreeMap();
+
+    private static final String     CONFIG_KEY = "exhibitor.backup-config";
+
+    // file systems with coarse modified dates can't show a change made just after the stat was taken
+    @VisibleForTesting
+    static final long       MODIFIED_GRANULARITY_MS = 2000;
+
+    static class Stat
+    {
+        private final long      size;
+        private final long      modifiedDate;
+        private final long      takenMs;
+
+        Stat(File f)
+        {
+            takenMs = System.currentTimeMillis();
+            size = f.length();
+            modifiedDate = f.lastModified();
+        }
+
+        private Stat(long size, long modifiedDate, long takenMs)
+        {
+            this.size = size;
+            this.modifiedDate = modifiedDate;
+            this.takenMs = takenMs;
+        }
+
+        long getModifiedDate()
+        {
+            return modifiedDate;
+        }
+    }
+
+    private static class Entry
+    {
+        private final Stat      stat;
+        private final String    hash;
+
+        private Entry(Stat stat, String hash)
+        {
+            this.stat = stat;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Load the manifest. If it was written for a different backup config it is ignored.
+     *
+     * @param file manifest file
+     * @param backupConfig current backup config
+     * @return manifest
+     */
+    static BackupManifest load(File file, Map<String, String> backupConfig)
+    {
+        BackupManifest      manifest = new BackupManifest(file, Integer.toHexString(backupConfig.hashCode()));
+
+        Properties          properties = new Properties();
+        if ( file.exists() )
+        {
+            InputStream     in = null;
+            try
+            {
+                in = new FileInputStream(file);
+                properties.load(in);
+            }
+            catch ( IOException e )
+            {
+                properties.clear();    // start over
+            }
+            finally
+            {
+                CloseableUtils.closeQuietly(in);
+            }
+        }
+
+        if ( manifest.configFingerprint.equals(properties.getProperty(CONFIG_KEY)) )
+        {
+            for ( String name : properties.stringPropertyNames() )
+            {
+                String[]    parts = properties.getProperty(name).split(",");
+                if ( !name.equals(CONFIG_KEY) && (parts.length == 4) )
+                {
+                    try
+                    {
+                        Stat    stat = new Stat(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                        manifest.entries.put(name, new Entry(stat, parts[3]));
+                    }
+                    catch ( NumberFormatException ignore )
+                    {
+                        // ignore
+                    }
+                }
+            }
+        }
+        return manifest;
+    }
+
+    static String hash(File f) throws IOException
+    {
+        return Files.asByteSource(f).hash(Hashing.sha256()).toString();
+    }
+
+    /**
+     * Return true if the file has the size and modified date that were recorded for it
+     *
+     * @param f file
+     * @param stat current stat of the file
+     * @return true/false
+     */
+    synchronized boolean isUnchanged(File f, Stat stat)
+    {
+        Entry       entry = entries.get(f.getName());
+        return (entry != null)
+            && (entry.stat.size == stat.size)
+            && (entry.stat.modifiedDate == stat.modifiedDate)
+            && ((entry.stat.takenMs - entry.stat.modifiedDate) >= MODIFIED_GRANULARITY_MS);
+    }
+
+    /**
+     * Return true if the file's recorded content has the given hash
+     *
+     * @param f file
+     * @param hash content hash
+     * @return true/false
+     */
+    synchronized boolean hasContent(File f, String hash)
+    {
+        Entry       entry = entries.get(f.getName());
+        return (entry != null) && entry.hash.equals(hash);
+    }
+
+    synchronized void record(File f, Stat stat, String hash)
+    {
+        entries.put(f.getName(), new Entry(stat, hash));
+    }
+
+    synchronized void remove(String name)
+    {
+        entries.remove(name);
+    }
+
+    synchronized void retain(Collection<String> names)
+    {
+        entries.keySet().retainAll(names);
+    }
+
+    synchronized void save() throws IOException
+    {
+        Properties      properties = new Properties();
+        properties.setProperty(CONFIG_KEY, configFingerprint);
+        for ( Map.Entry<String, Entry> entry : entries.entrySet() )
+        {
+            Stat        stat = entry.getValue().stat;
+            properties.setProperty(entry.getKey(), stat.size + "," + stat.modifiedDate + "," + stat.takenMs + "," + entry.getValue().hash);
+        }
+
+        File                tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        FileOutputStream    out = new FileOutputStream(tempFile);
+        try
+        {
+            properties.store(out, "Auto-generated by Exhibitor");
+            out.getFD().sync();
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(out);
+        }
+        try
+        {
+            java.nio.file.Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            java.nio.file.Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private BackupManifest(File file, String configFingerprint)
+    {
+        this.file = file;
+        this.configFingerprint = configFingerprint;
+    }
+}
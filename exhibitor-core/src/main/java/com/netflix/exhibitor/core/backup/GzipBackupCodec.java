@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import org.apache.curator.utils.CloseableUtils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The original backup format. With more than one thread, blocks are compressed in parallel (see {@link ParallelGzip}).
+ */
+class GzipBackupCodec implements BackupCodec
+{
+    static final String     NAME = "gzip";
+
+    private static final int        BUFFER_SIZE = 1024 * 1024;  // 1 MB
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public boolean canDecode(byte[] header, int length)
+    {
+        return (length >= 2) && ((header[0] & 0xff) == 0x1f) && ((header[1] & 0xff) == 0x8b);
+    }
+
+    @Override
+    public void encode(File source, OutputStream destination, int threads) throws IOException
+    {
+        InputStream         in = null;
+        try
+        {
+            in = new FileInputStream(source);
+            if ( threads > 1 )
+            {
+                ParallelGzipOutputStream    out = new ParallelGzipOutputStream(destination, threads);
+                try
+                {
+                    BackupCodecs.copy(in, out);
+                    out.finish();
+                }
+                finally
+                {
+                    out.discard();
+                }
+            }
+            else
+            {
+                GZIPOutputStream    out = new GZIPOutputStream(destination, BUFFER_SIZE);
+                BackupCodecs.copy(in, out);
+                out.finish();
+            }
+            destination.flush();
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(in);
+        }
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException
+    {
+        return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    @Override
+    public void decode(File source, OutputStream destination, int threads) throws IOException
+    {
+        ParallelGzip.decompress(source, destination, threads);
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.collect.Queues;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.curator.utils.CloseableUtils;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ *     Block gzip format. Data is cut into blocks and each block is written as a separate gzip member
+ *     so blocks can be compressed in parallel. Concatenated members are a valid gzip file - gunzip,
+ *     zcat, {@link GZIPInputStream}, etc. read them as one stream.
+ * </p>
+ *
+ * <p>
+ *     Each member header has an extra field (subfield id "EX") holding the member's total size. This
+ *     lets {@link #decompress(File, OutputStream, int)} find the members without inflating them so that
+ *     they can be inflated in parallel too. Files without the field are decompressed serially.
+ * </p>
+ */
+class ParallelGzip
+{
+    static final int        BLOCK_SIZE = 1024 * 1024;   // 1 MB
+
+    private static final int        GZIP_MAGIC_1 = 0x1f;
+    private static final int        GZIP_MAGIC_2 = 0x8b;
+    private static final int        METHOD_DEFLATE = 8;
+    private static final int        FLAG_EXTRA = 0x04;
+    private static final int        OS_UNKNOWN = 0xff;
+    private static final int        SUBFIELD_ID_1 = 'E';
+    private static final int        SUBFIELD_ID_2 = 'X';
+    private static final int        SUBFIELD_LENGTH = 4;
+    private static final int        EXTRA_LENGTH = 4 + SUBFIELD_LENGTH;
+    private static final int        HEADER_LENGTH = 10 + 2 + EXTRA_LENGTH;
+    private static final int        TRAILER_LENGTH = 8;
+    private static final int        MAX_MEMBER_SIZE = 16 * BLOCK_SIZE;     // sanity limit for corrupt headers
+
+    /**
+     * Return the number of threads to use for the given configured value - 0 meaning one per core
+     *
+     * @param configuredThreads configured value
+     * @return thread count
+     */
+    static int getThreads(int configuredThreads)
+    {
+        return (configuredThreads > 0) ? configuredThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    static ExecutorService makeExecutor(int threads)
+    {
+        return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ParallelGzip-%d").setDaemon(true).build());
+    }
+
+    /**
+     * Compress one block into a complete gzip member
+     *
+     * @param data data
+     * @param length length of the data
+     * @return the member
+     */
+    static byte[] compressBlock(byte[] data, int length)
+    {
+        ByteArrayOutputStream   out = new ByteArrayOutputStream(HEADER_LENGTH + (length / 2) + TRAILER_LENGTH);
+        byte[]                  header = new byte[HEADER_LENGTH];
+        out.write(header, 0, header.length);    // placeholder until the size is known
+
+        Deflater                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try
+        {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[]      buffer = new byte[64 * 1024];
+            while ( !deflater.finished() )
+            {
+                int     count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+        }
+        finally
+        {
+            deflater.end();
+        }
+
+        CRC32       crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(out, (int)crc.getValue());
+        writeInt(out, length);
+
+        byte[]      member = out.toByteArray();
+        member[0] = (byte)GZIP_MAGIC_1;
+        member[1] = (byte)GZIP_MAGIC_2;
+        member[2] = METHOD_DEFLATE;
+        member[3] = FLAG_EXTRA;
+        // 4-7 mtime and 8 extra flags are 0
+        member[9] = (byte)OS_UNKNOWN;
+        setShort(member, 10, EXTRA_LENGTH);
+        member[12] = SUBFIELD_ID_1;
+        member[13] = SUBFIELD_ID_2;
+        setShort(member, 14, SUBFIELD_LENGTH);
+        setInt(member, 16, member.length);
+        return member;
+    }
+
+    /**
+     * Decompress a gzip file. Files written by {@link ParallelGzipOutputStream} are inflated in parallel.
+     *
+     * @param source gzip file
+     * @param destination destination stream - not closed
+     * @param threads number of threads
+     * @throws IOException errors
+     */
+    static void decompress(File source, OutputStream destination, int threads) throws IOException
+    {
+        if ( (threads <= 1) || !isBlockFormat(source) )
+        {
+            InputStream     in = new GZIPInputStream(new FileInputStream(source), BLOCK_SIZE);
+            try
+            {
+                ByteStreams.copy(in, destination);
+            }
+            finally
+            {
+                CloseableUtils.closeQuietly(in);
+            }
+            return;
+        }
+
+        ExecutorService         executor = makeExecutor(threads);
+        DataInputStream         in = new DataInputStream(new BufferedInputStream(new FileInputStream(source), BLOCK_SIZE));
+        try
+        {
+            Queue<Future<byte[]>>   pending = Queues.newArrayDeque();
+            byte[]                  header = new byte[HEADER_LENGTH];
+            for(;;)
+            {
+                int     firstByte = in.read();
+                if ( firstByte < 0 )
+                {
+                    break;
+                }
+                header[0] = (byte)firstByte;
+                in.readFully(header, 1, header.length - 1);
+                if ( !isBlockHeader(header) )
+                {
+                    throw new IOException("Corrupt block gzip file: " + source);
+                }
+
+                final byte[]    member = new byte[getInt(header, 16)];
+                System.arraycopy(header, 0, member, 0, header.length);
+                in.readFully(member, header.length, member.length - header.length);
+
+                if ( pending.size() >= (threads * 2) )
+                {
+                    destination.write(getResult(pending.remove()));
+                }
+                pending.add(executor.submit(new Callable<byte[]>()
+                {
+                    @Override
+                    public byte[] call() throws Exception
+                    {
+                        return decompressBlock(member);
+                    }
+                }));
+            }
+
+            while ( !pending.isEmpty() )
+            {
+                destination.write(getResult(pending.remove()));
+            }
+        }
+        catch ( EOFException e )
+        {
+            throw new IOException("Truncated block gzip file: " + source, e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+            CloseableUtils.closeQuietly(in);
+        }
+    }
+
+    static byte[] getResult(Future<byte[]> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch ( ExecutionException e )
+        {
+            throw (e.getCause() instanceof IOException) ? (IOException)e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private static byte[] decompressBlock(byte[] member) throws IOException
+    {
+        int         trailerOffset = member.length - TRAILER_LENGTH;
+        int         size = getInt(member, trailerOffset + 4);
+        if ( (size < 0) || (size > MAX_MEMBER_SIZE) )
+        {
+            throw new IOException("Bad block size: " + size);
+        }
+        byte[]      data = new byte[size];
+        Inflater    inflater = new Inflater(true);
+        try
+        {
+            inflater.setInput(member, HEADER_LENGTH, trailerOffset - HEADER_LENGTH);
+            int     offset = 0;
+            while ( (offset < data.length) && !inflater.finished() )
+            {
+                int     count = inflater.inflate(data, offset, data.length - offset);
+                if ( (count == 0) && (inflater.needsInput() || inflater.needsDictionary()) )
+                {
+                    break;
+                }
+                offset += count;
+            }
+            if ( offset != data.length )
+            {
+                throw new IOException("Block size mismatch");
+            }
+        }
+        catch ( DataFormatException e )
+        {
+            throw new IOException(e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+
+        CRC32       crc = new CRC32();
+        crc.update(data);
+        if ( (int)crc.getValue() != getInt(member, trailerOffset) )
+        {
+            throw new IOException("Block CRC mismatch");
+        }
+        return data;
+    }
+
+    private static boolean isBlockFormat(File source) throws IOException
+    {
+        byte[]          header = new byte[HEADER_LENGTH];
+        InputStream     in = new FileInputStream(source);
+        try
+        {
+            return (ByteStreams.read(in, header, 0, header.length) == header.length) && isBlockHeader(header);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(in);
+        }
+    }
+
+    private static boolean isBlockHeader(byte[] header)
+    {
+        return ((header[0] & 0xff) == GZIP_MAGIC_1)
+            && ((header[1] & 0xff) == GZIP_MAGIC_2)
+            && (header[2] == METHOD_DEFLATE)
+            && (header[3] == FLAG_EXTRA)
+            && (getShort(header, 10) == EXTRA_LENGTH)
+            && (header[12] == SUBFIELD_ID_1)
+            && (header[13] == SUBFIELD_ID_2)
+            && (getShort(header, 14) == SUBFIELD_LENGTH)
+            && (getInt(header, 16) >= (HEADER_LENGTH + TRAILER_LENGTH))
+            && (getInt(header, 16) <= MAX_MEMBER_SIZE);
+    }
+
+    // gzip is little endian
+
+    private static void writeInt(ByteArrayOutputStream out, int value)
+    {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static void setShort(byte[] bytes, int offset, int value)
+    {
+        bytes[offset] = (byte)value;
+        bytes[offset + 1] = (byte)(value >>> 8);
+    }
+
+    private static void setInt(byte[] bytes, int offset, int value)
+    {
+        setShort(bytes, offset, value);
+        setShort(bytes, offset + 2, value >>> 16);
+    }
+
+    private static int getShort(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    private static int getInt(byte[] bytes, int offset)
+    {
+        return getShort(bytes, offset) | (getShort(bytes, offset + 2) << 16);
+    }
+
+    private ParallelGzip()
+    {
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.collect.Queues;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Gzip compresses using multiple threads. The output is in the {@link ParallelGzip} block format
+ * which standard gzip tools can read. At most <code>2 * threads</code> blocks are in memory at once.
+ */
+class ParallelGzipOutputStream extends OutputStream
+{
+    private final OutputStream              out;
+    private final int                       threads;
+    private final ExecutorService           executor;
+    private final Queue<Future<byte[]>>     pending = Queues.newArrayDeque();
+
+    private byte[]          buffer = new byte[ParallelGzip.BLOCK_SIZE];
+    private int             bufferUsed = 0;
+    private boolean         hasBlocks = false;
+    private boolean         finished = false;
+
+    /**
+     * @param out destination
+     * @param threads number of compression threads
+     */
+    ParallelGzipOutputStream(OutputStream out, int threads)
+    {
+        this.out = out;
+        this.threads = Math.max(1, threads);
+        executor = ParallelGzip.makeExecutor(this.threads);
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[]{(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int length) throws IOException
+    {
+        if ( finished )
+        {
+            throw new IOException("Stream is finished");
+        }
+
+        while ( length > 0 )
+        {
+            int     thisLength = Math.min(length, buffer.length - bufferUsed);
+            System.arraycopy(b, offset, buffer, bufferUsed, thisLength);
+            bufferUsed += thisLength;
+            offset += thisLength;
+            length -= thisLength;
+
+            if ( bufferUsed == buffer.length )
+            {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Compress the remaining data and write all blocks without closing the destination
+     *
+     * @throws IOException errors
+     */
+    void finish() throws IOException
+    {
+        if ( finished )
+        {
+            return;
+        }
+
+        try
+        {
+            if ( (bufferUsed > 0) || !hasBlocks )
+            {
+                submitBlock();  // an empty input still needs one member to be valid gzip
+            }
+            while ( !pending.isEmpty() )
+            {
+                out.write(ParallelGzip.getResult(pending.remove()));
+            }
+        }
+        finally
+        {
+            discard();
+        }
+    }
+
+    /**
+     * Stop compressing and drop any data that hasn't been written. Does nothing if already finished.
+     */
+    void discard()
+    {
+        finished = true;
+        buffer = null;
+        pending.clear();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            finish();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException
+    {
+        if ( pending.size() >= (threads * 2) )
+        {
+            out.write(ParallelGzip.getResult(pending.remove()));
+        }
+
+        final byte[]    block = buffer;
+        final int       blockLength = bufferUsed;
+        pending.add(executor.submit(new Callable<byte[]>()
+        {
+            @Override
+            public byte[] call() throws Exception
+            {
+                return ParallelGzip.compressBlock(block, blockLength);
+            }
+        }));
+        hasBlocks = true;
+
+        buffer = new byte[ParallelGzip.BLOCK_SIZE];
+        bufferUsed = 0;
+    }
+}
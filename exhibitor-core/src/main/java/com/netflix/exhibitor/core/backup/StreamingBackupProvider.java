@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.netflix.exhibitor.core.Exhibitor;
+import java.util.Map;
+
+/**
+ * A {@link BackupProvider} that can upload while the backup data is being produced. {@link BackupManager}
+ * uses this instead of writing the compressed backup to a temp file first.
+ */
+public interface StreamingBackupProvider extends BackupProvider
+{
+    /**
+     * Upload an object into the backup. The writer is not called if the backup is a duplicate.
+     *
+     * @param exhibitor instance
+     * @param metaData identity of the backup
+     * @param writer writes the (compressed) backup data
+     * @param configValues values for provider-specific config
+     * @return the upload result
+     * @throws Exception any errors
+     */
+    public UploadResult uploadBackup(Exhibitor exhibitor, BackupMetaData metaData, BackupWriter writer, Map<String, String> configValues) throws Exception;
+}
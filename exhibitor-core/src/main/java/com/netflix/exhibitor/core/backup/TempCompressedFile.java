@@ -18,50 +18,34 @@ package com.netflix.exhibitor.core.backup;
 
 import org.apache.curator.utils.CloseableUtils;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
 
 class TempCompressedFile
 {
-    private final File      tempFile;
-    private final File      source;
+    private final File          tempFile;
+    private final File          source;
+    private final BackupCodec   codec;
+    private final int           threads;
 
-    private static final int        BUFFER_SIZE = 1024 * 1024;  // 1 MB
-
-    TempCompressedFile(File source) throws IOException
+    TempCompressedFile(File source, BackupCodec codec, int threads) throws IOException
     {
         this.source = source;
+        this.codec = codec;
+        this.threads = threads;
         tempFile = File.createTempFile("exhibitor", ".tmp");
     }
 
     void        compress() throws IOException
     {
-        byte[]          buffer = new byte[BUFFER_SIZE];
-
-        InputStream     in = null;
-        OutputStream    out = null;
+        OutputStream    out = new FileOutputStream(tempFile);
         try
         {
-            in = new FileInputStream(source);
-            out = new GZIPOutputStream(new FileOutputStream(tempFile));
-
-            for(;;)
-            {
-                int     bytesRead = in.read(buffer);
-                if ( bytesRead < 0 )
-                {
-                    break;
-                }
-                out.write(buffer, 0, bytesRead);
-            }
+            codec.encode(source, out, threads);
         }
         finally
         {
-            CloseableUtils.closeQuietly(in);
             CloseableUtils.closeQuietly(out);
         }
     }
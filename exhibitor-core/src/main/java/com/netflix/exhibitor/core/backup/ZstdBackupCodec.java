@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import org.apache.curator.utils.CloseableUtils;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Zstandard - much faster than gzip at a similar ratio. Frames start with the standard Zstandard
+ * magic number, so backups can be read with the <code>zstd</code> command line tool.
+ */
+class ZstdBackupCodec implements BackupCodec
+{
+    static final String     NAME = "zstd";
+
+    // favor speed - level 1 still compresses about as well as gzip's default
+    private static final int        LEVEL = 1;
+    private static final int        BUFFER_SIZE = 1024 * 1024;  // 1 MB
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public boolean canDecode(byte[] header, int length)
+    {
+        return (length >= 4) && ((header[0] & 0xff) == 0x28) && ((header[1] & 0xff) == 0xb5) && ((header[2] & 0xff) == 0x2f) && ((header[3] & 0xff) == 0xfd);
+    }
+
+    @Override
+    public void encode(File source, OutputStream destination, int threads) throws IOException
+    {
+        InputStream         in = null;
+        ZstdOutputStream    out = null;
+        try
+        {
+            in = new FileInputStream(source);
+            out = new ZstdOutputStream(new NonClosingOutputStream(destination), LEVEL);
+            if ( threads > 1 )
+            {
+                out.setWorkers(threads);
+            }
+            BackupCodecs.copy(in, out);
+            out.close();    // writes the end of the frame
+            out = null;
+            destination.flush();
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(in);
+            CloseableUtils.closeQuietly(out);
+        }
+    }
+
+    @Override
+    public InputStream decode(InputStream in) throws IOException
+    {
+        return new ZstdInputStream(in);
+    }
+
+    @Override
+    public void decode(File source, OutputStream destination, int threads) throws IOException
+    {
+        InputStream     in = new ZstdInputStream(new BufferedInputStream(new FileInputStream(source), BUFFER_SIZE));
+        try
+        {
+            BackupCodecs.copy(in, destination);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(in);
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream
+    {
+        NonClosingOutputStream(OutputStream out)
+        {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup.s3;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.netflix.exhibitor.core.backup.BackupMetaData;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory copy of the backups under a bucket/prefix. It is filled from a full listing and then
+ * kept current by this instance's own uploads and deletes, so a backup cycle lists the bucket
+ * once instead of once per file. Changes made by other instances show up at the next listing.
+ */
+class S3BackupCatalog
+{
+    private final long                                  maxAgeMs;
+    private final SetMultimap<String, BackupMetaData>   backups = LinkedHashMultimap.create();
+    private String                                      location = null;
+    private long                                        listedMs = 0;
+
+    S3BackupCatalog(long maxAgeMs)
+    {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Return true if the catalog holds a listing of the given location that isn't too old
+     *
+     * @param location bucket/prefix
+     * @return true/false
+     */
+    synchronized boolean isCurrent(String location)
+    {
+        return location.equals(this.location) && ((System.currentTimeMillis() - listedMs) < maxAgeMs);
+    }
+
+    /**
+     * Replace the catalog with a full listing
+     *
+     * @param location bucket/prefix that was listed
+     * @param listing the backups found
+     */
+    synchronized void reset(String location, Collection<BackupMetaData> listing)
+    {
+        backups.clear();
+        for ( BackupMetaData backup : listing )
+        {
+            backups.put(backup.getName(), backup);
+        }
+        this.location = location;
+        listedMs = System.currentTimeMillis();
+    }
+
+    synchronized boolean contains(String location, BackupMetaData backup)
+    {
+        return location.equals(this.location) && backups.containsEntry(backup.getName(), backup);
+    }
+
+    /**
+     * Return all versions of the named backup
+     *
+     * @param location bucket/prefix
+     * @param name backup name
+     * @return versions (possibly empty)
+     */
+    synchronized List<BackupMetaData> getVersions(String location, String name)
+    {
+        return location.equals(this.location) ? ImmutableList.copyOf(backups.get(name)) : ImmutableList.<BackupMetaData>of();
+    }
+
+    synchronized void added(String location, BackupMetaData backup)
+    {
+        if ( location.equals(this.location) )
+        {
+            backups.put(backup.getName(), backup);
+        }
+    }
+
+    synchronized void removed(String location, BackupMetaData backup)
+    {
+        if ( location.equals(this.location) )
+        {
+            backups.remove(backup.getName(), backup);
+        }
+    }
+}
@@ -30,42 +30,47 @@ import com.netflix.exhibitor.core.backup.BackupConfigSpec;
 import com.netflix.exhibitor.core.backup.BackupMetaData;
 import com.netflix.exhibitor.core.backup.BackupProvider;
 import com.netflix.exhibitor.core.backup.BackupStream;
+import com.netflix.exhibitor.core.backup.BackupWriter;
+import com.netflix.exhibitor.core.backup.StreamingBackupProvider;
 import com.netflix.exhibitor.core.s3.S3Client;
 import com.netflix.exhibitor.core.s3.S3ClientConfig;
 import com.netflix.exhibitor.core.s3.S3ClientFactory;
 import com.netflix.exhibitor.core.s3.S3Credential;
 import com.netflix.exhibitor.core.s3.S3CredentialsProvider;
-import com.netflix.exhibitor.core.s3.S3Utils;
 import org.apache.curator.RetryLoop;
 import org.apache.curator.RetryPolicy;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.curator.utils.CloseableUtils;
-import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.netflix.exhibitor.core.config.DefaultProperties.asInt;
 
-public class S3BackupProvider implements BackupProvider
+public class S3BackupProvider implements StreamingBackupProvider
 {
     private final S3Client s3Client;
+    private final S3BackupCatalog catalog = new S3BackupCatalog(CATALOG_MAX_AGE_MS);
 
     private static final BackupConfigSpec CONFIG_THROTTLE = new BackupConfigSpec("throttle", "Throttle (bytes/ms)", "Data throttling. Maximum bytes per millisecond.", Integer.toString(1024 * 1024), BackupConfigSpec.Type.INTEGER);
     private static final BackupConfigSpec CONFIG_BUCKET = new BackupConfigSpec("bucket-name", "S3 Bucket Name", "The S3 bucket to use", "", BackupConfigSpec.Type.STRING);
     private static final BackupConfigSpec CONFIG_KEY_PREFIX = new BackupConfigSpec("key-prefix", "S3 Key Prefix", "The prefix for S3 backup keys", "exhibitor-backup", BackupConfigSpec.Type.STRING);
     private static final BackupConfigSpec CONFIG_MAX_RETRIES = new BackupConfigSpec("max-retries", "Max Retries", "Maximum retries when uploading/downloading S3 data", "3", BackupConfigSpec.Type.INTEGER);
     private static final BackupConfigSpec CONFIG_RETRY_SLEEP_MS = new BackupConfigSpec("retry-sleep-ms", "Retry Sleep (ms)", "Sleep time in milliseconds when retrying", "1000", BackupConfigSpec.Type.INTEGER);
+    private static final BackupConfigSpec CONFIG_UPLOAD_CONCURRENCY = new BackupConfigSpec("upload-concurrency", "Upload Concurrency", "Number of parts of a large backup that are uploaded at the same time. Each uses a 5 MB buffer.", "4", BackupConfigSpec.Type.INTEGER);
 
-    private static final List<BackupConfigSpec>     CONFIGS = Arrays.asList(CONFIG_THROTTLE, CONFIG_BUCKET, CONFIG_KEY_PREFIX, CONFIG_MAX_RETRIES, CONFIG_RETRY_SLEEP_MS);
+    private static final List<BackupConfigSpec>     CONFIGS = Arrays.asList(CONFIG_THROTTLE, CONFIG_BUCKET, CONFIG_KEY_PREFIX, CONFIG_MAX_RETRIES, CONFIG_RETRY_SLEEP_MS, CONFIG_UPLOAD_CONCURRENCY);
     
     private static final int        MIN_S3_PART_SIZE = 5 * (1024 * 1024);
 
+    // long enough to cover a backup cycle - the bucket is re-listed at most once per cycle
+    private static final long       CATALOG_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(10);
+
     @VisibleForTesting
     static final String       SEPARATOR = "/";
     private static final String       SEPARATOR_REPLACEMENT = "_";
@@ -135,78 +140,62 @@ public class S3BackupProvider implements BackupProvider
     }
 
     @Override
-    public UploadResult uploadBackup(Exhibitor exhibitor, BackupMetaData backup, File source, final Map<String, String> configValues) throws Exception
+    public UploadResult uploadBackup(Exhibitor exhibitor, BackupMetaData backup, final File source, Map<String, String> configValues) throws Exception
     {
-        List<BackupMetaData>    availableBackups = getAvailableBackups(exhibitor, configValues);
-        if ( availableBackups.contains(backup) )
-        {
-            return UploadResult.DUPLICATE;
-        }
-
-        RetryPolicy retryPolicy = makeRetryPolicy(configValues);
-        Throttle    throttle = makeThrottle(configValues);
-
-        String                          key = toKey(backup, configValues);
-
-        if ( source.length() < MIN_S3_PART_SIZE )
-        {
-            byte[]          bytes = Files.toByteArray(source);
-            S3Utils.simpleUploadFile(s3Client, bytes, configValues.get(CONFIG_BUCKET.getKey()), key);
-        }
-        else
+        BackupWriter        writer = new BackupWriter()
         {
-            multiPartUpload(source, configValues, retryPolicy, throttle, key);
-        }
-
-        UploadResult        result = UploadResult.SUCCEEDED;
-        for ( BackupMetaData existing : availableBackups )
-        {
-            if ( existing.getName().equals(backup.getName()) )
+            @Override
+            public void write(OutputStream out) throws Exception
             {
-                deleteBackup(exhibitor, existing, configValues);
-                result = UploadResult.REPLACED_OLD_VERSION;
+                Files.copy(source, out);
             }
-        }
-        return result;
+        };
+        return uploadBackup(exhibitor, backup, writer, configValues);
     }
 
-    private void multiPartUpload(File source, Map<String, String> configValues, RetryPolicy retryPolicy, Throttle throttle, String key) throws Exception
+    @Override
+    public UploadResult uploadBackup(Exhibitor exhibitor, BackupMetaData backup, BackupWriter writer, Map<String, String> configValues) throws Exception
     {
-        InitiateMultipartUploadRequest initRequest = new InitiateMultipartUploadRequest(configValues.get(CONFIG_BUCKET.getKey()), key);
-        InitiateMultipartUploadResult initResponse = s3Client.initiateMultipartUpload(initRequest);
-
-        byte[]      buffer = new byte[MIN_S3_PART_SIZE];
-        InputStream in = null;
+        String                  location = getLocation(configValues);
+        if ( !catalog.isCurrent(location) )
+        {
+            getAvailableBackups(exhibitor, configValues);   // refreshes the catalog
+        }
+        if ( catalog.contains(location, backup) )
+        {
+            return UploadResult.DUPLICATE;
+        }
+        List<BackupMetaData>    existingVersions = catalog.getVersions(location, backup.getName());
+
+        S3MultipartUploadStream out = new S3MultipartUploadStream
+        (
+            s3Client,
+            configValues.get(CONFIG_BUCKET.getKey()),
+            toKey(backup, configValues),
+            makeRetryPolicy(configValues),
+            makeThrottle(configValues),
+            MIN_S3_PART_SIZE,
+            asInt(configValues.get(CONFIG_UPLOAD_CONCURRENCY.getKey()))
+        );
         try
         {
-            List<PartETag>      eTags = Lists.newArrayList();
-            int                 index = 1;
-
-            in = new FileInputStream(source);
-            for(;;)
-            {
-                int     bytesRead = in.read(buffer);
-                if ( bytesRead < 0 )
-                {
-                    break;
-                }
-                throttle.throttle(bytesRead);
-
-                PartETag eTag = uploadChunkWithRetry(buffer, bytesRead, initResponse, index++, retryPolicy);
-                eTags.add(eTag);
-            }
-
-            completeUpload(initResponse, eTags);
+            writer.write(out);
+            out.close();
         }
         catch ( Exception e )
         {
-            abortUpload(initResponse);
+            out.abort();
             throw e;
         }
-        finally
+        catalog.added(location, backup);
+
+        UploadResult        result = UploadResult.SUCCEEDED;
+        for ( BackupMetaData existing : existingVersions )
         {
-            CloseableUtils.closeQuietly(in);
+            deleteBackup(exhibitor, existing, configValues);
+            result = UploadResult.REPLACED_OLD_VERSION;
         }
+        return result;
     }
 
     @Override
@@ -385,6 +374,8 @@ public class S3BackupProvider implements BackupProvider
 
             completeList.addAll(Lists.newArrayList(transformed));
         } while ( listing.isTruncated() );
+
+        catalog.reset(getLocation(configValues), completeList);
         return completeList;
     }
 
@@ -392,6 +383,7 @@ public class S3BackupProvider implements BackupProvider
     public void deleteBackup(Exhibitor exhibitor, BackupMetaData backup, Map<String, String> configValues) throws Exception
     {
         s3Client.deleteObject(configValues.get(CONFIG_BUCKET.getKey()), toKey(backup, configValues));
+        catalog.removed(getLocation(configValues), backup);
     }
 
     private Throttle makeThrottle(final Map<String, String> configValues)
@@ -410,62 +402,6 @@ public class S3BackupProvider implements BackupProvider
         return new ExponentialBackoffRetry(asInt(configValues.get(CONFIG_RETRY_SLEEP_MS.getKey())), asInt(configValues.get(CONFIG_MAX_RETRIES.getKey())));
     }
 
-
-    private PartETag uploadChunkWithRetry(byte[] buffer, int bytesRead, InitiateMultipartUploadResult initResponse, int index, RetryPolicy retryPolicy) throws Exception
-    {
-        long            startMs = System.currentTimeMillis();
-        int             retries = 0;
-        for(;;)
-        {
-            try
-            {
-                return uploadChunk(buffer, bytesRead, initResponse, index);
-            }
-            catch ( Exception e )
-            {
-                if ( !retryPolicy.allowRetry(retries++, System.currentTimeMillis() - startMs, RetryLoop.getDefaultRetrySleeper()) )
-                {
-                    throw e;
-                }
-            }
-        }
-    }
-
-    private PartETag uploadChunk(byte[] buffer, int bytesRead, InitiateMultipartUploadResult initResponse, int index) throws Exception
-    {
-        byte[]          md5 = S3Utils.md5(buffer, bytesRead);
-
-        UploadPartRequest   request = new UploadPartRequest();
-        request.setBucketName(initResponse.getBucketName());
-        request.setKey(initResponse.getKey());
-        request.setUploadId(initResponse.getUploadId());
-        request.setPartNumber(index);
-        request.setPartSize(bytesRead);
-        request.setMd5Digest(S3Utils.toBase64(md5));
-        request.setInputStream(new ByteArrayInputStream(buffer, 0, bytesRead));
-
-        UploadPartResult    response = s3Client.uploadPart(request);
-        PartETag            partETag = response.getPartETag();
-        if ( !response.getPartETag().getETag().equals(S3Utils.toHex(md5)) )
-        {
-            throw new Exception("Unable to match MD5 for part " + index);
-        }
-
-        return partETag;
-    }
-
-    private void completeUpload(InitiateMultipartUploadResult initResponse, List<PartETag> eTags) throws Exception
-    {
-        CompleteMultipartUploadRequest completeRequest = new CompleteMultipartUploadRequest(initResponse.getBucketName(), initResponse.getKey(), initResponse.getUploadId(), eTags);
-        s3Client.completeMultipartUpload(completeRequest);
-    }
-
-    private void abortUpload(InitiateMultipartUploadResult initResponse) throws Exception
-    {
-        AbortMultipartUploadRequest abortRequest = new AbortMultipartUploadRequest(initResponse.getBucketName(), initResponse.getKey(), initResponse.getUploadId());
-        s3Client.abortMultipartUpload(abortRequest);
-    }
-
     private String toKey(BackupMetaData backup, Map<String, String> configValues)
     {
         String  name = backup.getName().replace(SEPARATOR, SEPARATOR_REPLACEMENT);
@@ -474,6 +410,11 @@ public class S3BackupProvider implements BackupProvider
         return prefix + SEPARATOR + name + SEPARATOR + backup.getModifiedDate();
     }
 
+    private String getLocation(Map<String, String> configValues)
+    {
+        return configValues.get(CONFIG_BUCKET.getKey()) + SEPARATOR + getKeyPrefix(configValues);
+    }
+
     private String getKeyPrefix(Map<String, String> configValues)
     {
         String  prefix = configValues.get(CONFIG_KEY_PREFIX.getKey());
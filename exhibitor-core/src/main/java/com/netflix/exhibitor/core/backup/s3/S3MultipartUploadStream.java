@@ -0,0 +1,323 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup.s3;
+
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.exhibitor.core.s3.S3Client;
+import com.netflix.exhibitor.core.s3.S3Utils;
+import org.apache.curator.RetryLoop;
+import org.apache.curator.RetryPolicy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads what is written to it as an S3 object. Data is cut into parts that are uploaded in the background
+ * by a bounded number of threads while the writer fills the next part. At most <code>concurrency + 1</code>
+ * part buffers are allocated - the writer blocks when they are all in use. Data that fits in a single
+ * part is sent with a simple put instead.
+ */
+class S3MultipartUploadStream extends OutputStream
+{
+    private final S3Client                          s3Client;
+    private final String                            bucket;
+    private final String                            key;
+    private final RetryPolicy                       retryPolicy;
+    private final Throttle                          throttle;
+    private final int                               partSize;
+    private final int                               maxBuffers;
+    private final BlockingQueue<byte[]>             freeBuffers;
+    private final ExecutorService                   executor;
+    private final List<Future<PartETag>>            parts = Lists.newArrayList();
+    private final AtomicReference<Exception>        failure = new AtomicReference<Exception>();
+
+    private InitiateMultipartUploadResult   initResponse = null;
+    private byte[]                          buffer = null;
+    private int                             bufferUsed = 0;
+    private int                             allocatedBuffers = 0;
+    private boolean                         closed = false;
+
+    S3MultipartUploadStream(S3Client s3Client, String bucket, String key, RetryPolicy retryPolicy, Throttle throttle, int partSize, int concurrency)
+    {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.retryPolicy = retryPolicy;
+        this.throttle = throttle;
+        this.partSize = partSize;
+        concurrency = Math.max(1, concurrency);
+        maxBuffers = concurrency + 1;
+        freeBuffers = new ArrayBlockingQueue<byte[]>(maxBuffers);
+        executor = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder().setNameFormat("S3MultipartUpload-%d").setDaemon(true).build());
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[]{(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int length) throws IOException
+    {
+        checkState();
+        while ( length > 0 )
+        {
+            if ( buffer == null )
+            {
+                buffer = nextBuffer();
+            }
+            else if ( bufferUsed == partSize )
+            {
+                submitPart();   // only once there's more data - so that the last part is never empty
+                buffer = nextBuffer();
+            }
+
+            int     thisLength = Math.min(length, partSize - bufferUsed);
+            System.arraycopy(b, offset, buffer, bufferUsed, thisLength);
+            bufferUsed += thisLength;
+            offset += thisLength;
+            length -= thisLength;
+        }
+    }
+
+    /**
+     * Send the remaining data and wait for the upload to complete. If anything fails
+     * the multipart upload is aborted.
+     *
+     * @throws IOException errors
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        try
+        {
+            checkState();
+            if ( initResponse == null )
+            {
+                byte[]      bytes = (buffer != null) ? Arrays.copyOf(buffer, bufferUsed) : new byte[0];
+                throttle.throttle(bytes.length);
+                S3Utils.simpleUploadFile(s3Client, bytes, bucket, key);
+            }
+            else
+            {
+                if ( bufferUsed > 0 )
+                {
+                    submitPart();
+                }
+
+                List<PartETag>      eTags = Lists.newArrayList();
+                for ( Future<PartETag> part : parts )
+                {
+                    eTags.add(part.get());
+                }
+                s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, initResponse.getUploadId(), eTags));
+            }
+        }
+        catch ( ExecutionException e )
+        {
+            abort();
+            throw toIOException(e.getCause());
+        }
+        catch ( Exception e )
+        {
+            abort();
+            throw toIOException(e);
+        }
+        finally
+        {
+            closed = true;
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Stop the upload and discard any parts that have been sent
+     */
+    void abort()
+    {
+        closed = true;
+        executor.shutdownNow();
+        if ( initResponse != null )
+        {
+            try
+            {
+                s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, initResponse.getUploadId()));
+            }
+            catch ( Exception ignore )
+            {
+                // S3 removes incomplete uploads per the bucket's lifecycle rules
+            }
+            initResponse = null;
+        }
+    }
+
+    private void checkState() throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException("Stream is closed");
+        }
+
+        Exception   e = failure.get();
+        if ( e != null )
+        {
+            throw toIOException(e);
+        }
+    }
+
+    private byte[] nextBuffer() throws IOException
+    {
+        byte[]      next = freeBuffers.poll();
+        if ( next == null )
+        {
+            if ( allocatedBuffers < maxBuffers )
+            {
+                ++allocatedBuffers;
+                next = new byte[partSize];
+            }
+            else
+            {
+                try
+                {
+                    next = freeBuffers.take();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        bufferUsed = 0;
+        return next;
+    }
+
+    private void submitPart() throws IOException
+    {
+        checkState();
+        if ( initResponse == null )
+        {
+            try
+            {
+                initResponse = s3Client.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key));
+            }
+            catch ( Exception e )
+            {
+                throw toIOException(e);
+            }
+        }
+
+        final byte[]    partBuffer = buffer;
+        final int       partLength = bufferUsed;
+        final int       partNumber = parts.size() + 1;
+        final String    uploadId = initResponse.getUploadId();
+        throttle.throttle(partLength);
+
+        buffer = null;
+        parts.add(executor.submit(new Callable<PartETag>()
+        {
+            @Override
+            public PartETag call() throws Exception
+            {
+                try
+                {
+                    return uploadPartWithRetry(partBuffer, partLength, uploadId, partNumber);
+                }
+                catch ( Exception e )
+                {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+                finally
+                {
+                    freeBuffers.offer(partBuffer);
+                }
+            }
+        }));
+    }
+
+    private PartETag uploadPartWithRetry(byte[] partBuffer, int partLength, String uploadId, int partNumber) throws Exception
+    {
+        long            startMs = System.currentTimeMillis();
+        int             retries = 0;
+        for(;;)
+        {
+            try
+            {
+                return uploadPart(partBuffer, partLength, uploadId, partNumber);
+            }
+            catch ( Exception e )
+            {
+                if ( !retryPolicy.allowRetry(retries++, System.currentTimeMillis() - startMs, RetryLoop.getDefaultRetrySleeper()) )
+                {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private PartETag uploadPart(byte[] partBuffer, int partLength, String uploadId, int partNumber) throws Exception
+    {
+        byte[]          md5 = S3Utils.md5(partBuffer, partLength);
+
+        UploadPartRequest   request = new UploadPartRequest();
+        request.setBucketName(bucket);
+        request.setKey(key);
+        request.setUploadId(uploadId);
+        request.setPartNumber(partNumber);
+        request.setPartSize(partLength);
+        request.setMd5Digest(S3Utils.toBase64(md5));
+        request.setInputStream(new ByteArrayInputStream(partBuffer, 0, partLength));
+
+        UploadPartResult    response = s3Client.uploadPart(request);
+        if ( !response.getPartETag().getETag().equals(S3Utils.toHex(md5)) )
+        {
+            throw new Exception("Unable to match MD5 for part " + partNumber);
+        }
+        return response.getPartETag();
+    }
+
+    private static IOException toIOException(Throwable e)
+    {
+        return (e instanceof IOException) ? (IOException)e : new IOException(e);
+    }
+}
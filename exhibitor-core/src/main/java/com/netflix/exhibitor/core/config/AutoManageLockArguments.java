@@ -23,12 +23,16 @@ public class AutoManageLockArguments
     private final String prefix;
     private final int timeoutMs;
     private final int pollingMs;
+    private final int settlingMs;
     private final String lockKeySeparator;
 
+    // TODO get defaults right
+    public static final int DEFAULT_TIMEOUT_MS = (int)TimeUnit.MINUTES.toMillis(15);
+    public static final int DEFAULT_POLLING_MS = 250;
+
     public AutoManageLockArguments(String prefix)
     {
-        // TODO get defaults right
-        this(prefix, (int)TimeUnit.MINUTES.toMillis(15), 250);
+        this(prefix, DEFAULT_TIMEOUT_MS, DEFAULT_POLLING_MS);
     }
 
     public AutoManageLockArguments(String prefix, int timeoutMs, int pollingMs)
@@ -36,11 +40,29 @@ public class AutoManageLockArguments
         this(prefix, timeoutMs, pollingMs, PseudoLockBase.DEFAULT_LOCK_KEY_SEPARATOR);
     }
 
+    public AutoManageLockArguments(String prefix, int timeoutMs, int pollingMs, int settlingMs)
+    {
+        this(prefix, timeoutMs, pollingMs, settlingMs, PseudoLockBase.DEFAULT_LOCK_KEY_SEPARATOR);
+    }
+
     public AutoManageLockArguments(String prefix, int timeoutMs, int pollingMs, String lockKeySeparator)
+    {
+        this(prefix, timeoutMs, pollingMs, PseudoLockBase.DEFAULT_SETTLING_MS, lockKeySeparator);
+    }
+
+    /**
+     * @param prefix lock key prefix
+     * @param timeoutMs max age for locks
+     * @param pollingMs how often to poll while waiting for the lock
+     * @param settlingMs settling period or {@link PseudoLockBase#STRONGLY_CONSISTENT}
+     * @param lockKeySeparator separator used in lock keys
+     */
+    public AutoManageLockArguments(String prefix, int timeoutMs, int pollingMs, int settlingMs, String lockKeySeparator)
     {
         this.prefix = prefix;
         this.timeoutMs = timeoutMs;
         this.pollingMs = pollingMs;
+        this.settlingMs = settlingMs;
         this.lockKeySeparator = lockKeySeparator;
     }
 
@@ -59,6 +81,11 @@ public class AutoManageLockArguments
         return pollingMs;
     }
 
+    public int getSettlingMs()
+    {
+        return settlingMs;
+    }
+
     public String getLockKeySeparator()
     {
         return lockKeySeparator;
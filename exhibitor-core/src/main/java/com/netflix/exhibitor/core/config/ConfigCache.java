@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.google.common.io.Closeables;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Local copy of the last config loaded from the {@link ConfigProvider}. Allows
+ * startup without waiting for the provider.
+ */
+public class ConfigCache
+{
+    private final File      file;
+
+    private static final String     PROPERTY_VERSION = "com.netflix.exhibitor-cache-version";
+
+    public ConfigCache(File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Return the cached config or null if there isn't a usable one
+     *
+     * @return cached config or null
+     */
+    public LoadedInstanceConfig load()
+    {
+        if ( !file.exists() )
+        {
+            return null;
+        }
+
+        Properties      properties = new Properties();
+        InputStream     in = null;
+        try
+        {
+            in = new FileInputStream(file);
+            properties.load(in);
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+        finally
+        {
+            Closeables.closeQuietly(in);
+        }
+
+        String      version = (String)properties.remove(PROPERTY_VERSION);
+        if ( version == null )
+        {
+            return null;
+        }
+        try
+        {
+            return new LoadedInstanceConfig(new PropertyBasedInstanceConfig(properties, new Properties()), Long.parseLong(version));
+        }
+        catch ( NumberFormatException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Replace the cached config. The file is replaced atomically so a crash never leaves a partial cache.
+     *
+     * @param config new config
+     * @throws IOException errors
+     */
+    public void store(LoadedInstanceConfig config) throws IOException
+    {
+        Properties      properties = new PropertyBasedInstanceConfig(config.getConfig()).getProperties();
+        properties.setProperty(PROPERTY_VERSION, Long.toString(config.getVersion()));
+
+        File                tempFile = new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".tmp");
+        FileOutputStream    out = new FileOutputStream(tempFile);
+        try
+        {
+            properties.store(out, "Auto-generated by Exhibitor - do not edit");
+            out.getFD().sync();
+        }
+        finally
+        {
+            Closeables.close(out, true);
+        }
+
+        try
+        {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
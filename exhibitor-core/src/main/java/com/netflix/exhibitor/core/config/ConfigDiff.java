@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The values that differ between two configs for this instance
+ */
+public class ConfigDiff
+{
+    private final ConfigSnapshot        oldConfig;
+    private final ConfigSnapshot        newConfig;
+    private final Set<StringConfigs>    changedStrings;
+    private final Set<IntConfigs>       changedInts;
+
+    /**
+     * @param oldConfig previous config
+     * @param newConfig current config
+     */
+    public ConfigDiff(ConfigSnapshot oldConfig, ConfigSnapshot newConfig)
+    {
+        this.oldConfig = oldConfig;
+        this.newConfig = newConfig;
+
+        EnumSet<StringConfigs>      strings = EnumSet.noneOf(StringConfigs.class);
+        for ( StringConfigs config : StringConfigs.values() )
+        {
+            if ( !oldConfig.getString(config).equals(newConfig.getString(config)) )
+            {
+                strings.add(config);
+            }
+        }
+        EnumSet<IntConfigs>         ints = EnumSet.noneOf(IntConfigs.class);
+        for ( IntConfigs config : IntConfigs.values() )
+        {
+            if ( oldConfig.getInt(config) != newConfig.getInt(config) )
+            {
+                ints.add(config);
+            }
+        }
+        changedStrings = Collections.unmodifiableSet(strings);
+        changedInts = Collections.unmodifiableSet(ints);
+    }
+
+    /**
+     * @return true if no values changed
+     */
+    public boolean isEmpty()
+    {
+        return changedStrings.isEmpty() && changedInts.isEmpty();
+    }
+
+    /**
+     * @return the string values that changed
+     */
+    public Set<StringConfigs> getChangedStrings()
+    {
+        return changedStrings;
+    }
+
+    /**
+     * @return the int values that changed
+     */
+    public Set<IntConfigs> getChangedInts()
+    {
+        return changedInts;
+    }
+
+    /**
+     * @param strings string keys
+     * @param ints int keys
+     * @return true if any of the given keys changed
+     */
+    public boolean isChanged(Set<StringConfigs> strings, Set<IntConfigs> ints)
+    {
+        return !Sets.intersection(changedStrings, strings).isEmpty() || !Sets.intersection(changedInts, ints).isEmpty();
+    }
+
+    /**
+     * @return the config before the change
+     */
+    public ConfigSnapshot getOldConfig()
+    {
+        return oldConfig;
+    }
+
+    /**
+     * @return the config after the change
+     */
+    public ConfigSnapshot getNewConfig()
+    {
+        return newConfig;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder       str = new StringBuilder();
+        for ( StringConfigs config : changedStrings )
+        {
+            append(str, config.name(), oldConfig.getString(config), newConfig.getString(config));
+        }
+        for ( IntConfigs config : changedInts )
+        {
+            append(str, config.name(), Integer.toString(oldConfig.getInt(config)), Integer.toString(newConfig.getInt(config)));
+        }
+        return str.toString();
+    }
+
+    private static void append(StringBuilder str, String name, String oldValue, String newValue)
+    {
+        if ( str.length() > 0 )
+        {
+            str.append(", ");
+        }
+        str.append(name).append(": ").append(oldValue).append(" -> ").append(newValue);
+    }
+}
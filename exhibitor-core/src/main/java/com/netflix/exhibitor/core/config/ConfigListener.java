@@ -18,8 +18,25 @@ package com.netflix.exhibitor.core.config;
 
 public interface ConfigListener
 {
+    /**
+     * Called when the config has been updated. Listeners written before {@link ConfigDiff} existed
+     * still work: the default implementation calls {@link #configUpdated()}.
+     *
+     * @param diff the values that changed
+     */
+    public default void     configUpdated(ConfigDiff diff)
+    {
+        configUpdated();
+    }
+
     /**
      * Called when the config has been updated
+     *
+     * @deprecated override {@link #configUpdated(ConfigDiff)} instead
      */
-    public void     configUpdated();
+    @Deprecated
+    public default void     configUpdated()
+    {
+        // NOP
+    }
 }
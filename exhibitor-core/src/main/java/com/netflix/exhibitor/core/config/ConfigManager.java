@@ -17,9 +17,11 @@
 package com.netflix.exhibitor.core.config;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.activity.Activity;
 import com.netflix.exhibitor.core.activity.ActivityLog;
@@ -28,13 +30,27 @@ import com.netflix.exhibitor.core.activity.RepeatingActivity;
 import com.netflix.exhibitor.core.activity.RepeatingActivityImpl;
 import com.netflix.exhibitor.core.automanage.RemoteInstanceRequest;
 import com.netflix.exhibitor.core.config.none.NoneConfigProvider;
+import com.netflix.exhibitor.core.state.DynamicReconfig;
 import com.netflix.exhibitor.core.state.InstanceState;
 import com.netflix.exhibitor.core.state.InstanceStateTypes;
+import com.netflix.exhibitor.core.state.RestartSignificantConfig;
+import com.netflix.exhibitor.core.state.ServerList;
+import com.netflix.exhibitor.core.state.ServerSpec;
+import com.netflix.exhibitor.core.state.ServerType;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -43,27 +59,110 @@ public class ConfigManager implements Closeable
     private final Exhibitor exhibitor;
     private final ConfigProvider provider;
     private final int maxAttempts;
+    private final int restartBatchSize;
+    private final ConfigCache cache;
+    private final boolean startedFromCache;
     private final RepeatingActivity repeatingActivity;
     private final AtomicReference<LoadedInstanceConfig> config = new AtomicReference<LoadedInstanceConfig>();
-    private final Set<ConfigListener> configListeners = Collections.newSetFromMap(Maps.<ConfigListener, Boolean>newConcurrentMap());
+    private final AtomicReference<ResolvedConfig> resolvedConfig = new AtomicReference<ResolvedConfig>();
+    private final Map<ConfigListener, Subscription> configListeners = Maps.newConcurrentMap();
     private final AtomicReference<RollingConfigAdvanceAttempt> rollingConfigAdvanceAttempt = new AtomicReference<RollingConfigAdvanceAttempt>(null);
     private final AtomicInteger waitingForQuorumAttempts = new AtomicInteger(0);
     private final AtomicInteger rollingConfigChangeRestartCount = new AtomicInteger(-1);
+    private final LockStats lockStats = new LockStats();
+    private final ExecutorService preflightService = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("ConfigManager-%d").setDaemon(true).build());
 
     @VisibleForTesting
     final static int DEFAULT_MAX_ATTEMPTS = 4;
 
+    /**
+     * Maximum number of observers restarted together during a rolling config change
+     */
+    @VisibleForTesting
+    final static int DEFAULT_RESTART_BATCH_SIZE = 5;
+
+    /**
+     * Providers that push all changes are still polled, at this multiple of the check period
+     */
+    @VisibleForTesting
+    final static int WATCHED_POLL_FACTOR = 10;
+
+    private static class Subscription
+    {
+        private final Set<StringConfigs> strings = EnumSet.noneOf(StringConfigs.class);
+        private final Set<IntConfigs> ints = EnumSet.noneOf(IntConfigs.class);
+
+        private Subscription(Enum<?>[] keys)
+        {
+            for ( Enum<?> key : keys )
+            {
+                if ( key instanceof StringConfigs )
+                {
+                    strings.add((StringConfigs)key);
+                }
+                else if ( key instanceof IntConfigs )
+                {
+                    ints.add((IntConfigs)key);
+                }
+                else
+                {
+                    throw new IllegalArgumentException("Not a config key: " + key);
+                }
+            }
+        }
+
+        private boolean matches(ConfigDiff diff)
+        {
+            return (strings.isEmpty() && ints.isEmpty()) || diff.isChanged(strings, ints);
+        }
+    }
+
+    private static class ResolvedConfig
+    {
+        private final ConfigCollection collection;
+        private final String hostname;
+        private final ConfigSnapshot snapshot;
+
+        private ResolvedConfig(ConfigCollection collection, String hostname)
+        {
+            this.collection = collection;
+            this.hostname = hostname;
+            snapshot = ConfigSnapshot.of(collection.getConfigForThisInstance(hostname));
+        }
+    }
+
     public ConfigManager(Exhibitor exhibitor, ConfigProvider provider, int checkMs) throws Exception
     {
-        this(exhibitor, provider, checkMs, DEFAULT_MAX_ATTEMPTS);
+        this(exhibitor, provider, checkMs, null);
+    }
+
+    /**
+     * @param exhibitor main instance
+     * @param provider config provider
+     * @param checkMs period to check for config changes
+     * @param cache if not null, the local copy of the config. When it has a config, startup doesn't wait
+     *              for the provider and the provider is read in the background instead.
+     * @throws Exception errors
+     */
+    public ConfigManager(Exhibitor exhibitor, ConfigProvider provider, int checkMs, ConfigCache cache) throws Exception
+    {
+        this(exhibitor, provider, checkMs, DEFAULT_MAX_ATTEMPTS, DEFAULT_RESTART_BATCH_SIZE, cache);
     }
 
     @VisibleForTesting
     ConfigManager(Exhibitor exhibitor, ConfigProvider provider, int checkMs, int maxAttempts) throws Exception
+    {
+        this(exhibitor, provider, checkMs, maxAttempts, DEFAULT_RESTART_BATCH_SIZE, null);
+    }
+
+    @VisibleForTesting
+    ConfigManager(Exhibitor exhibitor, ConfigProvider provider, int checkMs, int maxAttempts, int restartBatchSize, ConfigCache cache) throws Exception
     {
         this.exhibitor = exhibitor;
         this.provider = provider;
         this.maxAttempts = maxAttempts;
+        this.restartBatchSize = Math.max(1, restartBatchSize);
+        this.cache = cache;
 
         Activity    activity = new Activity()
         {
@@ -79,14 +178,63 @@ public class ConfigManager implements Closeable
                 return true;
             }
         };
-        repeatingActivity = new RepeatingActivityImpl(exhibitor.getLog(), exhibitor.getActivityQueue(), QueueGroups.MAIN, activity, checkMs);
+        long        pollMs = checkMs;
+        if ( provider instanceof WatchableConfigProvider )
+        {
+            WatchableConfigProvider     watchableProvider = (WatchableConfigProvider)provider;
+            if ( watchableProvider.seesAllChanges() )
+            {
+                pollMs = (long)checkMs * WATCHED_POLL_FACTOR;
+            }
+            watchableProvider.setConfigWatcher
+            (
+                new ConfigWatcher()
+                {
+                    @Override
+                    public void configChanged(LoadedInstanceConfig newConfig)
+                    {
+                        queuePushedConfig(newConfig);
+                    }
+                }
+            );
+        }
+        repeatingActivity = new RepeatingActivityImpl(exhibitor.getLog(), exhibitor.getActivityQueue(), QueueGroups.MAIN, activity, pollMs);
 
-        config.set(provider.loadConfig());
+        LoadedInstanceConfig    cachedConfig = (cache != null) ? cache.load() : null;
+        startedFromCache = (cachedConfig != null);
+        if ( startedFromCache )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Starting with the cached config (version " + cachedConfig.getVersion() + ") - it will be checked against the config provider in the background");
+            config.set(cachedConfig);
+        }
+        else
+        {
+            config.set(provider.loadConfig());
+            updateCache(config.get());
+        }
     }
 
     public void   start() throws Exception
     {
         provider.start();
+        if ( startedFromCache )
+        {
+            Activity    reconcile = new Activity()
+            {
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    doWork();
+                    return true;
+                }
+            };
+            exhibitor.getActivityQueue().add(QueueGroups.MAIN, reconcile);
+        }
         repeatingActivity.start();
     }
 
@@ -94,12 +242,32 @@ public class ConfigManager implements Closeable
     public void close() throws IOException
     {
         repeatingActivity.close();
+        preflightService.shutdownNow();
         Closeables.close(provider, true);
     }
 
     public InstanceConfig getConfig()
     {
-        return getCollection().getConfigForThisInstance(exhibitor.getThisJVMHostname());
+        return getConfigSnapshot();
+    }
+
+    /**
+     * Return an immutable snapshot of the config for this instance. The snapshot is built once per
+     * loaded config collection.
+     *
+     * @return snapshot
+     */
+    public ConfigSnapshot getConfigSnapshot()
+    {
+        ConfigCollection        collection = getCollection();
+        String                  hostname = exhibitor.getThisJVMHostname();
+        ResolvedConfig          resolved = resolvedConfig.get();
+        if ( (resolved == null) || (resolved.collection != collection) || !Objects.equal(resolved.hostname, hostname) )
+        {
+            resolved = new ResolvedConfig(collection, hostname);
+            resolvedConfig.set(resolved);
+        }
+        return resolved.snapshot;
     }
 
     public boolean              isRolling()
@@ -113,13 +281,15 @@ public class ConfigManager implements Closeable
     }
 
     /**
-     * Add a listener for config changes
+     * Add a listener for config changes. If keys are given, the listener is only called when
+     * one of them changes. Otherwise it is called for every new config.
      *
      * @param listener listener
+     * @param keys {@link StringConfigs} and/or {@link IntConfigs} to listen for
      */
-    public void addConfigListener(ConfigListener listener)
+    public void addConfigListener(ConfigListener listener, Enum<?>... keys)
     {
-        configListeners.add(listener);
+        configListeners.put(listener, new Subscription(keys));
     }
 
     public boolean isStandaloneMode()
@@ -135,7 +305,15 @@ public class ConfigManager implements Closeable
 
     public PseudoLock       newConfigBasedLock() throws Exception
     {
-        return provider.newPseudoLock();
+        return new TimedPseudoLock(provider.newPseudoLock(), lockStats);
+    }
+
+    /**
+     * @return timing of the locks returned by {@link #newConfigBasedLock()}
+     */
+    public LockStats        getLockStats()
+    {
+        return lockStats;
     }
 
     public synchronized void     cancelRollingConfig(CancelMode mode) throws Exception
@@ -152,6 +330,23 @@ public class ConfigManager implements Closeable
     }
 
     public synchronized void     checkRollingConfig(InstanceState instanceState) throws Exception
+    {
+        internalCheckRollingConfig(instanceState, null);
+    }
+
+    /**
+     * @param instanceState the instance state
+     * @param restartCount the instance's restart count when the state was taken. The state and the count
+     *                     are compared as one snapshot so that a restart made after the state was taken
+     *                     is seen by the next check
+     * @throws Exception errors
+     */
+    public synchronized void     checkRollingConfig(InstanceState instanceState, int restartCount) throws Exception
+    {
+        internalCheckRollingConfig(instanceState, restartCount);
+    }
+
+    private void internalCheckRollingConfig(InstanceState instanceState, Integer restartCount) throws Exception
     {
         ConfigCollection localConfig = getCollection();
         if ( localConfig.isRolling() )
@@ -161,10 +356,10 @@ public class ConfigManager implements Closeable
             {
                 if ( rollingConfigChangeRestartCount.get() < 0 )
                 {
-                    rollingConfigChangeRestartCount.set(exhibitor.getMonitorRunningInstance().getRestartCount());
+                    rollingConfigChangeRestartCount.set(getRestartCount(restartCount));
                 }
 
-                if ( state.serverListHasSynced() && ourInstanceHasBeenRestarted() )
+                if ( state.serverListHasSynced() && ourInstanceHasBeenRestarted(restartCount) )
                 {
                     if ( instanceState.getState() == InstanceStateTypes.SERVING )
                     {
@@ -196,6 +391,13 @@ public class ConfigManager implements Closeable
         }
 
         InstanceConfig          currentConfig = getCollection().getRootConfig();
+        if ( DynamicReconfig.isEnabled(currentConfig) && DynamicReconfig.isEnabled(newConfig) && new RestartSignificantConfig(currentConfig).equals(new RestartSignificantConfig(newConfig)) )
+        {
+            // only the server list differs - the ensemble is reconfigured live and nothing needs restarting
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Applying config change without a rolling restart - server list changes use dynamic reconfiguration");
+            return updateConfig(newConfig);
+        }
+
         RollingHostNamesBuilder builder = new RollingHostNamesBuilder(currentConfig, newConfig, leaderHostname);
 
         clearAttempts();
@@ -253,9 +455,14 @@ public class ConfigManager implements Closeable
         return remoteInstanceRequest.makeRequest(exhibitor.getRemoteInstanceRequestClient(), "getStatus");
     }
 
-    private boolean ourInstanceHasBeenRestarted()
+    private boolean ourInstanceHasBeenRestarted(Integer restartCount)
     {
-        return rollingConfigChangeRestartCount.get() != exhibitor.getMonitorRunningInstance().getRestartCount();
+        return rollingConfigChangeRestartCount.get() != getRestartCount(restartCount);
+    }
+
+    private int getRestartCount(Integer restartCount)
+    {
+        return (restartCount != null) ? restartCount : exhibitor.getMonitorRunningInstance().getRestartCount();
     }
 
     private void advanceRollingConfig(ConfigCollection config) throws Exception
@@ -303,55 +510,130 @@ public class ConfigManager implements Closeable
         rollingConfigChangeRestartCount.set(-1);
     }
 
-    private ConfigCollection checkNextInstanceState(ConfigCollection config, List<String> rollingHostNames, int rollingHostNamesIndex)
+    private ConfigCollection checkNextInstanceState(ConfigCollection config, List<String> rollingHostNames, int rollingHostNamesIndex) throws InterruptedException
     {
-        if ( (rollingHostNamesIndex + 1) >= rollingHostNames.size() )
+        int             nextIndex = rollingHostNamesIndex + 1;
+        if ( nextIndex >= rollingHostNames.size() )
         {
             // we're done - switch back to single config
             return new ConfigCollectionImpl(config.getRollingConfig(), null);
         }
 
-        ConfigCollection                newCollection = new ConfigCollectionImpl(config.getRootConfig(), config.getRollingConfig(), rollingHostNames, rollingHostNamesIndex + 1);
-        RollingReleaseState             state = new RollingReleaseState(new InstanceState(), newCollection);
-        if ( state.getCurrentRollingHostname().equals(exhibitor.getThisJVMHostname()) )
+        String          thisHostname = exhibitor.getThisJVMHostname();
+        if ( rollingHostNames.get(nextIndex).equals(thisHostname) && !isQuorumNeutral(config, thisHostname) )
         {
-            return newCollection;
+            return new ConfigCollectionImpl(config.getRootConfig(), config.getRollingConfig(), rollingHostNames, nextIndex);
         }
 
-        RollingConfigAdvanceAttempt         activeAttempt = rollingConfigAdvanceAttempt.get();
-
-        RemoteInstanceRequest.Result        result;
-        if ( (activeAttempt == null) || !activeAttempt.getHostname().equals(state.getCurrentRollingHostname()) || (activeAttempt.getAttemptCount() < maxAttempts) )
+        Map<String, Boolean>    reachable = preflight(rollingHostNames.subList(nextIndex, rollingHostNames.size()));
+        while ( !reachable.get(rollingHostNames.get(nextIndex)) )
         {
-            RemoteInstanceRequest           remoteInstanceRequest = new RemoteInstanceRequest(exhibitor, state.getCurrentRollingHostname());
-            result = callRemoteInstanceRequest(remoteInstanceRequest);
-
+            String                          hostname = rollingHostNames.get(nextIndex);
+            RollingConfigAdvanceAttempt     activeAttempt = rollingConfigAdvanceAttempt.get();
             if ( activeAttempt == null )
             {
-                activeAttempt = new RollingConfigAdvanceAttempt(state.getCurrentRollingHostname());
+                activeAttempt = new RollingConfigAdvanceAttempt(hostname);
                 rollingConfigAdvanceAttempt.set(activeAttempt);
             }
             activeAttempt.incrementAttemptCount();
 
-            if ( result.errorMessage.length() != 0 )
+            if ( activeAttempt.getAttemptCount() < maxAttempts )
             {
-                if ( activeAttempt.getAttemptCount() >= maxAttempts )
+                exhibitor.getLog().add(ActivityLog.Type.INFO, "Could not connect to " + hostname + " - attempt #" + activeAttempt.getAttemptCount());
+                return null;
+            }
+
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Exhausted attempts to connect to " + hostname + " - skipping and moving on to next instance");
+            if ( ++nextIndex >= rollingHostNames.size() )  // it must be down. Skip it.
+            {
+                return new ConfigCollectionImpl(config.getRollingConfig(), null);
+            }
+        }
+
+        // observers can't affect quorum so a run of them is restarted together. The batch must end on a live
+        // instance as that instance is the one that advances the rolling config
+        int             batchEnd = nextIndex;
+        if ( isQuorumNeutral(config, rollingHostNames.get(nextIndex)) )
+        {
+            for ( int i = nextIndex + 1; (i < rollingHostNames.size()) && ((i - nextIndex) < restartBatchSize) && isQuorumNeutral(config, rollingHostNames.get(i)); ++i )
+            {
+                if ( reachable.get(rollingHostNames.get(i)) )
                 {
-                    exhibitor.getLog().add(ActivityLog.Type.INFO, "Exhausted attempts to connect to " + remoteInstanceRequest.getHostname() + " - skipping and moving on to next instance");
-                    newCollection = checkNextInstanceState(config, rollingHostNames, rollingHostNamesIndex + 1);  // it must be down. Skip it.
+                    batchEnd = i;
                 }
-                else
+            }
+        }
+        if ( batchEnd > nextIndex )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Restarting observers together: " + rollingHostNames.subList(nextIndex, batchEnd + 1));
+        }
+
+        return new ConfigCollectionImpl(config.getRootConfig(), config.getRollingConfig(), rollingHostNames, batchEnd);
+    }
+
+    /**
+     * Probe the given instances in parallel. This instance is always considered reachable
+     *
+     * @param hostnames instances to check
+     * @return reachability of each instance
+     * @throws InterruptedException if interrupted while waiting for the probes
+     */
+    private Map<String, Boolean> preflight(List<String> hostnames) throws InterruptedException
+    {
+        String                              thisHostname = exhibitor.getThisJVMHostname();
+        Map<String, Future<Boolean>>        probes = Maps.newLinkedHashMap();
+        for ( final String hostname : hostnames )
+        {
+            if ( !hostname.equals(thisHostname) && !probes.containsKey(hostname) )
+            {
+                Callable<Boolean>       probe = new Callable<Boolean>()
                 {
-                    exhibitor.getLog().add(ActivityLog.Type.INFO, "Could not connect to " + remoteInstanceRequest.getHostname() + " - attempt #" + activeAttempt.getAttemptCount());
-                    newCollection = null;
-                }
+                    @Override
+                    public Boolean call() throws Exception
+                    {
+                        RemoteInstanceRequest.Result    result = callRemoteInstanceRequest(new RemoteInstanceRequest(exhibitor, hostname));
+                        return result.errorMessage.length() == 0;
+                    }
+                };
+                probes.put(hostname, preflightService.submit(probe));
             }
         }
-        else
+
+        // the probes run in parallel so they share one deadline - a hung instance counts as unreachable
+        long                    deadlineMs = System.currentTimeMillis() + exhibitor.getConnectionTimeOutMs();
+        Map<String, Boolean>    reachable = Maps.newHashMap();
+        reachable.put(thisHostname, true);
+        for ( Map.Entry<String, Future<Boolean>> entry : probes.entrySet() )
         {
-            newCollection = null;
+            boolean     isReachable;
+            try
+            {
+                isReachable = entry.getValue().get(Math.max(0, deadlineMs - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            catch ( ExecutionException e )
+            {
+                isReachable = false;
+            }
+            catch ( TimeoutException e )
+            {
+                entry.getValue().cancel(true);
+                isReachable = false;
+            }
+            reachable.put(entry.getKey(), isReachable);
         }
-        return newCollection;
+        return reachable;
+    }
+
+    /**
+     * An instance is quorum neutral if it is an observer (or absent) in the current config and an observer
+     * in the new one. Restarting it never costs the ensemble a vote.
+     */
+    private static boolean isQuorumNeutral(ConfigCollection config, String hostname)
+    {
+        ServerSpec      rollingSpec = new ServerList(config.getRollingConfig().getString(StringConfigs.SERVERS_SPEC)).getSpec(hostname);
+        ServerSpec      rootSpec = new ServerList(config.getRootConfig().getString(StringConfigs.SERVERS_SPEC)).getSpec(hostname);
+        return (rollingSpec != null) && (rollingSpec.getServerType() == ServerType.OBSERVER)
+            && ((rootSpec == null) || (rootSpec.getServerType() == ServerType.OBSERVER));
     }
 
     private boolean internalUpdateConfig(ConfigCollection newCollection) throws Exception
@@ -368,15 +650,65 @@ public class ConfigManager implements Closeable
 
     private void setNewConfig(LoadedInstanceConfig newConfig) throws Exception
     {
+        ConfigSnapshot      oldSnapshot = getConfigSnapshot();
+        updateCache(newConfig);
         config.getAndSet(newConfig);
-        notifyListeners();
+        notifyListeners(new ConfigDiff(oldSnapshot, getConfigSnapshot()));
+    }
+
+    private void updateCache(LoadedInstanceConfig newConfig)
+    {
+        if ( cache != null )
+        {
+            try
+            {
+                cache.store(newConfig);
+            }
+            catch ( IOException e )
+            {
+                exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not update the config cache", e);
+            }
+        }
+    }
+
+    private void notifyListeners(ConfigDiff diff)
+    {
+        // callers hold the instance lock so notifications are delivered in order
+        for ( Map.Entry<ConfigListener, Subscription> entry : configListeners.entrySet() )
+        {
+            if ( entry.getValue().matches(diff) )
+            {
+                entry.getKey().configUpdated(diff);
+            }
+        }
+    }
+
+    private void queuePushedConfig(final LoadedInstanceConfig newConfig)
+    {
+        Activity    activity = new Activity()
+        {
+            @Override
+            public void completed(boolean wasSuccessful)
+            {
+            }
+
+            @Override
+            public Boolean call() throws Exception
+            {
+                applyPushedConfig(newConfig);
+                return true;
+            }
+        };
+        exhibitor.getActivityQueue().add(QueueGroups.MAIN, activity);
     }
 
-    private synchronized void notifyListeners()
+    @VisibleForTesting
+    synchronized void applyPushedConfig(LoadedInstanceConfig newConfig) throws Exception
     {
-        for ( ConfigListener listener : configListeners )
+        // pushes can race with our own stores - never go back to an older version
+        if ( newConfig.getVersion() > config.get().getVersion() )
         {
-            listener.configUpdated();
+            setNewConfig(newConfig);
         }
     }
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.netflix.exhibitor.core.state.ServerList;
+import java.util.EnumMap;
+
+/**
+ * Immutable copy of an {@link InstanceConfig}. Values are read once and the commonly used
+ * encoded values are parsed up front so that reads are plain field/array accesses.
+ */
+public class ConfigSnapshot implements InstanceConfig
+{
+    private final EnumMap<StringConfigs, String>    strings = new EnumMap<StringConfigs, String>(StringConfigs.class);
+    private final int[]                             ints = new int[IntConfigs.values().length];
+    private final ServerList                        serverList;
+    private final EncodedConfigParser               zooCfgExtra;
+    private final EncodedConfigParser               backupExtra;
+
+    /**
+     * Return a snapshot of the given config. If it already is a snapshot, it is returned as is.
+     *
+     * @param config the config
+     * @return snapshot
+     */
+    public static ConfigSnapshot of(InstanceConfig config)
+    {
+        return (config instanceof ConfigSnapshot) ? (ConfigSnapshot)config : new ConfigSnapshot(config);
+    }
+
+    private ConfigSnapshot(InstanceConfig source)
+    {
+        for ( StringConfigs config : StringConfigs.values() )
+        {
+            String      value = source.getString(config);
+            strings.put(config, (value != null) ? value : "");
+        }
+        for ( IntConfigs config : IntConfigs.values() )
+        {
+            ints[config.ordinal()] = source.getInt(config);
+        }
+
+        serverList = new ServerList(getString(StringConfigs.SERVERS_SPEC));
+        zooCfgExtra = new EncodedConfigParser(getString(StringConfigs.ZOO_CFG_EXTRA));
+        backupExtra = new EncodedConfigParser(getString(StringConfigs.BACKUP_EXTRA));
+    }
+
+    @Override
+    public String getString(StringConfigs config)
+    {
+        return strings.get(config);
+    }
+
+    @Override
+    public int getInt(IntConfigs config)
+    {
+        return ints[config.ordinal()];
+    }
+
+    /**
+     * @return parsed {@link StringConfigs#SERVERS_SPEC}
+     */
+    public ServerList getServerList()
+    {
+        return serverList;
+    }
+
+    /**
+     * @return parsed {@link StringConfigs#ZOO_CFG_EXTRA}
+     */
+    public EncodedConfigParser getZooCfgExtra()
+    {
+        return zooCfgExtra;
+    }
+
+    /**
+     * @return parsed {@link StringConfigs#BACKUP_EXTRA}
+     */
+    public EncodedConfigParser getBackupExtra()
+    {
+        return backupExtra;
+    }
+}
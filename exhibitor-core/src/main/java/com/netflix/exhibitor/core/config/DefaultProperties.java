@@ -96,6 +96,11 @@ public class DefaultProperties
                         return backupExtraValue;
                     }
 
+                    case BACKUP_CODEC:
+                    {
+                        return "gzip";
+                    }
+
                     default: {
                         return "";
                     }
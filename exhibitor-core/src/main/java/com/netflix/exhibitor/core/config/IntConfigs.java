@@ -114,6 +114,19 @@ public enum IntConfigs
         }
     },
 
+    /**
+     * Number of threads used to compress and decompress backups - default: 0 (one per core). 1 writes
+     * a single gzip stream, more writes gzip blocks that are compressed in parallel.
+     */
+    BACKUP_COMPRESSION_THREADS()
+    {
+        @Override
+        public boolean isRestartSignificant()
+        {
+            return false;
+        }
+    },
+
     /**
      * true/false (0 or 1) - determine if automatic instance management is on/off - default is false
      */
@@ -176,6 +189,32 @@ public enum IntConfigs
         {
             return false;
         }
+    },
+
+    /**
+     * If non-zero, ZooKeeper's AdminServer (3.5+) is enabled on this port and instance health/metrics
+     * are read from its JSON commands instead of four letter words - default: 0
+     */
+    ADMIN_SERVER_PORT()
+    {
+        @Override
+        public boolean isRestartSignificant()
+        {
+            return true;
+        }
+    },
+
+    /**
+     * boolean - if true (non zero) server list changes are applied to the running ensemble via ZooKeeper's
+     * dynamic reconfiguration (3.5+) instead of restarting instances - default is false
+     */
+    DYNAMIC_RECONFIG()
+    {
+        @Override
+        public boolean isRestartSignificant()
+        {
+            return true;
+        }
     }
     ;
 
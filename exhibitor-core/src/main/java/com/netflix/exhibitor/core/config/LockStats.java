@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
+import com.netflix.exhibitor.core.servo.GaugeSet;
+import com.netflix.servo.MonitorRegistry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Telemetry for acquiring config based locks
+ */
+public class LockStats
+{
+    private final Histogram             acquireMs = new Histogram(new ExponentiallyDecayingReservoir());
+    private final AtomicLong            failureCount = new AtomicLong(0);
+    private final AtomicLong            lastAcquireMs = new AtomicLong(0);
+    private final GaugeSet              gauges = new GaugeSet("lock")
+        .add("lock_acquire_count", new Callable<Number>()
+        {
+            @Override
+            public Number call() throws Exception
+            {
+                return acquireMs.getCount();
+            }
+        })
+        .add("lock_acquire_failure_count", failureCount)
+        .addHistogram("lock_acquire", acquireMs)
+        .add("lock_acquire_last_ms", lastAcquireMs);
+
+    /**
+     * Record a lock attempt
+     *
+     * @param elapsedMs time spent in the attempt
+     * @param acquired true if the lock was acquired
+     */
+    public void record(long elapsedMs, boolean acquired)
+    {
+        if ( acquired )
+        {
+            acquireMs.update(elapsedMs);
+            lastAcquireMs.set(elapsedMs);
+        }
+        else
+        {
+            failureCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return time taken by the attempts that acquired the lock
+     */
+    public Snapshot getAcquireMs()
+    {
+        return acquireMs.getSnapshot();
+    }
+
+    /**
+     * @return number of attempts that acquired the lock
+     */
+    public long getAcquireCount()
+    {
+        return acquireMs.getCount();
+    }
+
+    /**
+     * @return number of attempts that did not acquire the lock
+     */
+    public long getFailureCount()
+    {
+        return failureCount.get();
+    }
+
+    /**
+     * Publish the telemetry via Servo
+     *
+     * @param registry registry to publish to
+     */
+    public void startMonitoring(MonitorRegistry registry)
+    {
+        gauges.register(registry);
+    }
+
+    /**
+     * Remove everything published via {@link #startMonitoring(MonitorRegistry)}
+     */
+    public void stopMonitoring()
+    {
+        gauges.unregister();
+    }
+}
@@ -21,7 +21,9 @@ import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class PropertyBasedInstanceConfig extends ConfigCollectionBase
@@ -165,24 +167,32 @@ public class PropertyBasedInstanceConfig extends ConfigCollectionBase
 
     private class WrappedInstanceConfig implements InstanceConfig
     {
-        private final String prefix;
+        private final Map<StringConfigs, String> stringNames = new EnumMap<StringConfigs, String>(StringConfigs.class);
+        private final Map<IntConfigs, String> intNames = new EnumMap<IntConfigs, String>(IntConfigs.class);
 
         public WrappedInstanceConfig(String prefix)
         {
-            this.prefix = prefix;
+            for ( StringConfigs config : StringConfigs.values() )
+            {
+                stringNames.put(config, toName(config, prefix));
+            }
+            for ( IntConfigs config : IntConfigs.values() )
+            {
+                intNames.put(config, toName(config, prefix));
+            }
         }
 
         @Override
         public String getString(StringConfigs config)
         {
-            String  propertyName = toName(config, prefix);
+            String  propertyName = stringNames.get(config);
             return properties.getProperty(propertyName, defaults.getProperty(propertyName, ""));
         }
 
         @Override
         public int getInt(IntConfigs config)
         {
-            String propertyName = toName(config, prefix);
+            String propertyName = intNames.get(config);
             return DefaultProperties.asInt(properties.getProperty(propertyName, defaults.getProperty(propertyName, "0")));
         }
     }
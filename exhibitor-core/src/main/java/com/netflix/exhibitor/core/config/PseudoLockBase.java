@@ -48,12 +48,22 @@ public abstract class PseudoLockBase implements PseudoLock
 
     private static final Random             random = new SecureRandom();
 
-    private static final int        DEFAULT_SETTLING_MS = 5000;
+    public static final int         DEFAULT_SETTLING_MS = 5000;
 
     private static final int        MISSING_KEY_FACTOR = 10;
 
     /*package private*/ static final String     DEFAULT_LOCK_KEY_SEPARATOR = "_";
 
+    /**
+     * Settling value for backends with strong read-after-write and list consistency (e.g. S3 and
+     * local file systems - NOT NFS). It is negative so that it can't be mistaken for a settling period
+     * of 0, which still uses the settling protocol. No settling period is needed: a key is created and the lock is held if,
+     * when listed right after, it is the only live key. Otherwise the key is withdrawn and the
+     * attempt is retried once the other keys are gone. Instances using this mode do not exclude
+     * instances using a settling period so every instance sharing the lock must use the same mode.
+     */
+    public static final int         STRONGLY_CONSISTENT = -1;
+
     /**
      * @param lockPrefix key prefix
      * @param timeoutMs max age for locks
@@ -68,7 +78,7 @@ public abstract class PseudoLockBase implements PseudoLock
      * @param lockPrefix key prefix
      * @param timeoutMs max age for locks
      * @param pollingMs how often to poll S3
-     * @param settlingMs how long to wait for S3 to reach consistency
+     * @param settlingMs how long to wait for S3 to reach consistency or {@link #STRONGLY_CONSISTENT}
      */
     public PseudoLockBase(String lockPrefix, int timeoutMs, int pollingMs, int settlingMs)
     {
@@ -79,11 +89,12 @@ public abstract class PseudoLockBase implements PseudoLock
      * @param lockPrefix key prefix
      * @param timeoutMs max age for locks
      * @param pollingMs how often to poll S3
-     * @param settlingMs how long to wait for S3 to reach consistency
+     * @param settlingMs how long to wait for S3 to reach consistency or {@link #STRONGLY_CONSISTENT}
      * @param lockKeySeparator separator to use for the lock key
      */
     public PseudoLockBase(String lockPrefix, int timeoutMs, int pollingMs, int settlingMs, String lockKeySeparator)
     {
+        Preconditions.checkArgument((settlingMs >= 0) || (settlingMs == STRONGLY_CONSISTENT), "settlingMs must be 0 or more or STRONGLY_CONSISTENT");
         this.settlingMs = settlingMs;
         Preconditions.checkArgument(lockKeySeparator != null && !lockKeySeparator.isEmpty(),
                 "lockKeySeparator cannot be null or empty");
@@ -122,6 +133,11 @@ public abstract class PseudoLockBase implements PseudoLock
         long        maxWaitMs = hasMaxWait ? TimeUnit.MILLISECONDS.convert(maxWait, unit) : Long.MAX_VALUE;
         Preconditions.checkState(maxWaitMs >= settlingMs, String.format("The maxWait ms (%d) is less than the settling ms (%d)", maxWaitMs, settlingMs));
 
+        if ( settlingMs == STRONGLY_CONSISTENT )
+        {
+            return lockStronglyConsistent(log, startMs, maxWaitMs);
+        }
+
         createFile(key, content.getBytes());
 
         for(;;)
@@ -174,6 +190,42 @@ public abstract class PseudoLockBase implements PseudoLock
         return lockPrefix;
     }
 
+    private boolean lockStronglyConsistent(ActivityLog activityLog, long startMs, long maxWaitMs) throws Exception
+    {
+        for(;;)
+        {
+            createFile(key, content.getBytes());
+            List<String>        keys = cleanOldObjects(getFileNames(lockPrefix));
+            if ( !keys.contains(key) )
+            {
+                throw new Exception(String.format("Our key is missing. Key: %s", key));
+            }
+            if ( keys.size() == 1 )
+            {
+                ownsTheLock = true;
+                return true;
+            }
+
+            // contended - withdraw so that contenders can't each believe they hold the lock
+            deleteFile(key);
+            log.debug(String.format("Lock contended. Key: %s, keys: %s", key, keys));
+            do
+            {
+                long        thisWaitMs = maxWaitMs - (System.currentTimeMillis() - startMs);
+                if ( thisWaitMs <= 0 )
+                {
+                    activityLog.add(ActivityLog.Type.ERROR, String.format("Could not acquire lock within %d ms, polling: %d ms, key: %s", maxWaitMs, pollingMs, key));
+                    return false;
+                }
+                // random jitter so that retrying contenders don't collide again
+                wait(Math.max(1, Math.min(pollingMs + random.nextInt(pollingMs + 1), thisWaitMs)));
+                keys = cleanOldObjects(getFileNames(lockPrefix));
+            } while ( keys.size() > 0 );
+
+            key = lockPrefix + lockKeySeparator + newRandomSequence();
+        }
+    }
+
     private void checkUpdate() throws Exception
     {
         if ( (System.currentTimeMillis() - lastUpdateMs) < pollingMs )
@@ -19,6 +19,8 @@ package com.netflix.exhibitor.core.config;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.netflix.exhibitor.core.state.ServerList;
+import com.netflix.exhibitor.core.state.ServerSpec;
+import com.netflix.exhibitor.core.state.ServerType;
 import java.util.List;
 import java.util.Set;
 
@@ -33,9 +35,20 @@ class RollingHostNamesBuilder
 
         Set<String>     newServers = Sets.difference(Sets.newTreeSet(rollingServers.getHostnames()), Sets.newTreeSet(rootServers.getHostnames()));
         Set<String>     unchangedServers = Sets.intersection(Sets.newTreeSet(rollingServers.getHostnames()), Sets.newTreeSet(rootServers.getHostnames()));
+        Set<String>     observers = Sets.newTreeSet();
+        for ( String hostname : rollingServers.getHostnames() )
+        {
+            ServerSpec      rootSpec = rootServers.getSpec(hostname);
+            if ( (rollingServers.getSpec(hostname).getServerType() == ServerType.OBSERVER) && ((rootSpec == null) || (rootSpec.getServerType() == ServerType.OBSERVER)) )
+            {
+                observers.add(hostname);
+            }
+        }
 
         ImmutableList.Builder<String> builder = ImmutableList.builder();
-        builder.addAll(newServers); // new servers need to be started first as the others will try to communicate with them. You may have issues if there is more than 1 new server
+        builder.addAll(Sets.difference(newServers, observers)); // new servers need to be started first as the others will try to communicate with them. You may have issues if there is more than 1 new server
+        builder.addAll(observers);  // observers don't vote - keep them together so that they can be restarted in batches
+        unchangedServers = Sets.difference(unchangedServers, observers);
         if ( (leaderHostname != null) && unchangedServers.contains(leaderHostname) )
         {
             Set<String>     allButLeader = Sets.difference(unchangedServers, Sets.newHashSet(leaderHostname));
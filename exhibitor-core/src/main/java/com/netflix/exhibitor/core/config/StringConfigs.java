@@ -90,6 +90,18 @@ public enum StringConfigs
         }
     },
 
+    /**
+     * Codec used to compress new backups - "gzip" (the default) or "zstd". Restores detect the codec from the backup.
+     */
+    BACKUP_CODEC
+    {
+        @Override
+        public boolean isRestartSignificant()
+        {
+            return false;
+        }
+    },
+
     /**
      * Additional properties to add to zoo.cfg
      */
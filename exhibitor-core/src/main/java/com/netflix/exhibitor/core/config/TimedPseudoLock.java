@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.netflix.exhibitor.core.activity.ActivityLog;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time taken to acquire a lock into {@link LockStats}
+ */
+class TimedPseudoLock implements PseudoLock
+{
+    private final PseudoLock lock;
+    private final LockStats lockStats;
+
+    TimedPseudoLock(PseudoLock lock, LockStats lockStats)
+    {
+        this.lock = lock;
+        this.lockStats = lockStats;
+    }
+
+    @Override
+    public boolean lock(ActivityLog log, long maxWait, TimeUnit unit) throws Exception
+    {
+        long        startNs = System.nanoTime();
+        boolean     acquired = false;
+        try
+        {
+            acquired = lock.lock(log, maxWait, unit);
+            return acquired;
+        }
+        finally
+        {
+            lockStats.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs), acquired);
+        }
+    }
+
+    @Override
+    public void unlock() throws Exception
+    {
+        lock.unlock();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+/**
+ * A provider that can be notified of changes to its storage. {@link ConfigManager} applies
+ * pushed configs immediately and, if the provider {@link #seesAllChanges() sees all changes},
+ * only polls it as a safety net.
+ */
+public interface WatchableConfigProvider extends ConfigProvider
+{
+    /**
+     * Set the watcher to notify. Must be called before {@link #start()}
+     *
+     * @param watcher the watcher
+     */
+    public void     setConfigWatcher(ConfigWatcher watcher);
+
+    /**
+     * Return true if the watcher is notified of every change, including changes made by other
+     * instances. If false, the provider must still be polled at the normal rate.
+     *
+     * @return true/false
+     */
+    public boolean  seesAllChanges();
+}
@@ -1,24 +1,53 @@
 package com.netflix.exhibitor.core.config.consul;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.exhibitor.core.config.*;
 import com.orbitz.consul.Consul;
+import com.orbitz.consul.ConsulException;
 import com.orbitz.consul.KeyValueClient;
+import com.orbitz.consul.model.ConsulResponse;
+import com.orbitz.consul.model.kv.Operation;
+import com.orbitz.consul.model.kv.TxResponse;
+import com.orbitz.consul.model.kv.Value;
+import com.orbitz.consul.model.kv.Verb;
+import com.orbitz.consul.option.QueryOptions;
+import com.orbitz.consul.util.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
-import java.util.concurrent.TimeUnit;
-public class ConsulConfigProvider implements ConfigProvider {
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stores the config as two keys: the properties and a version counter. Neither reads nor writes take a lock:
+ * writes are a single transaction that check-and-sets the version key and sets the properties, reads get both
+ * keys in one recursive GET of the base path and changes are watched with a blocking query on that path.
+ */
+public class ConsulConfigProvider implements WatchableConfigProvider {
     private static final Long DEFAULT_LOCK_TIMEOUT_MS = 5L * 60L * 1000L;  // 5 minutes;
+    private static final int WATCH_WAIT_SECONDS = 60;
+    private static final long MIN_RETRY_MS = 1000;
+    private static final long MAX_RETRY_MS = 30000;
+    private static final int CONFLICT = 409;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
     private final Consul consul;
     private final Properties defaults;
     private final String basePath;
     private final String versionPath;
     private final String propertiesPath;
-    private final ConsulKvLock lock;
     private final String pseudoLockPath;
-    private final Long lockTimeoutMs;
+    private final AtomicReference<ConfigWatcher> watcher = new AtomicReference<ConfigWatcher>();
+    private volatile boolean isClosed = false;
+    private final ExecutorService watchExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("ConsulConfigProvider-%d").setDaemon(true).build());
 
     /**
      * @param consul consul client instance for connecting to consul cluster
@@ -33,70 +62,91 @@ public class ConsulConfigProvider implements ConfigProvider {
      * @param consul consul client instance for connecting to consul cluster
      * @param prefix consul key-value path under which configs are stored
      * @param defaults default properties
-     * @param lockTimeoutMs timeout, in milliseconds, for lock acquisition
+     * @param lockTimeoutMs ignored - reads and writes no longer take a lock
+     * @deprecated use {@link #ConsulConfigProvider(Consul, String, Properties)}
      */
+    @Deprecated
     public ConsulConfigProvider(Consul consul, String prefix, Properties defaults, Long lockTimeoutMs) {
         this.consul = consul;
         this.defaults = defaults;
-        this.lockTimeoutMs = lockTimeoutMs;
 
         this.basePath = prefix.endsWith("/") ? prefix : prefix + "/";
         this.versionPath = basePath + "version";
         this.propertiesPath = basePath + "properties";
         this.pseudoLockPath = basePath + "pseudo-locks";
-
-        this.lock = new ConsulKvLock(consul, basePath + "lock", "exhibitor");
     }
 
     @Override
     public void start() throws Exception {
-        // NOP
+        watchExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                watchLoop();
+            }
+        });
     }
 
     @Override
     public void close() throws IOException {
-        // NOP
+        isClosed = true;
+        watchExecutor.shutdownNow();
     }
 
     @Override
-    public LoadedInstanceConfig loadConfig() throws Exception {
-        ConsulVersionedProperties properties;
+    public void setConfigWatcher(ConfigWatcher watcher) {
+        this.watcher.set(watcher);
+    }
 
-        lock.acquireLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
-        try {
-            properties = loadProperties();
-        }
-        finally {
-            lock.releaseLock();
-        }
+    @Override
+    public boolean seesAllChanges() {
+        return true;
+    }
 
-        PropertyBasedInstanceConfig config = new PropertyBasedInstanceConfig(
-                properties.getProperties(), defaults);
-        return new LoadedInstanceConfig(config, properties.getVersion());
+    @Override
+    public LoadedInstanceConfig loadConfig() throws Exception {
+        return toLoadedConfig(loadProperties(consul.keyValueClient().getConsulResponseWithValues(basePath).getResponse()));
     }
 
     @Override
     public LoadedInstanceConfig storeConfig(ConfigCollection config, long compareVersion) throws Exception {
-        Long currentVersion = loadProperties().getVersion();
+        KeyValueClient kv = consul.keyValueClient();
+        Optional<Value> versionValue = kv.getValue(versionPath);
+        long currentVersion = getVersion(versionValue);
         if (currentVersion != compareVersion) {
             return null;
         }
 
-        KeyValueClient kv = consul.keyValueClient();
         PropertyBasedInstanceConfig instanceConfig = new PropertyBasedInstanceConfig(config);
         StringWriter writer = new StringWriter();
         instanceConfig.getProperties().store(writer, "Auto-generated by Exhibitor");
 
-        lock.acquireLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+        // an index of 0 means the version key must not exist yet
+        long newVersion = currentVersion + 1;
+        long modifyIndex = versionValue.isPresent() ? versionValue.get().getModifyIndex() : 0;
+        Operation checkAndSetVersion = Operation.builder(Verb.CHECK_AND_SET)
+                .key(versionPath)
+                .value(String.valueOf(newVersion))
+                .index(BigInteger.valueOf(modifyIndex))
+                .build();
+        Operation setProperties = Operation.builder(Verb.SET)
+                .key(propertiesPath)
+                .value(writer.toString())
+                .build();
+
         try {
-            kv.putValue(propertiesPath, writer.toString());
-            kv.putValue(versionPath, String.valueOf(currentVersion + 1));
+            ConsulResponse<TxResponse> response = kv.performTransaction(checkAndSetVersion, setProperties);
+            if ((response.getResponse().errors() != null) && !response.getResponse().errors().isEmpty()) {
+                return null;    // rolled back - another instance got in first
+            }
         }
-        finally {
-            lock.releaseLock();
+        catch (ConsulException e) {
+            if (e.getCode() == CONFLICT) {
+                return null;    // rolled back - another instance got in first
+            }
+            throw e;
         }
 
-        return new LoadedInstanceConfig(instanceConfig, currentVersion + 1);
+        return new LoadedInstanceConfig(instanceConfig, newVersion);
     }
 
     @Override
@@ -104,24 +154,94 @@ public class ConsulConfigProvider implements ConfigProvider {
         return new ConsulPseudoLock(consul, pseudoLockPath);
     }
 
-    private String getString(String path) {
-        return consul.keyValueClient().getValueAsString(path).orElse(null);
+    private void watchLoop() {
+        // block on the whole base path - unlike a single key, it has an index to block on before the config is first stored
+        BigInteger index = BigInteger.ZERO;
+        long versionModifyIndex = -1;
+        long retryMs = MIN_RETRY_MS;
+        while (!isClosed && !Thread.currentThread().isInterrupted()) {
+            try {
+                ConsulResponse<List<Value>> response = consul.keyValueClient().getConsulResponseWithValues(basePath, QueryOptions.blockSeconds(WATCH_WAIT_SECONDS, index).build());
+                BigInteger newIndex = response.getIndex();
+                if (newIndex.compareTo(index) < 0) {
+                    index = BigInteger.ZERO;  // the index went backwards (e.g. a snapshot restore) - start over
+                    continue;
+                }
+                index = newIndex.max(BigInteger.ONE);   // an index of 0 would return immediately
+
+                // the path also holds the pseudo-locks - only a new version is a config change
+                Optional<Value> versionValue = findValue(response.getResponse(), versionPath);
+                if (versionValue.isPresent() && (versionValue.get().getModifyIndex() != versionModifyIndex)) {
+                    versionModifyIndex = versionValue.get().getModifyIndex();
+                    notifyWatcher(toLoadedConfig(loadProperties(response.getResponse())));
+                }
+                retryMs = MIN_RETRY_MS;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (Exception e) {
+                if (isClosed) {
+                    break;
+                }
+                log.warn("Watching " + versionPath + " failed - retrying in " + retryMs + "ms", e);
+                try {
+                    Thread.sleep(retryMs);
+                }
+                catch (InterruptedException dummy) {
+                    Thread.currentThread().interrupt();
+                }
+                retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+            }
+        }
     }
 
-    private Long getLong(String path) {
-        return Long.valueOf(consul.keyValueClient().getValueAsString(path).orElse("0"));
+    private void notifyWatcher(LoadedInstanceConfig newConfig) {
+        ConfigWatcher localWatcher = watcher.get();
+        if (localWatcher != null) {
+            localWatcher.configChanged(newConfig);
+        }
     }
 
-    private ConsulVersionedProperties loadProperties() throws Exception {
-        Long version = getLong(versionPath);
+    private LoadedInstanceConfig toLoadedConfig(ConsulVersionedProperties properties) {
+        PropertyBasedInstanceConfig config = new PropertyBasedInstanceConfig(
+                properties.getProperties(), defaults);
+        return new LoadedInstanceConfig(config, properties.getVersion());
+    }
+
+    private static long getVersion(Optional<Value> versionValue) {
+        if (versionValue.isPresent()) {
+            Optional<String> version = versionValue.get().getValueAsString();
+            if (version.isPresent()) {
+                return Long.parseLong(version.get());
+            }
+        }
+        return 0;
+    }
+
+    private ConsulVersionedProperties loadProperties(List<Value> values) throws Exception {
+        // the values come from a single read so the version and the properties always match
+        Long version = getVersion(findValue(values, versionPath));
 
         Properties properties = new Properties();
-        String rawProperties = getString(propertiesPath);
-        if (rawProperties != null) {
-            StringReader reader = new StringReader(getString(propertiesPath));
-            properties.load(reader);
+        Optional<Value> propertiesValue = findValue(values, propertiesPath);
+        Optional<String> rawProperties = propertiesValue.isPresent() ? propertiesValue.get().getValueAsString() : Optional.<String>empty();
+        if (rawProperties.isPresent()) {
+            properties.load(new StringReader(rawProperties.get()));
         }
 
         return new ConsulVersionedProperties(properties, version);
     }
+
+    private static Optional<Value> findValue(List<Value> values, String path) {
+        if (values != null) {   // null when nothing is stored under the base path
+            String key = Strings.trimLeadingSlash(path);
+            for (Value value : values) {
+                if (key.equals(value.getKey())) {
+                    return Optional.of(value);
+                }
+            }
+        }
+        return Optional.empty();
+    }
 }
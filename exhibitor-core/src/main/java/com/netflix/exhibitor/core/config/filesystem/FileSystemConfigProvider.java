@@ -16,29 +16,115 @@
 
 package com.netflix.exhibitor.core.config.filesystem;
 
+import com.google.common.base.Objects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.exhibitor.core.config.AutoManageLockArguments;
 import com.netflix.exhibitor.core.config.ConfigCollection;
-import com.netflix.exhibitor.core.config.ConfigProvider;
+import com.netflix.exhibitor.core.config.ConfigWatcher;
 import com.netflix.exhibitor.core.config.LoadedInstanceConfig;
 import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
 import com.netflix.exhibitor.core.config.PseudoLock;
+import com.netflix.exhibitor.core.config.WatchableConfigProvider;
 import org.apache.curator.utils.CloseableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
-import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class FileSystemConfigProvider implements ConfigProvider
+/**
+ * Stores the config in a properties file. Writers publish a complete temp file with an atomic rename
+ * (serialized via a separate lock file) so readers never need to lock. Reads that race an older instance's
+ * in-place write are retried. Local changes are picked up via a
+ * {@link WatchService}; polls short-circuit when the file's mtime, size and identity are unchanged.
+ */
+public class FileSystemConfigProvider implements WatchableConfigProvider
 {
+    private final Logger log = LoggerFactory.getLogger(getClass());
     private final File propertiesDirectory;
     private final String propertyFileName;
+    private final Path propertiesPath;
     private final Properties defaults;
     private final AutoManageLockArguments autoManageLockArguments;
+    private final AtomicReference<CachedConfig> cachedConfig = new AtomicReference<CachedConfig>();
+    private final AtomicReference<ConfigWatcher> watcher = new AtomicReference<ConfigWatcher>();
+    private final ExecutorService watchExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("FileSystemConfigProvider-%d").setDaemon(true).build());
+    private volatile WatchService watchService;
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int MAX_READ_ATTEMPTS = 5;
+    private static final int READ_RETRY_MS = 100;
+
+    private static class FileState
+    {
+        private final long lastModified;
+        private final long size;
+        private final Object fileKey;
+
+        private FileState(BasicFileAttributes attributes)
+        {
+            lastModified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+            fileKey = attributes.fileKey();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() )
+            {
+                return false;
+            }
+
+            FileState fileState = (FileState)o;
+            return (lastModified == fileState.lastModified) && (size == fileState.size) && Objects.equal(fileKey, fileState.fileKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(lastModified, size, fileKey);
+        }
+    }
+
+    private static class CachedConfig
+    {
+        private final FileState state;
+        private final LoadedInstanceConfig config;
+
+        private CachedConfig(FileState state, LoadedInstanceConfig config)
+        {
+            this.state = state;
+            this.config = config;
+        }
+    }
 
     /**
      *
@@ -70,6 +156,7 @@ public class FileSystemConfigProvider implements ConfigProvider
         this.propertyFileName = propertyFileName;
         this.defaults = defaults;
         this.autoManageLockArguments = autoManageLockArguments;
+        propertiesPath = new File(propertiesDirectory, propertyFileName).toPath();
 
         if ( propertiesDirectory.exists() && !propertiesDirectory.isDirectory() )
         {
@@ -85,82 +172,291 @@ public class FileSystemConfigProvider implements ConfigProvider
     @Override
     public void start() throws Exception
     {
-        // NOP
+        try
+        {
+            watchService = propertiesDirectory.toPath().getFileSystem().newWatchService();
+            propertiesDirectory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        catch ( IOException e )
+        {
+            log.warn("Could not watch " + propertiesDirectory + " - relying on polling only", e);
+            CloseableUtils.closeQuietly(watchService);
+            watchService = null;
+            return;
+        }
+
+        watchExecutor.submit
+        (
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    watchLoop();
+                }
+            }
+        );
     }
 
     @Override
     public void close() throws IOException
     {
-        // NOP
+        CloseableUtils.closeQuietly(watchService);
+        watchExecutor.shutdownNow();
+    }
+
+    @Override
+    public void setConfigWatcher(ConfigWatcher watcher)
+    {
+        this.watcher.set(watcher);
+    }
+
+    @Override
+    public boolean seesAllChanges()
+    {
+        return false;   // WatchService doesn't see writes made by other hosts to shared (e.g. NFS) directories
     }
 
     @Override
     public PseudoLock newPseudoLock() throws Exception
     {
-        return new FileSystemPseudoLock(propertiesDirectory, autoManageLockArguments.getPrefix(), autoManageLockArguments.getTimeoutMs(), autoManageLockArguments.getPollingMs());
+        return new FileSystemPseudoLock(propertiesDirectory, autoManageLockArguments.getPrefix(), autoManageLockArguments.getTimeoutMs(), autoManageLockArguments.getPollingMs(), autoManageLockArguments.getSettlingMs(), autoManageLockArguments.getLockKeySeparator());
     }
 
     @Override
     public LoadedInstanceConfig loadConfig() throws Exception
     {
-        File            propertiesFile = new File(propertiesDirectory, propertyFileName);
+        FileState       state = readState();
+        CachedConfig    cached = cachedConfig.get();
+        if ( (cached != null) && Objects.equal(cached.state, state) )
+        {
+            return cached.config;
+        }
+
         Properties      properties = new Properties();
-        if ( propertiesFile.exists() )
+        for ( int attempt = 1; state != null; ++attempt )
         {
-            RandomAccessFile    raf = new RandomAccessFile(propertiesFile, "rw");
+            FileState   readState = state;
             try
             {
-                FileLock        lock = raf.getChannel().lock();
+                properties = readProperties();
+            }
+            catch ( NoSuchFileException e )
+            {
+                properties = new Properties();
+                state = null;   // deleted since the stat
+                break;
+            }
+
+            // older instances truncate the file in place before writing it. A read that raced
+            // one of them sees an empty file or one that changed while being read.
+            state = readState();
+            if ( Objects.equal(readState, state) && ((state.size > 0) || (attempt >= MAX_READ_ATTEMPTS)) )
+            {
+                break;  // a stable empty file really is empty
+            }
+            if ( attempt >= MAX_READ_ATTEMPTS )
+            {
+                throw new IOException("Could not get a consistent read of: " + propertiesPath);
+            }
+            Thread.sleep(READ_RETRY_MS);
+            state = readState();
+        }
+        if ( state == null )
+        {
+            properties = new Properties();
+        }
+
+        PropertyBasedInstanceConfig config = new PropertyBasedInstanceConfig(properties, defaults);
+        LoadedInstanceConfig        loaded = new LoadedInstanceConfig(config, getVersion(state));
+        cachedConfig.set(new CachedConfig(state, loaded));
+        return loaded;
+    }
+
+    @Override
+    public LoadedInstanceConfig storeConfig(ConfigCollection config, long compareVersion) throws Exception
+    {
+        PropertyBasedInstanceConfig     propertyBasedInstanceConfig = new PropertyBasedInstanceConfig(config);
+
+        // the lock only serializes writers - readers see either the old or the new file
+        RandomAccessFile    lockFile = new RandomAccessFile(new File(propertiesDirectory, propertyFileName + LOCK_FILE_SUFFIX), "rw");
+        try
+        {
+            FileLock        lock = lockFile.getChannel().lock();
+            FileChannel     legacyChannel = lockLegacy();
+            try
+            {
+                if ( getVersion(readState()) != compareVersion )
+                {
+                    return null;
+                }
+
+                File        tempFile = File.createTempFile("." + propertyFileName, TEMP_FILE_SUFFIX, propertiesDirectory);
                 try
                 {
-                    properties.load(Channels.newInputStream(raf.getChannel()));
+                    FileOutputStream    fileStream = new FileOutputStream(tempFile);
+                    OutputStream        out = new BufferedOutputStream(fileStream);
+                    try
+                    {
+                        propertyBasedInstanceConfig.getProperties().store(out, "Auto-generated by Exhibitor");
+                        out.flush();
+                        fileStream.getFD().sync();
+                    }
+                    finally
+                    {
+                        CloseableUtils.closeQuietly(out);
+                    }
+
+                    if ( tempFile.lastModified() <= compareVersion )
+                    {
+                        // coarse mtime resolution - make sure the version still moves forward
+                        if ( !tempFile.setLastModified(compareVersion + 1000) )
+                        {
+                            throw new IOException("Could not set modified time of: " + tempFile);
+                        }
+                    }
+
+                    publish(tempFile.toPath());
                 }
                 finally
                 {
-                    lock.release();
+                    Files.deleteIfExists(tempFile.toPath());
                 }
+
+                return new LoadedInstanceConfig(propertyBasedInstanceConfig, getVersion(readState()));
             }
             finally
             {
-                CloseableUtils.closeQuietly(raf);
+                CloseableUtils.closeQuietly(legacyChannel);
+                lock.release();
             }
         }
-        PropertyBasedInstanceConfig config = new PropertyBasedInstanceConfig(properties, defaults);
-        return new LoadedInstanceConfig(config, propertiesFile.lastModified());
+        finally
+        {
+            CloseableUtils.closeQuietly(lockFile);
+        }
     }
 
-    @Override
-    public LoadedInstanceConfig storeConfig(ConfigCollection config, long compareVersion) throws Exception
+    // versions before the .lock file lock the properties file itself. Hold that lock as well so that
+    // writers on older instances are still excluded while an ensemble is being upgraded.
+    private FileChannel lockLegacy() throws IOException
     {
-        File                            propertiesFile = new File(propertiesDirectory, propertyFileName);
-        if ( propertiesFile.lastModified() != compareVersion )
+        FileChannel     channel;
+        try
+        {
+            channel = FileChannel.open(propertiesPath, StandardOpenOption.WRITE);
+        }
+        catch ( NoSuchFileException e )
         {
             return null;
         }
 
-        PropertyBasedInstanceConfig     propertyBasedInstanceConfig = new PropertyBasedInstanceConfig(config);
+        try
+        {
+            channel.lock(); // released when the channel is closed
+        }
+        catch ( IOException e )
+        {
+            CloseableUtils.closeQuietly(channel);
+            throw e;
+        }
+        return channel;
+    }
 
-        long                lastModified = 0;
-        FileOutputStream    fileStream = new FileOutputStream(propertiesFile);
-        OutputStream        out = new BufferedOutputStream(fileStream);
+    private Properties readProperties() throws IOException
+    {
+        Properties      properties = new Properties();
+        InputStream     in = Files.newInputStream(propertiesPath);
         try
         {
-            FileLock lock = fileStream.getChannel().lock();
-            try
-            {
-                propertyBasedInstanceConfig.getProperties().store(out, "Auto-generated by Exhibitor");
-                lastModified = propertiesFile.lastModified();
-            }
-            finally
+            properties.load(in);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(in);
+        }
+        return properties;
+    }
+
+    private void publish(Path tempPath) throws IOException
+    {
+        try
+        {
+            Files.move(tempPath, propertiesPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move(tempPath, propertiesPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private FileState readState() throws IOException
+    {
+        try
+        {
+            return new FileState(Files.readAttributes(propertiesPath, BasicFileAttributes.class));
+        }
+        catch ( NoSuchFileException e )
+        {
+            return null;
+        }
+    }
+
+    private static long getVersion(FileState state)
+    {
+        return (state != null) ? state.lastModified : 0;
+    }
+
+    private void watchLoop()
+    {
+        try
+        {
+            while ( !Thread.currentThread().isInterrupted() )
             {
-                lock.release();
+                WatchKey        key = watchService.take();
+                boolean         changed = false;
+                for ( WatchEvent<?> event : key.pollEvents() )
+                {
+                    if ( (event.kind() == StandardWatchEventKinds.OVERFLOW) || propertyFileName.equals(String.valueOf(event.context())) )
+                    {
+                        changed = true;
+                    }
+                }
+                if ( changed )
+                {
+                    cachedConfig.set(null);     // an in-place edit can keep mtime and size
+                    notifyWatcher();
+                }
+                if ( !key.reset() )
+                {
+                    log.warn("No longer watching " + propertiesDirectory);
+                    break;
+                }
             }
         }
-        finally
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( ClosedWatchServiceException e )
         {
-            CloseableUtils.closeQuietly(out);
+            // closed
         }
+    }
 
-        return new LoadedInstanceConfig(propertyBasedInstanceConfig, lastModified);
+    private void notifyWatcher()
+    {
+        ConfigWatcher       localWatcher = watcher.get();
+        if ( localWatcher != null )
+        {
+            try
+            {
+                localWatcher.configChanged(loadConfig());
+            }
+            catch ( Exception e )
+            {
+                log.error("Could not load changed config: " + propertiesPath, e);
+            }
+        }
     }
 }
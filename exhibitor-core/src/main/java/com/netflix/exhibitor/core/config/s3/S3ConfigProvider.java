@@ -17,6 +17,7 @@
 package com.netflix.exhibitor.core.config.s3;
 
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.netflix.exhibitor.core.config.ConfigCollection;
@@ -35,6 +36,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class S3ConfigProvider implements ConfigProvider
 {
@@ -42,6 +44,19 @@ public class S3ConfigProvider implements ConfigProvider
     private final S3Client s3Client;
     private final String hostname;
     private final Properties defaults;
+    private final AtomicReference<CachedConfig> cachedConfig = new AtomicReference<CachedConfig>();
+
+    private static class CachedConfig
+    {
+        private final String eTag;
+        private final LoadedInstanceConfig config;
+
+        private CachedConfig(String eTag, LoadedInstanceConfig config)
+        {
+            this.eTag = eTag;
+            this.config = config;
+        }
+    }
 
     /**
      * @param factory the factory
@@ -173,15 +188,49 @@ public class S3ConfigProvider implements ConfigProvider
     @Override
     public LoadedInstanceConfig loadConfig() throws Exception
     {
+        // only download and parse the config when its ETag has changed since the last load
+        CachedConfig        cached = cachedConfig.get();
+        GetObjectRequest    request = new GetObjectRequest(arguments.getBucket(), arguments.getKey());
+        if ( cached != null )
+        {
+            request.withNonmatchingETagConstraint(cached.eTag);
+        }
+
+        S3Object    object;
+        try
+        {
+            object = s3Client.getObject(request);
+            if ( (object == null) && (cached != null) )
+            {
+                return cached.config;   // not modified
+            }
+        }
+        catch ( AmazonS3Exception e )
+        {
+            if ( !isNotFoundError(e) )
+            {
+                throw e;
+            }
+            object = null;
+        }
+
         Date        lastModified;
+        String      eTag = null;
         Properties  properties = new Properties();
-        S3Object    object = getConfigObject();
         if ( object != null )
         {
             try
             {
-                lastModified = object.getObjectMetadata().getLastModified();
-                properties.load(object.getObjectContent());
+                if ( object.getObjectMetadata().getContentLength() > 0 )
+                {
+                    lastModified = object.getObjectMetadata().getLastModified();
+                    eTag = object.getObjectMetadata().getETag();
+                    properties.load(object.getObjectContent());
+                }
+                else
+                {
+                    lastModified = new Date(0L);
+                }
             }
             finally
             {
@@ -194,7 +243,9 @@ public class S3ConfigProvider implements ConfigProvider
         }
 
         PropertyBasedInstanceConfig config = new PropertyBasedInstanceConfig(properties, defaults);
-        return new LoadedInstanceConfig(config, lastModified.getTime());
+        LoadedInstanceConfig        loaded = new LoadedInstanceConfig(config, lastModified.getTime());
+        cachedConfig.set((eTag != null) ? new CachedConfig(eTag, loaded) : null);
+        return loaded;
     }
 
     @Override
@@ -219,6 +270,9 @@ public class S3ConfigProvider implements ConfigProvider
         byte[]                          bytes = out.toByteArray();
         ObjectMetadata                  metadata = S3Utils.simpleUploadFile(s3Client, bytes, arguments.getBucket(), arguments.getKey());
 
+        // the returned version is local - the next load must fetch the version S3 assigned
+        cachedConfig.set(null);
+
         return new LoadedInstanceConfig(propertyBasedInstanceConfig, metadata.getLastModified().getTime());
     }
 
@@ -227,7 +281,7 @@ public class S3ConfigProvider implements ConfigProvider
         try
         {
             ObjectMetadata metadata = s3Client.getObjectMetadata(arguments.getBucket(), arguments.getKey());
-            if ( metadata.getContentLength() > 0 )
+            if ( (metadata != null) && (metadata.getContentLength() > 0) )
             {
                 return metadata;
             }
@@ -242,26 +296,6 @@ public class S3ConfigProvider implements ConfigProvider
         return null;
     }
 
-    private S3Object getConfigObject() throws Exception
-    {
-        try
-        {
-            S3Object object = s3Client.getObject(arguments.getBucket(), arguments.getKey());
-            if ( object.getObjectMetadata().getContentLength() > 0 )
-            {
-                return object;
-            }
-        }
-        catch ( AmazonS3Exception e )
-        {
-            if ( !isNotFoundError(e) )
-            {
-                throw e;
-            }
-        }
-        return null;
-    }
-
     private boolean isNotFoundError(AmazonS3Exception e)
     {
         return (e.getStatusCode() == 404) || (e.getStatusCode() == 403);
@@ -22,7 +22,6 @@ import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
-import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.netflix.exhibitor.core.config.PseudoLockBase;
 import com.netflix.exhibitor.core.s3.S3Client;
@@ -108,19 +107,20 @@ public class S3PseudoLock extends PseudoLockBase
         ListObjectsRequest  request = new ListObjectsRequest();
         request.setBucketName(bucket);
         request.setPrefix(lockPrefix);
-        ObjectListing objectListing = client.listObjects(request);
-
-        return Lists.transform
-        (
-            objectListing.getObjectSummaries(),
-            new Function<S3ObjectSummary, String>()
+        List<String>        keys = Lists.newArrayList();
+        ObjectListing       objectListing = client.listObjects(request);
+        for(;;)
+        {
+            for ( S3ObjectSummary summary : objectListing.getObjectSummaries() )
             {
-                @Override
-                public String apply(S3ObjectSummary summary)
-                {
-                    return summary.getKey();
-                }
+                keys.add(summary.getKey());
             }
-        );
+            if ( !objectListing.isTruncated() )
+            {
+                break;
+            }
+            objectListing = client.listNextBatchOfObjects(objectListing);
+        }
+        return keys;
     }
 }
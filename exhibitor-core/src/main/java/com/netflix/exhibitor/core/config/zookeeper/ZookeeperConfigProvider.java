@@ -21,13 +21,16 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.netflix.exhibitor.core.config.ConfigCollection;
-import com.netflix.exhibitor.core.config.ConfigProvider;
+import com.netflix.exhibitor.core.config.ConfigWatcher;
 import com.netflix.exhibitor.core.config.LoadedInstanceConfig;
 import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
 import com.netflix.exhibitor.core.config.PseudoLock;
+import com.netflix.exhibitor.core.config.WatchableConfigProvider;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.recipes.cache.ChildData;
 import org.apache.curator.framework.recipes.cache.PathChildrenCache;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
+import org.apache.curator.framework.recipes.cache.PathChildrenCacheListener;
 import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.apache.curator.utils.CloseableUtils;
 import org.apache.curator.utils.ZKPaths;
@@ -39,7 +42,7 @@ import java.io.IOException;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicReference;
 
-public class ZookeeperConfigProvider implements ConfigProvider
+public class ZookeeperConfigProvider implements WatchableConfigProvider
 {
     private final PathChildrenCache cache;
     private final CuratorFramework client;
@@ -48,6 +51,7 @@ public class ZookeeperConfigProvider implements ConfigProvider
     private final String configPath;
     private final String lockPath;
     private final AtomicReference<State> state = new AtomicReference<State>(State.LATENT);
+    private final AtomicReference<ConfigWatcher> watcher = new AtomicReference<ConfigWatcher>();
 
     private enum State
     {
@@ -75,6 +79,29 @@ public class ZookeeperConfigProvider implements ConfigProvider
         configPath = ZKPaths.makePath(baseZPath, CONFIG_PATH);
         lockPath = ZKPaths.makePath(baseZPath, LOCK_PATH);
         cache = new PathChildrenCache(client, configPath, true);
+        cache.getListenable().addListener
+        (
+            new PathChildrenCacheListener()
+            {
+                @Override
+                public void childEvent(CuratorFramework client, PathChildrenCacheEvent event) throws Exception
+                {
+                    handleEvent(event);
+                }
+            }
+        );
+    }
+
+    @Override
+    public void setConfigWatcher(ConfigWatcher watcher)
+    {
+        this.watcher.set(watcher);
+    }
+
+    @Override
+    public boolean seesAllChanges()
+    {
+        return true;
     }
 
     @Override
@@ -95,10 +122,14 @@ public class ZookeeperConfigProvider implements ConfigProvider
 
     @Override
     public LoadedInstanceConfig loadConfig() throws Exception
+    {
+        return toLoadedConfig(getConfigNode());
+    }
+
+    private LoadedInstanceConfig toLoadedConfig(ChildData childData) throws IOException
     {
         int         version = -1;
         Properties  properties = new Properties();
-        ChildData   childData = getConfigNode();
         if ( childData != null )
         {
             version = childData.getStat().getVersion();
@@ -155,6 +186,39 @@ public class ZookeeperConfigProvider implements ConfigProvider
         return cache;
     }
 
+    private void handleEvent(PathChildrenCacheEvent event) throws IOException
+    {
+        ConfigWatcher       localWatcher = watcher.get();
+        if ( (localWatcher == null) || (state.get() != State.STARTED) )
+        {
+            return;
+        }
+
+        switch ( event.getType() )
+        {
+            case CHILD_ADDED:
+            case CHILD_UPDATED:
+            {
+                if ( isConfigNode(event.getData()) )
+                {
+                    localWatcher.configChanged(toLoadedConfig(event.getData()));
+                }
+                break;
+            }
+
+            default:
+            {
+                // other events are picked up by the periodic poll
+                break;
+            }
+        }
+    }
+
+    private static boolean isConfigNode(ChildData data)
+    {
+        return ZKPaths.getNodeFromPath(data.getPath()).equals(CONFIG_NODE_NAME);
+    }
+
     private ChildData getConfigNode()
     {
         return Iterables.find
@@ -165,7 +229,7 @@ public class ZookeeperConfigProvider implements ConfigProvider
                     @Override
                     public boolean apply(ChildData data)
                     {
-                        return ZKPaths.getNodeFromPath(data.getPath()).equals(CONFIG_NODE_NAME);
+                        return isConfigNode(data);
                     }
                 },
                 null
@@ -145,7 +145,17 @@ public class IndexProcessor
         {
             exhibitor.getLog().add(ActivityLog.Type.INFO, String.format("Index Build: indexing backup log %d of %d", ++index, availableBackups.size()));
 
-            BackupStream backupStream = exhibitor.getBackupManager().getBackupStream(metaData);
+            BackupStream backupStream;
+            try
+            {
+                backupStream = exhibitor.getBackupManager().getDecodedBackupStream(metaData);
+            }
+            catch ( IOException e )
+            {
+                // e.g. a backup in a format this build doesn't know - skip it rather than failing the whole index
+                exhibitor.getLog().add(ActivityLog.Type.ERROR, "Index Build: skipping backup that could not be decoded: " + metaData.getName(), e);
+                continue;
+            }
             if ( backupStream != null )
             {
                 try
@@ -17,6 +17,7 @@
 package com.netflix.exhibitor.core.processes;
 
 import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.EncodedConfigParser;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.StringConfigs;
@@ -53,7 +54,7 @@ class Details
         properties = new Properties();
         if ( isValid() )
         {
-            EncodedConfigParser     parser = new EncodedConfigParser(exhibitor.getConfigManager().getConfig().getString(StringConfigs.ZOO_CFG_EXTRA));
+            EncodedConfigParser     parser = ConfigSnapshot.of(config).getZooCfgExtra();
             for ( EncodedConfigParser.FieldValue fv : parser.getFieldValues() )
             {
                 properties.setProperty(fv.getField(), fv.getValue());
@@ -16,15 +16,19 @@
 
 package com.netflix.exhibitor.core.processes;
 
+import com.netflix.exhibitor.core.state.RestartTimeline;
+
 public interface ProcessOperations
 {
     /**
-     * Start the instance
-     *
+     * Start the instance. Returns once the process has been launched - the files written and process
+     * started phases are marked in the timeline as they happen. If the process can't be started,
+     * the process started phase must be failed.
      *
+     * @param timeline the timeline of the start
      * @throws Exception errors
      */
-    public void         startInstance() throws Exception;
+    public void         startInstance(RestartTimeline timeline) throws Exception;
 
     /**
      * Kill the instance
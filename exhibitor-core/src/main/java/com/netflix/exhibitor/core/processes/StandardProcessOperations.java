@@ -21,16 +21,16 @@ import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.activity.ActivityLog;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.StringConfigs;
+import com.netflix.exhibitor.core.state.DynamicReconfig;
+import com.netflix.exhibitor.core.state.RestartTimeline;
 import com.netflix.exhibitor.core.state.ServerSpec;
 import com.netflix.exhibitor.core.state.ServerType;
 import com.netflix.exhibitor.core.state.UsState;
 import org.apache.curator.utils.CloseableUtils;
 import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.Date;
@@ -39,9 +39,11 @@ import java.util.Properties;
 public class StandardProcessOperations implements ProcessOperations
 {
     private final Exhibitor exhibitor;
+    private final ZooKeeperProcess zooKeeperProcess = new ZooKeeperProcess();
 
-    private static final int    SLEEP_KILL_TIME_MS = 100;
-    private static final int    SLEEP_KILL_WAIT_COUNT = 3;
+    // ZooKeeper may need several seconds to shut down cleanly
+    private static final int    KILL_GRACE_MS = 15000;
+    private static final int    KILL_FORCE_MS = 5000;
 
     public StandardProcessOperations(Exhibitor exhibitor) throws IOException
     {
@@ -83,14 +85,19 @@ public class StandardProcessOperations implements ProcessOperations
 
         exhibitor.getProcessMonitor().destroy(ProcessTypes.ZOOKEEPER);
 
-        String pid = getPid();
-        if ( pid == null )
+        Details         details = new Details(exhibitor);
+        ProcessHandle   handle = zooKeeperProcess.find(ZooKeeperProcess.getPidFile(details.dataDirectory));
+        if ( handle == null )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "ZooKeeper process not found - assuming ZK is not running");
+        }
+        else if ( ZooKeeperProcess.terminate(handle, KILL_GRACE_MS, KILL_FORCE_MS) )
         {
-            exhibitor.getLog().add(ActivityLog.Type.INFO, "jps didn't find instance - assuming ZK is not running");
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Killed zookeeper process: " + handle.pid());
         }
         else
         {
-            waitForKill(pid);
+            throw new IOException("Could not kill zookeeper process: " + handle.pid());
         }
     }
 
@@ -99,11 +106,13 @@ public class StandardProcessOperations implements ProcessOperations
         Details         details = new Details(exhibitor);
         File            binDirectory = new File(details.zooKeeperDirectory, "bin");
         File            zkServerScript = new File(binDirectory, "zkServer.sh");
-        return new ProcessBuilder(zkServerScript.getAbsolutePath(), operation).directory(binDirectory.getParentFile());
+        ProcessBuilder  builder = new ProcessBuilder(zkServerScript.getAbsolutePath(), operation).directory(binDirectory.getParentFile());
+        builder.environment().put("ZOOPIDFILE", ZooKeeperProcess.getPidFile(details.dataDirectory).getAbsolutePath());
+        return builder;
     }
 
     @Override
-    public void startInstance() throws Exception
+    public void startInstance(final RestartTimeline timeline) throws Exception
     {
         Details         details = new Details(exhibitor);
         String          javaEnvironmentScript = exhibitor.getConfigManager().getConfig().getString(StringConfigs.JAVA_ENVIRONMENT);
@@ -123,11 +132,60 @@ public class StandardProcessOperations implements ProcessOperations
         }
 
 
+        timeline.mark(RestartTimeline.Phase.FILES_WRITTEN);
+
         ProcessBuilder  builder = buildZkServerScript("start");
+        Process         process;
+        try
+        {
+            process = builder.start();
+        }
+        catch ( IOException e )
+        {
+            timeline.fail(RestartTimeline.Phase.PROCESS_STARTED);
+            throw e;
+        }
 
-        exhibitor.getProcessMonitor().monitor(ProcessTypes.ZOOKEEPER, builder.start(), null, ProcessMonitor.Mode.LEAVE_RUNNING_ON_INTERRUPT, ProcessMonitor.Streams.BOTH);
+        exhibitor.getProcessMonitor().monitor(ProcessTypes.ZOOKEEPER, process, null, ProcessMonitor.Mode.LEAVE_RUNNING_ON_INTERRUPT, ProcessMonitor.Streams.BOTH);
 
         exhibitor.getLog().add(ActivityLog.Type.INFO, "Process started via: " + builder.command().get(0));
+
+        // zkServer.sh writes the pid file before it exits - track the server from then on
+        final File      pidFile = ZooKeeperProcess.getPidFile(details.dataDirectory);
+        process.onExit().thenRun(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                trackStartedInstance(pidFile, timeline);
+            }
+        });
+    }
+
+    private void trackStartedInstance(File pidFile, RestartTimeline timeline)
+    {
+        final ProcessHandle     handle = zooKeeperProcess.track(pidFile);
+        if ( handle == null )
+        {
+            timeline.fail(RestartTimeline.Phase.PROCESS_STARTED);
+            exhibitor.getLog().add(ActivityLog.Type.ERROR, "ZooKeeper process is not running after start. Pid file: " + pidFile);
+            return;
+        }
+        timeline.mark(RestartTimeline.Phase.PROCESS_STARTED);
+
+        exhibitor.getLog().add(ActivityLog.Type.INFO, "Tracking zookeeper process: " + handle.pid());
+        handle.onExit().thenRun(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if ( zooKeeperProcess.isTracked(handle) )
+                {
+                    exhibitor.getLog().add(ActivityLog.Type.INFO, "ZooKeeper process exited: " + handle.pid());
+                    exhibitor.getServerSnapshots().invalidate();
+                }
+            }
+        });
     }
 
     private void prepConfigFile(Details details) throws IOException
@@ -155,103 +213,53 @@ public class StandardProcessOperations implements ProcessOperations
 
         // those are required for exhibitor to work with ZK 3.5+
         localProperties.setProperty("4lw.commands.whitelist", "*");
-        localProperties.setProperty("admin.enableServer", "false");
 
-        localProperties.setProperty("clientPort", Integer.toString(usState.getConfig().getInt(IntConfigs.CLIENT_PORT)));
-
-        String          portSpec = String.format(":%d:%d", usState.getConfig().getInt(IntConfigs.CONNECT_PORT), usState.getConfig().getInt(IntConfigs.ELECTION_PORT));
-        for ( ServerSpec spec : usState.getServerList().getSpecs() )
+        int             adminServerPort = usState.getConfig().getInt(IntConfigs.ADMIN_SERVER_PORT);
+        if ( adminServerPort > 0 )
         {
-            localProperties.setProperty("server." + spec.getServerId(), spec.getHostname() + portSpec + spec.getServerType().getZookeeperConfigValue());
+            localProperties.setProperty("admin.enableServer", "true");
+            localProperties.setProperty("admin.serverPort", Integer.toString(adminServerPort));
         }
-
-        if ( (usState.getUs() != null) && (usState.getUs().getServerType() == ServerType.OBSERVER) )
+        else
         {
-            localProperties.setProperty("peerType", "observer");
+            localProperties.setProperty("admin.enableServer", "false");
         }
 
-        File            configFile = new File(details.configDirectory, "zoo.cfg");
-        OutputStream out = new BufferedOutputStream(new FileOutputStream(configFile));
-        try
-        {
-            localProperties.store(out, "Auto-generated by Exhibitor - " + new Date());
-        }
-        finally
-        {
-            CloseableUtils.closeQuietly(out);
-        }
-    }
+        localProperties.setProperty("clientPort", Integer.toString(usState.getConfig().getInt(IntConfigs.CLIENT_PORT)));
 
-    private String getPid() throws IOException
-    {
-        ProcessBuilder          builder = new ProcessBuilder("jps");
-        Process                 jpsProcess = builder.start();
-        String                  pid = null;
-        try
+        if ( DynamicReconfig.isEnabled(usState.getConfig()) )
         {
-            BufferedReader in = new BufferedReader(new InputStreamReader(jpsProcess.getInputStream()));
-            for(;;)
+            // server lines move to ZooKeeper's dynamic config file. Standalone must be off so that a single instance can grow
+            localProperties.setProperty("reconfigEnabled", "true");
+            localProperties.setProperty("standaloneEnabled", "false");
+            for ( ServerSpec spec : usState.getServerList().getSpecs() )
             {
-                String  line = in.readLine();
-                if ( line == null )
-                {
-                    break;
-                }
-                String[]  components = line.split("[ \t]");
-                if ( (components.length == 2) && components[1].equals("QuorumPeerMain") )
-                {
-                    pid = components[0];
-                    break;
-                }
+                localProperties.setProperty("server." + spec.getServerId(), DynamicReconfig.toServerValue(spec, usState.getConfig()));
             }
         }
-        finally
-        {
-            CloseableUtils.closeQuietly(jpsProcess.getErrorStream());
-            CloseableUtils.closeQuietly(jpsProcess.getInputStream());
-            CloseableUtils.closeQuietly(jpsProcess.getOutputStream());
-
-            jpsProcess.destroy();
-        }
-        return pid;
-    }
-
-    private void waitForKill(String pid) throws IOException, InterruptedException
-    {
-        boolean     success = false;
-        for ( int i = 0; i < SLEEP_KILL_WAIT_COUNT; ++i )
+        else
         {
-            internalKill(pid, i > 0);
-            Thread.sleep(i * SLEEP_KILL_TIME_MS);
-            if ( !pid.equals(getPid()) )
+            String          portSpec = String.format(":%d:%d", usState.getConfig().getInt(IntConfigs.CONNECT_PORT), usState.getConfig().getInt(IntConfigs.ELECTION_PORT));
+            for ( ServerSpec spec : usState.getServerList().getSpecs() )
             {
-                success = true;
-                break;  // assume it was successfully killed
+                localProperties.setProperty("server." + spec.getServerId(), spec.getHostname() + portSpec + spec.getServerType().getZookeeperConfigValue());
             }
         }
 
-        if ( !success )
+        if ( (usState.getUs() != null) && (usState.getUs().getServerType() == ServerType.OBSERVER) )
         {
-            exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not kill zookeeper process: " + pid);
+            localProperties.setProperty("peerType", "observer");
         }
-    }
 
-    private void internalKill(String pid, boolean force) throws IOException, InterruptedException
-    {
-        ProcessBuilder builder;
-        buildZkServerScript("start");
-        builder = force ? new ProcessBuilder("kill", "-9", pid) : buildZkServerScript("stop");
+        File            configFile = new File(details.configDirectory, "zoo.cfg");
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(configFile));
         try
         {
-            int     result = builder.start().waitFor();
-            exhibitor.getLog().add(ActivityLog.Type.INFO, "Kill attempted result: " + result);
+            localProperties.store(out, "Auto-generated by Exhibitor - " + new Date());
         }
-        catch ( InterruptedException e )
+        finally
         {
-            // don't reset thread interrupted status
-
-            exhibitor.getLog().add(ActivityLog.Type.ERROR, "Process interrupted while running: kill -9 " + pid);
-            throw e;
+            CloseableUtils.closeQuietly(out);
         }
     }
 }
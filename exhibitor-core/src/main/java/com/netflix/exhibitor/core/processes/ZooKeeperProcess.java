@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.processes;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tracks the identity of the managed ZooKeeper process without forking external tools. The process
+ * is found via the pid file that zkServer.sh writes and, failing that, by scanning the process table
+ * for QuorumPeerMain.
+ */
+class ZooKeeperProcess
+{
+    private final AtomicReference<ProcessHandle> tracked = new AtomicReference<ProcessHandle>();
+
+    static final String         MAIN_CLASS = "org.apache.zookeeper.server.quorum.QuorumPeerMain";
+    static final String         PID_FILE_NAME = "zookeeper_server.pid";
+
+    // allowance for file systems with coarse modification times
+    static final long           PID_FILE_SLACK_MS = 2000;
+
+    /**
+     * @param dataDirectory ZK data directory
+     * @return the pid file zkServer.sh is told to use
+     */
+    static File getPidFile(File dataDirectory)
+    {
+        return new File(dataDirectory, PID_FILE_NAME);
+    }
+
+    /**
+     * Start tracking the process named in the given pid file
+     *
+     * @param pidFile the pid file
+     * @return the process or null if it isn't running
+     */
+    ProcessHandle track(File pidFile)
+    {
+        ProcessHandle   handle = readPidFile(pidFile);
+        if ( (handle != null) && isZooKeeper(handle, pidFile) )
+        {
+            tracked.set(handle);
+            return handle;
+        }
+        return null;
+    }
+
+    /**
+     * @param handle a process
+     * @return true if the given process is the one currently being tracked
+     */
+    boolean isTracked(ProcessHandle handle)
+    {
+        return handle.equals(tracked.get());
+    }
+
+    /**
+     * Find the running ZooKeeper process
+     *
+     * @param pidFile the pid file
+     * @return the process or null if ZooKeeper isn't running
+     */
+    ProcessHandle find(File pidFile)
+    {
+        ProcessHandle   handle = tracked.get();
+        if ( (handle != null) && handle.isAlive() )
+        {
+            return handle;
+        }
+
+        handle = track(pidFile);
+        if ( handle == null )
+        {
+            Iterator<ProcessHandle>     iterator = ProcessHandle.allProcesses().iterator();
+            while ( iterator.hasNext() )
+            {
+                ProcessHandle   candidate = iterator.next();
+                if ( isQuorumPeerMain(candidate) )
+                {
+                    handle = candidate;
+                    tracked.set(handle);
+                    break;
+                }
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Ask the process to exit and, if it hasn't within the grace period, kill it forcibly
+     *
+     * @param handle the process
+     * @param graceMs time to wait for a normal exit
+     * @param forceMs time to wait for a forced exit
+     * @return true if the process has exited
+     * @throws InterruptedException if interrupted while waiting
+     */
+    static boolean terminate(ProcessHandle handle, long graceMs, long forceMs) throws InterruptedException
+    {
+        if ( handle.destroy() && waitForExit(handle, graceMs) )
+        {
+            return true;
+        }
+        handle.destroyForcibly();
+        return waitForExit(handle, forceMs);
+    }
+
+    /**
+     * Parse a pid file
+     *
+     * @param pidFile the file
+     * @return the process or null if the file doesn't exist or the process isn't alive
+     */
+    static ProcessHandle readPidFile(File pidFile)
+    {
+        if ( !pidFile.exists() )
+        {
+            return null;
+        }
+
+        try
+        {
+            long                    pid = Long.parseLong(Files.asCharSource(pidFile, StandardCharsets.UTF_8).read().trim());
+            Optional<ProcessHandle> handle = ProcessHandle.of(pid);
+            return handle.isPresent() && handle.get().isAlive() ? handle.get() : null;
+        }
+        catch ( IOException | NumberFormatException e )
+        {
+            return null;
+        }
+    }
+
+    private static boolean isZooKeeper(ProcessHandle handle, File pidFile)
+    {
+        ProcessHandle.Info      info = handle.info();
+        return isZooKeeper(info.arguments(), info.startInstant(), pidFile.lastModified());
+    }
+
+    /**
+     * Guard against pid reuse. The process must positively be ZooKeeper: its command line names
+     * QuorumPeerMain or, if the OS hides the command line, it was started no later than the pid
+     * file was written.
+     *
+     * @param arguments the process' arguments if known
+     * @param startInstant the process' start time if known
+     * @param pidFileModifiedMs modification time of the pid file (0 if unknown)
+     * @return true if the process can be treated as ZooKeeper
+     */
+    static boolean isZooKeeper(Optional<String[]> arguments, Optional<Instant> startInstant, long pidFileModifiedMs)
+    {
+        if ( arguments.isPresent() )
+        {
+            return isQuorumPeerMain(arguments);
+        }
+        return startInstant.isPresent() && (pidFileModifiedMs > 0) && (startInstant.get().toEpochMilli() <= (pidFileModifiedMs + PID_FILE_SLACK_MS));
+    }
+
+    private static boolean isQuorumPeerMain(ProcessHandle handle)
+    {
+        return isQuorumPeerMain(handle.info().arguments());
+    }
+
+    private static boolean isQuorumPeerMain(Optional<String[]> arguments)
+    {
+        if ( arguments.isPresent() )
+        {
+            for ( String argument : arguments.get() )
+            {
+                if ( argument.equals(MAIN_CLASS) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean waitForExit(ProcessHandle handle, long timeoutMs) throws InterruptedException
+    {
+        try
+        {
+            handle.onExit().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        }
+        catch ( TimeoutException e )
+        {
+            return !handle.isAlive();
+        }
+        catch ( ExecutionException e )
+        {
+            return !handle.isAlive();
+        }
+    }
+}
@@ -16,16 +16,18 @@
 
 package com.netflix.exhibitor.core.rest;
 
+import com.codahale.metrics.Snapshot;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.exhibitor.core.activity.ActivityQueue;
+import com.netflix.exhibitor.core.activity.ActivityStats;
 import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.automanage.ClusterStatusTask;
 import com.netflix.exhibitor.core.automanage.RemoteInstanceRequest;
-import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.IntConfigs;
-import com.netflix.exhibitor.core.config.StringConfigs;
 import com.netflix.exhibitor.core.controlpanel.ControlPanelTypes;
 import com.netflix.exhibitor.core.entities.Result;
 import com.netflix.exhibitor.core.entities.ServerStatus;
@@ -66,8 +68,8 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response getClusterStatus() throws Exception
     {
-        InstanceConfig      config = context.getExhibitor().getConfigManager().getConfig();
-        ServerList          serverList = new ServerList(config.getString(StringConfigs.SERVERS_SPEC));
+        ConfigSnapshot      config = context.getExhibitor().getConfigManager().getConfigSnapshot();
+        ServerList          serverList = config.getServerList();
 
         ClusterStatusTask   task = new ClusterStatusTask(context.getExhibitor(), serverList.getSpecs());
         List<ServerStatus>  statuses = context.getExhibitor().getForkJoinPool().invoke(task);
@@ -240,13 +242,11 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_JSON)
     public String getFourLetterWord(@PathParam("word") String word) throws Exception
     {
-        InstanceConfig config = context.getExhibitor().getConfigManager().getConfig();
-
         String      value;
         try
         {
             FourLetterWord.Word wordEnum = FourLetterWord.Word.valueOf(word.toUpperCase());
-            value = new FourLetterWord(wordEnum, config, context.getExhibitor().getConnectionTimeOutMs()).getResponse();
+            value = context.getExhibitor().getServerSnapshots().get(wordEnum).getResponse();
         }
         catch ( IllegalArgumentException e )
         {
@@ -261,7 +261,7 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_JSON)
     public String stopStartZooKeeper() throws Exception
     {
-        context.getExhibitor().getActivityQueue().add(QueueGroups.MAIN, new KillRunningInstance(context.getExhibitor(), true));
+        context.getExhibitor().getActivityQueue().add(QueueGroups.PROCESS, new KillRunningInstance(context.getExhibitor(), true));
 
         Result result = new Result("OK", true);
         return JsonUtil.writeValueAsString(result);
@@ -272,7 +272,7 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_JSON)
     public String stopZooKeeper() throws Exception
     {
-        context.getExhibitor().getActivityQueue().add(QueueGroups.MAIN, new KillRunningInstance(context.getExhibitor(), false));
+        context.getExhibitor().getActivityQueue().add(QueueGroups.PROCESS, new KillRunningInstance(context.getExhibitor(), false));
 
         Result result = new Result("OK", true);
         return JsonUtil.writeValueAsString(result);
@@ -283,7 +283,7 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_JSON)
     public String startZooKeeper() throws Exception
     {
-        context.getExhibitor().getActivityQueue().add(QueueGroups.MAIN, new StartInstance(context.getExhibitor()));
+        context.getExhibitor().getActivityQueue().add(QueueGroups.PROCESS, new StartInstance(context.getExhibitor()));
 
         Result result = new Result("OK", true);
         return JsonUtil.writeValueAsString(result);
@@ -352,12 +352,12 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_JSON)
     public String   getClusterAsJson() throws Exception
     {
-        InstanceConfig      config = context.getExhibitor().getConfigManager().getConfig();
+        ConfigSnapshot      config = context.getExhibitor().getConfigManager().getConfigSnapshot();
 
         ObjectNode          node = JsonNodeFactory.instance.objectNode();
 
         ArrayNode           serversNode = JsonNodeFactory.instance.arrayNode();
-        ServerList          serverList = new ServerList(config.getString(StringConfigs.SERVERS_SPEC));
+        ServerList          serverList = config.getServerList();
         for ( ServerSpec spec : serverList.getSpecs() )
         {
             serversNode.add(spec.getHostname());
@@ -373,11 +373,11 @@ public class ClusterResource
     @Produces(MediaType.APPLICATION_FORM_URLENCODED)
     public String   getClusterAsExhibitor() throws Exception
     {
-        InstanceConfig      config = context.getExhibitor().getConfigManager().getConfig();
+        ConfigSnapshot      config = context.getExhibitor().getConfigManager().getConfigSnapshot();
 
         StringBuilder       response = new StringBuilder();
 
-        ServerList          serverList = new ServerList(config.getString(StringConfigs.SERVERS_SPEC));
+        ServerList          serverList = config.getServerList();
         response.append("count=").append(serverList.getSpecs().size());
 
         int                 index = 0;
@@ -391,6 +391,56 @@ public class ClusterResource
         return response.toString();
     }
 
+    @Path("activities")
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public String   getActivityStats() throws Exception
+    {
+        ActivityQueue       activityQueue = context.getExhibitor().getActivityQueue();
+
+        ObjectNode          node = JsonNodeFactory.instance.objectNode();
+
+        ObjectNode          queuesNode = JsonNodeFactory.instance.objectNode();
+        for ( QueueGroups group : QueueGroups.values() )
+        {
+            ObjectNode      queueNode = JsonNodeFactory.instance.objectNode();
+            queueNode.put("depth", activityQueue.getQueueDepth(group));
+            queueNode.put("idle", activityQueue.isIdle(group));
+            queuesNode.set(group.name(), queueNode);
+        }
+        node.set("queues", queuesNode);
+
+        ArrayNode           activitiesNode = JsonNodeFactory.instance.arrayNode();
+        for ( ActivityStats.Entry entry : activityQueue.getActivityStats().getEntries() )
+        {
+            ObjectNode      activityNode = JsonNodeFactory.instance.objectNode();
+            activityNode.put("name", entry.getName());
+            activityNode.put("group", String.valueOf(entry.getLastGroup()));
+            activityNode.put("executions", entry.getExecutionCount());
+            activityNode.put("failures", entry.getFailureCount());
+            activityNode.put("timeouts", entry.getTimeoutCount());
+            activityNode.put("lastRunMs", entry.getLastRunMs());
+            activityNode.set("queueWaitMs", toJson(entry.getQueueWaitMs()));
+            activityNode.set("executionMs", toJson(entry.getExecutionMs()));
+            activitiesNode.add(activityNode);
+        }
+        node.set("activities", activitiesNode);
+
+        return JsonUtil.writeValueAsString(node);
+    }
+
+    private static ObjectNode toJson(Snapshot snapshot)
+    {
+        ObjectNode      node = JsonNodeFactory.instance.objectNode();
+        node.put("min", snapshot.getMin());
+        node.put("mean", snapshot.getMean());
+        node.put("p50", snapshot.getMedian());
+        node.put("p95", snapshot.get95thPercentile());
+        node.put("p99", snapshot.get99thPercentile());
+        node.put("max", snapshot.getMax());
+        return node;
+    }
+
     private String    makeRemoteRequest(String methodName, String hostname, boolean responseIsJson, Callable<String> proc, Object... values) throws Exception
     {
         String      remoteResponse;
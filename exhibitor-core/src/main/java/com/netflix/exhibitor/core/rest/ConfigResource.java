@@ -25,14 +25,15 @@ import com.google.common.collect.Lists;
 import com.google.common.hash.Hashing;
 import com.netflix.exhibitor.core.backup.BackupConfigSpec;
 import com.netflix.exhibitor.core.config.ConfigManager;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.EncodedConfigParser;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.PseudoLock;
 import com.netflix.exhibitor.core.config.StringConfigs;
 import com.netflix.exhibitor.core.entities.Result;
-import com.netflix.exhibitor.core.state.FourLetterWord;
 import com.netflix.exhibitor.core.state.ServerList;
+import com.netflix.exhibitor.core.state.ServerSnapshot;
 import com.netflix.exhibitor.core.state.ServerSpec;
 import com.netflix.exhibitor.core.state.UsState;
 import java.io.IOException;
@@ -67,10 +68,10 @@ public class ConfigResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response getSystemState(@Context Request request) throws Exception
     {
-        InstanceConfig              config = context.getExhibitor().getConfigManager().getConfig();
+        ConfigSnapshot              config = context.getExhibitor().getConfigManager().getConfigSnapshot();
 
-        String                      response = new FourLetterWord(FourLetterWord.Word.RUOK, config, context.getExhibitor().getConnectionTimeOutMs()).getResponse();
-        ServerList                  serverList = new ServerList(config.getString(StringConfigs.SERVERS_SPEC));
+        ServerSnapshot              snapshot = context.getExhibitor().getServerSnapshots().getSnapshot();
+        ServerList                  serverList = config.getServerList();
         ServerSpec                  us = UsState.findUs(context.getExhibitor(), serverList.getSpecs());
 
         ObjectNode                  mainNode = JsonNodeFactory.instance.objectNode();
@@ -78,7 +79,7 @@ public class ConfigResource
         ObjectNode                  controlPanelNode = JsonNodeFactory.instance.objectNode();
 
         mainNode.put("version", context.getExhibitor().getVersion());
-        mainNode.put("running", "imok".equals(response));
+        mainNode.put("running", snapshot.isOk());
         mainNode.put("backupActive", context.getExhibitor().getBackupManager().isActive());
         mainNode.put("standaloneMode", context.getExhibitor().getConfigManager().isStandaloneMode());
         mainNode.put("extraHeadingText", context.getExhibitor().getExtraHeadingText());
@@ -102,7 +103,7 @@ public class ConfigResource
             configNode.put(fixedName, value);
         }
 
-        EncodedConfigParser     zooCfgParser = new EncodedConfigParser(config.getString(StringConfigs.ZOO_CFG_EXTRA));
+        EncodedConfigParser     zooCfgParser = config.getZooCfgExtra();
         ObjectNode              zooCfgNode = JsonNodeFactory.instance.objectNode();
         for ( EncodedConfigParser.FieldValue fv : zooCfgParser.getFieldValues() )
         {
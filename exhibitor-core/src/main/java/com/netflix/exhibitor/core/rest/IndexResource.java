@@ -82,7 +82,7 @@ public class IndexResource
     @Produces(MediaType.APPLICATION_JSON)
     public Response newIndex() throws Exception
     {
-        context.getExhibitor().getActivityQueue().add(QueueGroups.IO, new IndexProcessorActivity(context.getExhibitor()));
+        context.getExhibitor().getActivityQueue().add(QueueGroups.INDEX, new IndexProcessorActivity(context.getExhibitor()));
         return Response.ok(new Result("OK", true)).build();
     }
 
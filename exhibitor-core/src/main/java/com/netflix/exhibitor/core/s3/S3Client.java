@@ -29,6 +29,15 @@ public interface S3Client extends Closeable
 
     public S3Object getObject(String bucket, String key) throws Exception;
 
+    /**
+     * Get an object, honoring any constraints in the request
+     *
+     * @param request the request
+     * @return the object or null if the request's constraints were not met
+     * @throws Exception errors
+     */
+    public S3Object getObject(GetObjectRequest request) throws Exception;
+
     public ObjectMetadata getObjectMetadata(String bucket, String key) throws Exception;
 
     public ObjectListing listObjects(ListObjectsRequest request) throws Exception;
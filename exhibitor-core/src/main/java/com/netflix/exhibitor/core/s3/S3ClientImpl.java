@@ -140,6 +140,21 @@ public class S3ClientImpl implements S3Client
         }
     }
 
+    @Override
+    public S3Object getObject(GetObjectRequest request) throws Exception
+    {
+        RefCountedClient holder = client.get();
+        AmazonS3 amazonS3Client = holder.useClient();
+        try
+        {
+            return amazonS3Client.getObject(request);
+        }
+        finally
+        {
+            holder.release();
+        }
+    }
+
     @Override
     public ObjectMetadata getObjectMetadata(String bucket, String key) throws Exception
     {
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.servo;
+
+import com.codahale.metrics.Histogram;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.netflix.servo.MonitorRegistry;
+import com.netflix.servo.monitor.BasicCompositeMonitor;
+import com.netflix.servo.monitor.BasicGauge;
+import com.netflix.servo.monitor.CompositeMonitor;
+import com.netflix.servo.monitor.Monitor;
+import com.netflix.servo.monitor.MonitorConfig;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A named group of Servo gauges that is published and removed as one composite monitor
+ */
+public class GaugeSet
+{
+    private final String                            name;
+    private final Map<String, String>               tags = Maps.newLinkedHashMap();
+    private final Map<String, Callable<Number>>     gauges = Maps.newLinkedHashMap();
+    private CompositeMonitor<?>                     registeredMonitor = null;   // protected by sync
+    private MonitorRegistry                         monitorRegistry = null;     // protected by sync
+
+    /**
+     * @param name name of the composite monitor
+     */
+    public GaugeSet(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Add a tag to the composite and to each of its gauges
+     *
+     * @param key tag key
+     * @param value tag value
+     * @return this
+     */
+    public GaugeSet withTag(String key, String value)
+    {
+        tags.put(key, value);
+        return this;
+    }
+
+    /**
+     * @param gaugeName gauge name
+     * @param value supplies the gauge's value
+     * @return this
+     */
+    public GaugeSet add(String gaugeName, Callable<Number> value)
+    {
+        gauges.put(gaugeName, value);
+        return this;
+    }
+
+    /**
+     * @param gaugeName gauge name
+     * @param value the gauge's value
+     * @return this
+     */
+    public GaugeSet add(String gaugeName, final AtomicLong value)
+    {
+        return add(gaugeName, new Callable<Number>()
+        {
+            @Override
+            public Number call() throws Exception
+            {
+                return value.get();
+            }
+        });
+    }
+
+    /**
+     * Add &lt;prefix&gt;_p50_ms, &lt;prefix&gt;_p99_ms and &lt;prefix&gt;_max_ms gauges for the given histogram
+     *
+     * @param prefix gauge name prefix
+     * @param histogram histogram of ms values
+     * @return this
+     */
+    public GaugeSet addHistogram(String prefix, final Histogram histogram)
+    {
+        add(prefix + "_p50_ms", new Callable<Number>()
+        {
+            @Override
+            public Number call() throws Exception
+            {
+                return histogram.getSnapshot().getMedian();
+            }
+        });
+        add(prefix + "_p99_ms", new Callable<Number>()
+        {
+            @Override
+            public Number call() throws Exception
+            {
+                return histogram.getSnapshot().get99thPercentile();
+            }
+        });
+        return add(prefix + "_max_ms", new Callable<Number>()
+        {
+            @Override
+            public Number call() throws Exception
+            {
+                return histogram.getSnapshot().getMax();
+            }
+        });
+    }
+
+    /**
+     * Publish the gauges. Any previous registration is removed first.
+     *
+     * @param registry registry to publish to
+     */
+    public synchronized void register(MonitorRegistry registry)
+    {
+        unregister();
+
+        List<Monitor<?>>    monitors = Lists.newArrayList();
+        for ( Map.Entry<String, Callable<Number>> entry : gauges.entrySet() )
+        {
+            monitors.add(new BasicGauge<Number>(buildConfig(entry.getKey()), entry.getValue()));
+        }
+        registeredMonitor = new BasicCompositeMonitor(buildConfig(name), monitors);
+        monitorRegistry = registry;
+        monitorRegistry.register(registeredMonitor);
+    }
+
+    /**
+     * Remove everything published via {@link #register(MonitorRegistry)}
+     */
+    public synchronized void unregister()
+    {
+        if ( (monitorRegistry != null) && (registeredMonitor != null) )
+        {
+            monitorRegistry.unregister(registeredMonitor);
+        }
+        registeredMonitor = null;
+        monitorRegistry = null;
+    }
+
+    private MonitorConfig buildConfig(String configName)
+    {
+        MonitorConfig.Builder   builder = MonitorConfig.builder(configName);
+        for ( Map.Entry<String, String> entry : tags.entrySet() )
+        {
+            builder.withTag(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+}
@@ -16,10 +16,9 @@
 
 package com.netflix.exhibitor.core.servo;
 
-import com.google.common.collect.Maps;
 import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.activity.Activity;
-import com.netflix.exhibitor.core.state.FourLetterWord;
+import com.netflix.exhibitor.core.state.ServerSnapshot;
 import java.util.List;
 import java.util.Map;
 
@@ -43,33 +42,14 @@ public class GetMonitorData implements Activity
     @Override
     public Boolean call() throws Exception
     {
-        List<String>            lines = new FourLetterWord(FourLetterWord.Word.MNTR, exhibitor.getThisJVMHostname(), exhibitor.getConfigManager().getConfig(), exhibitor.getConnectionTimeOutMs()).getResponseLines();
-        doUpdate(lines);
+        monitor.updateValues(exhibitor.getServerSnapshots().getSnapshot().getMonitorValues());
 
         return true;
     }
 
     public void doUpdate(List<String> lines)
     {
-        Map<String, Integer> values = Maps.newHashMap();
-        for ( String line : lines )
-        {
-            String[]        parts = line.split("\\s");
-            if ( parts.length == 2 )
-            {
-                try
-                {
-                    String  name = parts[0];
-                    int     value = Integer.parseInt(parts[1]);
-                    values.put(name, value);
-                }
-                catch ( NumberFormatException ignore )
-                {
-                    // ignore
-                }
-            }
-        }
-
+        Map<String, Number> values = ServerSnapshot.parseMonitorValues(lines);
         monitor.updateValues(values);
     }
 }
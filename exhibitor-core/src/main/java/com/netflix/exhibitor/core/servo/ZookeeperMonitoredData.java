@@ -17,78 +17,78 @@
 package com.netflix.exhibitor.core.servo;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.AtomicDouble;
 import com.netflix.servo.annotations.Monitor;
 import java.lang.reflect.Field;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.netflix.servo.annotations.DataSourceType.*;
 
 public class ZookeeperMonitoredData
 {
-    private final Map<String, AtomicInteger>        fieldMap;
+    private final Map<String, AtomicDouble>         fieldMap;
 
     /*
         See http://zookeeper.apache.org/doc/r3.4.4/zookeeperAdmin.html#sc_zkCommands
     */
     @Monitor(name="zk_avg_latency", type=GAUGE)
-    public final AtomicInteger     zk_avg_latency = new AtomicInteger(0);
+    public final AtomicDouble      zk_avg_latency = new AtomicDouble(0);
 
     @Monitor(name="zk_max_latency", type=GAUGE)
-    public final AtomicInteger     zk_max_latency = new AtomicInteger(0);
+    public final AtomicDouble      zk_max_latency = new AtomicDouble(0);
 
     @Monitor(name="zk_min_latency", type=GAUGE)
-    public final AtomicInteger     zk_min_latency = new AtomicInteger(0);
+    public final AtomicDouble      zk_min_latency = new AtomicDouble(0);
 
     @Monitor(name="zk_packets_received", type=COUNTER)
-    public final AtomicInteger     zk_packets_received = new AtomicInteger(0);
+    public final AtomicDouble      zk_packets_received = new AtomicDouble(0);
 
     @Monitor(name="zk_packets_sent", type=COUNTER)
-    public final AtomicInteger     zk_packets_sent = new AtomicInteger(0);
+    public final AtomicDouble      zk_packets_sent = new AtomicDouble(0);
 
     @Monitor(name="zk_outstanding_requests", type=GAUGE)
-    public final AtomicInteger     zk_outstanding_requests = new AtomicInteger(0);
+    public final AtomicDouble      zk_outstanding_requests = new AtomicDouble(0);
 
     @Monitor(name="zk_znode_count", type=GAUGE)
-    public final AtomicInteger     zk_znode_count = new AtomicInteger(0);
+    public final AtomicDouble      zk_znode_count = new AtomicDouble(0);
 
     @Monitor(name="zk_watch_count", type=GAUGE)
-    public final AtomicInteger     zk_watch_count = new AtomicInteger(0);
+    public final AtomicDouble      zk_watch_count = new AtomicDouble(0);
 
     @Monitor(name="zk_ephemerals_count", type=GAUGE)
-    public final AtomicInteger     zk_ephemerals_count = new AtomicInteger(0);
+    public final AtomicDouble      zk_ephemerals_count = new AtomicDouble(0);
 
     @Monitor(name="zk_approximate_data_size", type=GAUGE)
-    public final AtomicInteger     zk_approximate_data_size = new AtomicInteger(0);
+    public final AtomicDouble      zk_approximate_data_size = new AtomicDouble(0);
 
     @Monitor(name="zk_followers", type=GAUGE)
-    public final AtomicInteger     zk_followers = new AtomicInteger(0);
+    public final AtomicDouble      zk_followers = new AtomicDouble(0);
 
     @Monitor(name="zk_synced_followers", type=GAUGE)
-    public final AtomicInteger     zk_synced_followers = new AtomicInteger(0);
+    public final AtomicDouble      zk_synced_followers = new AtomicDouble(0);
 
     @Monitor(name="zk_pending_syncs", type=GAUGE)
-    public final AtomicInteger     zk_pending_syncs = new AtomicInteger(0);
+    public final AtomicDouble      zk_pending_syncs = new AtomicDouble(0);
 
     @Monitor(name="zk_open_file_descriptor_count", type=GAUGE)
-    public final AtomicInteger     zk_open_file_descriptor_count = new AtomicInteger(0);
+    public final AtomicDouble      zk_open_file_descriptor_count = new AtomicDouble(0);
 
     @Monitor(name="zk_max_file_descriptor_count", type=GAUGE)
-    public final AtomicInteger     zk_max_file_descriptor_count = new AtomicInteger(0);
+    public final AtomicDouble      zk_max_file_descriptor_count = new AtomicDouble(0);
 
     @Monitor(name="zk_num_alive_connections", type=GAUGE)
-    public final AtomicInteger     zk_num_alive_connections = new AtomicInteger(0);
+    public final AtomicDouble      zk_num_alive_connections = new AtomicDouble(0);
 
     public ZookeeperMonitoredData()
     {
-        ImmutableMap.Builder<String, AtomicInteger>         builder = ImmutableMap.builder();
+        ImmutableMap.Builder<String, AtomicDouble>          builder = ImmutableMap.builder();
         try
         {
             for ( Field f : getClass().getDeclaredFields() )
             {
                 if ( f.getName().startsWith("zk_") )
                 {
-                    builder.put(f.getName(), (AtomicInteger)f.get(this));
+                    builder.put(f.getName(), (AtomicDouble)f.get(this));
                 }
             }
         }
@@ -100,11 +100,11 @@ public class ZookeeperMonitoredData
         fieldMap = builder.build();
     }
 
-    public void updateValues(Map<String, Integer> newValues) {
-        for (Map.Entry<String, AtomicInteger> entry : fieldMap.entrySet()) {
-            Integer value = newValues.get(entry.getKey());
+    public void updateValues(Map<String, ? extends Number> newValues) {
+        for (Map.Entry<String, AtomicDouble> entry : fieldMap.entrySet()) {
+            Number value = newValues.get(entry.getKey());
             if (value != null) {
-                fieldMap.get(entry.getKey()).set(value);
+                fieldMap.get(entry.getKey()).set(value.doubleValue());
             } else {
                 fieldMap.get(entry.getKey()).set(0);
             }
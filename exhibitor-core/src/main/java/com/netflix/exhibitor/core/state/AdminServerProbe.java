@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Probes an instance via the JSON <code>/commands/monitor</code> command of ZooKeeper's AdminServer (3.5+).
+ * A single request returns the server state and all the MNTR metrics. Metric names are reported with
+ * the <code>zk_</code> prefix used by MNTR so that consumers don't need to know which backend was used.
+ */
+public class AdminServerProbe implements ServerProbe
+{
+    private static final Logger log = LoggerFactory.getLogger(AdminServerProbe.class);
+
+    private final HttpClient    client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+    private final ObjectMapper  mapper = new ObjectMapper();
+
+    @Override
+    public ListenableFuture<ServerSnapshot> submit(String hostname, InstanceConfig config, int timeoutMs)
+    {
+        final SettableFuture<ServerSnapshot>    future = SettableFuture.create();
+
+        URI                                     uri = URI.create("http://" + hostname + ":" + config.getInt(IntConfigs.ADMIN_SERVER_PORT) + "/commands/monitor");
+        HttpRequest                             request = HttpRequest.newBuilder(uri).timeout(Duration.ofMillis(timeoutMs)).GET().build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete(new BiConsumer<HttpResponse<String>, Throwable>()
+        {
+            @Override
+            public void accept(HttpResponse<String> response, Throwable exception)
+            {
+                ServerSnapshot      snapshot;
+                if ( exception != null )
+                {
+                    log.debug("AdminServer probe failed: " + uri, exception);
+                    snapshot = newDownSnapshot();
+                }
+                else
+                {
+                    snapshot = parse(response.body());
+                }
+                future.set(snapshot);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Parse the response of the monitor command
+     *
+     * @param json the response
+     * @return snapshot
+     */
+    ServerSnapshot parse(String json)
+    {
+        JsonNode        node;
+        try
+        {
+            node = mapper.readTree(json);
+        }
+        catch ( IOException e )
+        {
+            log.debug("Could not parse AdminServer response: " + json, e);
+            return newDownSnapshot();
+        }
+        if ( (node == null) || !node.isObject() )
+        {
+            return newDownSnapshot();
+        }
+
+        JsonNode        error = node.get("error");
+        if ( (error != null) && !error.isNull() )
+        {
+            InstanceStateTypes  state = error.asText().contains("not currently serving") ? InstanceStateTypes.NOT_SERVING : InstanceStateTypes.DOWN;
+            return new ServerSnapshot(true, state, null, ImmutableMap.<String, Number>of());
+        }
+
+        Map<String, Number>     values = Maps.newHashMap();
+        for ( Map.Entry<String, JsonNode> field : node.properties() )
+        {
+            if ( field.getValue().isNumber() )
+            {
+                values.put("zk_" + field.getKey(), field.getValue().numberValue());
+            }
+        }
+
+        JsonNode        serverState = node.get("server_state");
+        String          mode = ((serverState != null) && !serverState.isNull()) ? serverState.asText().toLowerCase() : null;
+        return new ServerSnapshot(true, InstanceStateTypes.SERVING, mode, values);
+    }
+
+    private static ServerSnapshot newDownSnapshot()
+    {
+        return new ServerSnapshot(false, InstanceStateTypes.DOWN, null, ImmutableMap.<String, Number>of());
+    }
+}
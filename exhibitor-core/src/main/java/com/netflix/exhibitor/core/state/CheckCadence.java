@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+/**
+ * Computes the period until the next instance check. Checks run rapidly right after the instance
+ * changes state or leadership and slow back down to the configured period. A follower that stays
+ * serving backs off further to {@link #MAX_BACKOFF_FACTOR} times the configured period - the leader
+ * and instances in any other state are never checked less often than the configured period.<br>
+ * <br>
+ * NOTE: not thread safe
+ */
+class CheckCadence
+{
+    private InstanceStateTypes      lastState = null;
+    private boolean                 lastIsLeader = false;
+    private int                     stableChecks = 0;
+
+    static final int        RAPID_DIVISOR = 8;
+    static final int        MAX_BACKOFF_FACTOR = 2;
+
+    // doublings needed to go from the rapid period to the longest period (one extra covers the rounding of the rapid period)
+    private static final int    MAX_STABLE_CHECKS = Integer.SIZE - Integer.numberOfLeadingZeros(RAPID_DIVISOR * MAX_BACKOFF_FACTOR);
+
+    /**
+     * Record the result of a check
+     *
+     * @param state the instance state
+     * @param isLeader true if the instance is the leader
+     * @param checkMs configured check period
+     * @return period until the next check
+     */
+    long update(InstanceStateTypes state, boolean isLeader, int checkMs)
+    {
+        boolean     isTransition = (lastState != null) && ((state != lastState) || (isLeader != lastIsLeader));
+        if ( isTransition )
+        {
+            stableChecks = 0;
+        }
+        else if ( stableChecks < MAX_STABLE_CHECKS )
+        {
+            ++stableChecks;
+        }
+        lastState = state;
+        lastIsLeader = isLeader;
+
+        return getPeriodMs(checkMs);
+    }
+
+    /**
+     * Return the period until the next check for the checks recorded so far - e.g. when the
+     * configured check period changes
+     *
+     * @param checkMs configured check period
+     * @return period until the next check
+     */
+    long getPeriodMs(int checkMs)
+    {
+        long        rapidMs = Math.max(1, checkMs / RAPID_DIVISOR);
+        if ( lastState == null )
+        {
+            return checkMs;
+        }
+
+        boolean     isStableFollower = (lastState == InstanceStateTypes.SERVING) && !lastIsLeader;
+        long        maxMs = isStableFollower ? ((long)checkMs * MAX_BACKOFF_FACTOR) : checkMs;
+
+        // double for each consecutive check without a change
+        long        periodMs = rapidMs;
+        for ( int i = 0; (i < stableChecks) && (periodMs < maxMs); ++i )
+        {
+            periodMs *= 2;
+        }
+        return Math.max(Math.min(periodMs, maxMs), rapidMs);
+    }
+}
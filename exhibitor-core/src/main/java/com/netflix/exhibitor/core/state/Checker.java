@@ -19,7 +19,6 @@ package com.netflix.exhibitor.core.state;
 import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.StringConfigs;
-import java.util.List;
 
 public class Checker
 {
@@ -46,41 +45,18 @@ public class Checker
             return new StateAndLeader(InstanceStateTypes.LATENT, false);
         }
 
-        InstanceStateTypes      actualState = InstanceStateTypes.DOWN;
-        boolean                 isLeader = false;
-        String                  ruok = new FourLetterWord(FourLetterWord.Word.RUOK, hostname, config, exhibitor.getConnectionTimeOutMs()).getResponse();
-        if ( "imok".equals(ruok) )
+        ServerSnapshot          snapshot;
+        if ( hostname.equals("localhost") )
         {
-            // The following code depends on inside knowledge of the "srvr" response. If they change it
-            // this code might break
-
-            List<String> lines = new FourLetterWord(FourLetterWord.Word.SRVR, hostname, config, exhibitor.getConnectionTimeOutMs()).getResponseLines();
-            for ( String line : lines )
-            {
-                if ( line.contains("not currently serving") )
-                {
-                    actualState = InstanceStateTypes.NOT_SERVING;
-                    break;
-                }
-
-                if ( line.toLowerCase().startsWith("mode") )
-                {
-                    actualState = InstanceStateTypes.SERVING;
-                    String[]        parts = line.split(":");
-                    if ( parts.length > 1 )
-                    {
-                        String mode = parts[1].trim();
-                        if ( mode.equalsIgnoreCase("leader") || mode.equalsIgnoreCase("standalone") )
-                        {
-                            isLeader = true;
-                        }
-                    }
-                    break;
-                }
-            }
+            snapshot = exhibitor.getServerSnapshots().getSnapshot(false);
+        }
+        else
+        {
+            ServerProbe     probe = exhibitor.getServerSnapshots().getProbe(config, false);
+            snapshot = probe.submit(hostname, config, exhibitor.getConnectionTimeOutMs()).get();
         }
 
-        return new StateAndLeader(actualState, isLeader);
+        return new StateAndLeader(snapshot.getState(), snapshot.isLeader());
     }
 
     private boolean isSet(InstanceConfig config, StringConfigs type)
@@ -23,6 +23,7 @@ import com.netflix.exhibitor.core.activity.OnOffRepeatingActivity;
 import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.activity.RepeatingActivity;
 import com.netflix.exhibitor.core.activity.RepeatingActivityImpl;
+import com.netflix.exhibitor.core.config.ConfigDiff;
 import com.netflix.exhibitor.core.config.ConfigListener;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.controlpanel.ControlPanelTypes;
@@ -84,11 +85,12 @@ public class CleanupManager implements Closeable
             new ConfigListener()
             {
                 @Override
-                public void configUpdated()
+                public void configUpdated(ConfigDiff diff)
                 {
-                    repeatingActivity.setTimePeriodMs(exhibitor.getConfigManager().getConfig().getInt(IntConfigs.CLEANUP_PERIOD_MS));
+                    repeatingActivity.setTimePeriodMs(diff.getNewConfig().getInt(IntConfigs.CLEANUP_PERIOD_MS));
                 }
-            }
+            },
+            IntConfigs.CLEANUP_PERIOD_MS
         );
     }
 
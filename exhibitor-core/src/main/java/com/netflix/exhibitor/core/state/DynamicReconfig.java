@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies server list changes to the running ensemble with ZooKeeper's incremental reconfig. The
+ * server list in the config is the desired membership - each call compares it to the ensemble's
+ * current config and issues whatever joining/leaving operations are needed.
+ */
+public class DynamicReconfig
+{
+    private final Exhibitor     exhibitor;
+
+    private static final String     SERVER_PREFIX = "server.";
+    private static final String     VERSION_KEY = "version";
+    private static final String     PARTICIPANT = "participant";
+    private static final String     OBSERVER = "observer";
+
+    @VisibleForTesting
+    static class Change
+    {
+        final List<String>      joining;
+        final List<String>      leaving;
+
+        Change(List<String> joining, List<String> leaving)
+        {
+            this.joining = joining;
+            this.leaving = leaving;
+        }
+
+        boolean isEmpty()
+        {
+            return joining.isEmpty() && leaving.isEmpty();
+        }
+    }
+
+    public DynamicReconfig(Exhibitor exhibitor)
+    {
+        this.exhibitor = exhibitor;
+    }
+
+    public static boolean isEnabled(InstanceConfig config)
+    {
+        return config.getInt(IntConfigs.DYNAMIC_RECONFIG) != 0;
+    }
+
+    /**
+     * Return the dynamic config value for the given server - e.g. <code>host:2888:3888:participant;2181</code>
+     *
+     * @param spec the server
+     * @param config config for ports
+     * @return server value
+     */
+    public static String toServerValue(ServerSpec spec, InstanceConfig config)
+    {
+        String      role = (spec.getServerType() == ServerType.OBSERVER) ? OBSERVER : PARTICIPANT;
+        return String.format("%s:%d:%d:%s;%d", spec.getHostname(), config.getInt(IntConfigs.CONNECT_PORT), config.getInt(IntConfigs.ELECTION_PORT), role, config.getInt(IntConfigs.CLIENT_PORT));
+    }
+
+    /**
+     * Bring the membership of the running ensemble in line with the server list of the given config
+     *
+     * @param config config with the desired server list
+     * @return true if the ensemble was reconfigured
+     * @throws Exception errors
+     */
+    public boolean reconcile(InstanceConfig config) throws Exception
+    {
+        ServerList          serverList = ConfigSnapshot.of(config).getServerList();
+        if ( serverList.getSpecs().isEmpty() )
+        {
+            return false;   // standalone
+        }
+
+        CuratorFramework    client = exhibitor.getLocalConnection();
+        String              currentConfig = new String(client.getConfig().forEnsemble(), StandardCharsets.UTF_8);
+        Change              change = computeChange(currentConfig, serverList, config);
+        if ( change.isEmpty() )
+        {
+            return false;
+        }
+
+        exhibitor.getLog().add(ActivityLog.Type.INFO, "Reconfiguring ensemble. Joining: " + change.joining + " Leaving: " + change.leaving);
+        try
+        {
+            client.reconfig().joining(change.joining).leaving(change.leaving).fromConfig(getVersion(currentConfig)).forEnsemble();
+        }
+        catch ( KeeperException.NewConfigNoQuorum e )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "New servers have not synced with the ensemble yet. Will retry the reconfig.");
+            return false;
+        }
+        catch ( KeeperException.BadVersionException | KeeperException.ReconfigInProgress e )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Ensemble config changed during reconfig. Will retry.");
+            return false;
+        }
+        exhibitor.getLog().add(ActivityLog.Type.INFO, "Ensemble reconfigured");
+        return true;
+    }
+
+    @VisibleForTesting
+    static Change computeChange(String currentConfig, ServerList serverList, InstanceConfig config)
+    {
+        Map<String, String>     current = getServers(currentConfig);
+
+        ImmutableList.Builder<String>   joining = ImmutableList.builder();
+        for ( ServerSpec spec : serverList.getSpecs() )
+        {
+            String      id = Integer.toString(spec.getServerId());
+            String      value = toServerValue(spec, config);
+            String      currentValue = current.remove(id);
+            if ( (currentValue == null) || !getQuorumPart(currentValue).equals(getQuorumPart(value)) )
+            {
+                joining.add(SERVER_PREFIX + id + "=" + value);   // adding an existing id changes its address or role
+            }
+        }
+        return new Change(joining.build(), ImmutableList.copyOf(current.keySet()));
+    }
+
+    @VisibleForTesting
+    static long getVersion(String currentConfig)
+    {
+        for ( String line : currentConfig.split("\n") )
+        {
+            String[]        parts = line.trim().split("=", 2);
+            if ( (parts.length == 2) && parts[0].trim().equals(VERSION_KEY) )
+            {
+                return Long.parseLong(parts[1].trim(), 16);
+            }
+        }
+        return -1;
+    }
+
+    private static Map<String, String> getServers(String currentConfig)
+    {
+        Map<String, String>     servers = Maps.newTreeMap();
+        for ( String line : currentConfig.split("\n") )
+        {
+            String[]        parts = line.trim().split("=", 2);
+            if ( (parts.length == 2) && parts[0].startsWith(SERVER_PREFIX) )
+            {
+                servers.put(parts[0].substring(SERVER_PREFIX.length()).trim(), parts[1].trim());
+            }
+        }
+        return servers;
+    }
+
+    // host:port:port:role - the client address is ignored as ZooKeeper reports the address it bound to
+    private static String getQuorumPart(String value)
+    {
+        String          quorumPart = value.split(";", 2)[0].trim();
+        String[]        parts = quorumPart.split(":");
+        if ( parts.length == 3 )
+        {
+            return Joiner.on(':').join(parts[0], parts[1], parts[2], PARTICIPANT);
+        }
+        return quorumPart;
+    }
+}
@@ -26,6 +26,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,11 @@ public class FourLetterWord
         MNTR
     }
 
+    FourLetterWord(String response)
+    {
+        this.response = response;
+    }
+
     public FourLetterWord(Word word, InstanceConfig config, int connectionTimeOutMs)
     {
         this(word, "localhost", config, connectionTimeOutMs);
@@ -62,7 +68,8 @@ public class FourLetterWord
         Socket  s = null;
         try
         {
-            s = new Socket(hostname, config.getInt(IntConfigs.CLIENT_PORT));
+            s = new Socket();
+            s.connect(new InetSocketAddress(hostname, config.getInt(IntConfigs.CLIENT_PORT)), connectionTimeOutMs);
             s.setTcpNoDelay(true);
             s.setSoTimeout(connectionTimeOutMs);
 
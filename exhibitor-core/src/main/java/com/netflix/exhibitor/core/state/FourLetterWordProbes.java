@@ -0,0 +1,358 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Issues four letter word commands without blocking. All probes - local or remote - are multiplexed
+ * over a single selector thread and each probe has a strict timeout covering connect, write and read.
+ * As with {@link FourLetterWord}, a probe that fails or times out completes with an empty response.
+ */
+public class FourLetterWordProbes implements Closeable
+{
+    private static final Logger log = LoggerFactory.getLogger(FourLetterWordProbes.class);
+
+    private final Selector                          selector;
+    private final ExecutorService                   service = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("FourLetterWordProbes-%d").setDaemon(true).build());
+    private final Queue<Probe>                      newProbes = new ConcurrentLinkedQueue<Probe>();
+    private final AtomicReference<State>            state = new AtomicReference<State>(State.LATENT);
+
+    private static final int        READ_BUFFER_SIZE = 8192;
+
+    private enum State
+    {
+        LATENT,
+        STARTED,
+        CLOSED
+    }
+
+    private static class Probe implements Comparable<Probe>
+    {
+        private final SettableFuture<FourLetterWord>    future = SettableFuture.create();
+        private final InetSocketAddress                 address;
+        private final ByteBuffer                        request;
+        private final ByteArrayOutputStream             response = new ByteArrayOutputStream();
+        private final long                              deadlineNs;
+        private SocketChannel                           channel;
+
+        private Probe(InetSocketAddress address, FourLetterWord.Word word, long deadlineNs)
+        {
+            this.address = address;
+            this.request = ByteBuffer.wrap(word.name().toLowerCase().getBytes(StandardCharsets.UTF_8));
+            this.deadlineNs = deadlineNs;
+        }
+
+        @Override
+        public int compareTo(Probe rhs)
+        {
+            return Long.compare(deadlineNs, rhs.deadlineNs);
+        }
+    }
+
+    public FourLetterWordProbes() throws IOException
+    {
+        this(Selector.open());
+    }
+
+    @VisibleForTesting
+    FourLetterWordProbes(Selector selector)
+    {
+        this.selector = selector;
+    }
+
+    /**
+     * The engine must be started. Probes submitted before then are queued.
+     */
+    public void start()
+    {
+        Preconditions.checkState(state.compareAndSet(State.LATENT, State.STARTED), "Already started");
+        service.submit
+        (
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    runLoop();
+                }
+            }
+        );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        State       previous = state.getAndSet(State.CLOSED);
+        if ( previous == State.LATENT )
+        {
+            // the loop never ran so it won't close the selector or drain the queued probes
+            service.shutdown();
+            for ( Probe probe = newProbes.poll(); probe != null; probe = newProbes.poll() )
+            {
+                complete(probe, false);
+            }
+            selector.close();
+        }
+        else if ( previous == State.STARTED )
+        {
+            selector.wakeup();
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Issue a command asynchronously
+     *
+     * @param word the command
+     * @param hostname server
+     * @param port server client port
+     * @param timeoutMs max time for the entire probe
+     * @return the response - the future never fails; on errors the response is empty
+     */
+    public ListenableFuture<FourLetterWord> submit(FourLetterWord.Word word, String hostname, int port, int timeoutMs)
+    {
+        Preconditions.checkNotNull(word, "word cannot be null");
+
+        Probe       probe = new Probe(new InetSocketAddress(hostname, port), word, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+        if ( state.get() == State.CLOSED )
+        {
+            complete(probe, false);
+        }
+        else
+        {
+            newProbes.add(probe);
+            selector.wakeup();
+            if ( (state.get() == State.CLOSED) && newProbes.remove(probe) )
+            {
+                complete(probe, false); // closed concurrently - the loop won't see it
+            }
+        }
+        return probe.future;
+    }
+
+    /**
+     * Issue a command and wait for the result
+     *
+     * @param word the command
+     * @param hostname server
+     * @param config config - used for the client port
+     * @param timeoutMs max time for the entire probe
+     * @return the response
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public FourLetterWord probe(FourLetterWord.Word word, String hostname, InstanceConfig config, int timeoutMs) throws InterruptedException
+    {
+        return get(submit(word, hostname, config.getInt(IntConfigs.CLIENT_PORT), timeoutMs));
+    }
+
+    /**
+     * Wait for the result of {@link #submit(FourLetterWord.Word, String, int, int)}
+     *
+     * @param future the future
+     * @return the response
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static FourLetterWord get(ListenableFuture<FourLetterWord> future) throws InterruptedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( ExecutionException e )
+        {
+            // futures are never failed - this is here for completeness
+            return new FourLetterWord("");
+        }
+    }
+
+    private void runLoop()
+    {
+        PriorityQueue<Probe>    deadlines = new PriorityQueue<Probe>();
+        ByteBuffer              readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try
+        {
+            while ( state.get() == State.STARTED )
+            {
+                for ( Probe probe = newProbes.poll(); probe != null; probe = newProbes.poll() )
+                {
+                    if ( open(probe) )
+                    {
+                        deadlines.add(probe);
+                    }
+                }
+
+                long        waitMs = 0;
+                Probe       next = deadlines.peek();
+                if ( next != null )
+                {
+                    waitMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(next.deadlineNs - System.nanoTime()));
+                }
+                selector.select(waitMs);
+
+                for ( SelectionKey key : selector.selectedKeys() )
+                {
+                    handle(key, readBuffer);
+                }
+                selector.selectedKeys().clear();
+
+                long        nowNs = System.nanoTime();
+                while ( !deadlines.isEmpty() && (deadlines.peek().future.isDone() || (deadlines.peek().deadlineNs <= nowNs)) )
+                {
+                    Probe   probe = deadlines.poll();
+                    if ( !probe.future.isDone() )
+                    {
+                        complete(probe, false);
+                    }
+                }
+            }
+        }
+        catch ( Throwable e )
+        {
+            log.error("Four letter word probe loop failed", e);
+        }
+        finally
+        {
+            // if the loop died nothing would ever read newProbes again - make submit() fail fast instead
+            state.set(State.CLOSED);
+            service.shutdown();
+
+            for ( Probe probe : deadlines )
+            {
+                complete(probe, false);
+            }
+            for ( Probe probe = newProbes.poll(); probe != null; probe = newProbes.poll() )
+            {
+                complete(probe, false);
+            }
+            try
+            {
+                selector.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+    private boolean open(Probe probe)
+    {
+        try
+        {
+            if ( probe.address.isUnresolved() )
+            {
+                throw new IOException("Could not resolve: " + probe.address);
+            }
+
+            probe.channel = SocketChannel.open();
+            probe.channel.configureBlocking(false);
+            probe.channel.socket().setTcpNoDelay(true);
+            int     ops = probe.channel.connect(probe.address) ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT;
+            probe.channel.register(selector, ops, probe);
+            return true;
+        }
+        catch ( IOException e )
+        {
+            complete(probe, false);  // treat as server not running
+        }
+        catch ( RuntimeException e )
+        {
+            complete(probe, false);  // the probe is in neither queue now - don't strand it when the loop dies
+            throw e;
+        }
+        return false;
+    }
+
+    private void handle(SelectionKey key, ByteBuffer readBuffer)
+    {
+        Probe       probe = (Probe)key.attachment();
+        try
+        {
+            if ( key.isConnectable() && probe.channel.finishConnect() )
+            {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+            else if ( key.isWritable() )
+            {
+                probe.channel.write(probe.request);
+                if ( !probe.request.hasRemaining() )
+                {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            }
+            else if ( key.isReadable() )
+            {
+                readBuffer.clear();
+                int     count = probe.channel.read(readBuffer);
+                if ( count < 0 )
+                {
+                    complete(probe, true); // the server closes the connection once the response is written
+                }
+                else
+                {
+                    probe.response.write(readBuffer.array(), 0, count);
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            complete(probe, false);
+        }
+    }
+
+    private void complete(Probe probe, boolean success)
+    {
+        if ( probe.channel != null )
+        {
+            try
+            {
+                probe.channel.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+        probe.future.set(new FourLetterWord(success ? new String(probe.response.toByteArray(), StandardCharsets.UTF_8) : ""));
+    }
+}
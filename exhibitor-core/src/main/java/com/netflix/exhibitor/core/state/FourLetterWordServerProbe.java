@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import java.util.List;
+
+/**
+ * Probes an instance via the RUOK, SRVR and (optionally) MNTR four letter words. The words are
+ * issued at once so a probe costs one round trip.
+ */
+public class FourLetterWordServerProbe implements ServerProbe
+{
+    private final FourLetterWordProbes probes;
+    private final boolean includeMonitorValues;
+
+    /**
+     * @param probes the probe engine
+     * @param includeMonitorValues if true, MNTR is issued as well
+     */
+    public FourLetterWordServerProbe(FourLetterWordProbes probes, boolean includeMonitorValues)
+    {
+        this.probes = probes;
+        this.includeMonitorValues = includeMonitorValues;
+    }
+
+    @Override
+    public ListenableFuture<ServerSnapshot> submit(String hostname, InstanceConfig config, int timeoutMs)
+    {
+        int                                         port = config.getInt(IntConfigs.CLIENT_PORT);
+        ListenableFuture<FourLetterWord>            ruok = probes.submit(FourLetterWord.Word.RUOK, hostname, port, timeoutMs);
+        ListenableFuture<FourLetterWord>            srvr = probes.submit(FourLetterWord.Word.SRVR, hostname, port, timeoutMs);
+        ListenableFuture<FourLetterWord>            mntr = includeMonitorValues ? probes.submit(FourLetterWord.Word.MNTR, hostname, port, timeoutMs) : Futures.immediateFuture(new FourLetterWord(""));
+
+        ListenableFuture<List<FourLetterWord>>      all = Futures.allAsList(ruok, srvr, mntr);
+        return Futures.transform(all, new Function<List<FourLetterWord>, ServerSnapshot>()
+        {
+            @Override
+            public ServerSnapshot apply(List<FourLetterWord> words)
+            {
+                return ServerSnapshot.fromFourLetterWords(words.get(0), words.get(1), words.get(2));
+            }
+        }, MoreExecutors.directExecutor());
+    }
+}
@@ -17,13 +17,17 @@
 package com.netflix.exhibitor.core.state;
 
 import com.netflix.exhibitor.core.Exhibitor;
-import com.netflix.exhibitor.core.activity.Activity;
 import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.activity.DeadlineActivity;
+import java.util.concurrent.TimeUnit;
 
-public class KillRunningInstance implements Activity
+public class KillRunningInstance implements DeadlineActivity
 {
     private final Exhibitor exhibitor;
     private final boolean restart;
+    private volatile RestartTimeline timeline;
+
+    private static final long   DEADLINE_MS = TimeUnit.MINUTES.toMillis(5);
 
     public KillRunningInstance(Exhibitor exhibitor, boolean restart)
     {
@@ -38,7 +42,7 @@ public class KillRunningInstance implements Activity
         {
             try
             {
-                exhibitor.getProcessOperations().startInstance();
+                RestartPipeline.start(exhibitor, timeline, RestartPipeline.PROCESS_START_TIMEOUT_MS);
             }
             catch ( Exception e )
             {
@@ -47,19 +51,39 @@ public class KillRunningInstance implements Activity
         }
     }
 
+    @Override
+    public long getDeadlineMs()
+    {
+        return DEADLINE_MS;
+    }
+
+    @Override
+    public void deadlineExceeded()
+    {
+        // NOP
+    }
+
     @Override
     public Boolean call() throws Exception
     {
         exhibitor.getLog().add(ActivityLog.Type.INFO, "Attempting to stop instance");
 
+        timeline = new RestartTimeline();
+        timeline.mark(RestartTimeline.Phase.STOP_REQUESTED);
+
         boolean     success = false;
         try
         {
             exhibitor.getProcessOperations().killInstance();
+            exhibitor.getServerSnapshots().invalidate();
+            timeline.mark(RestartTimeline.Phase.PROCESS_EXITED);
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Instance stopped in " + timeline.getTotalMs() + " ms");
             success = true;
         }
         catch ( Exception e )
         {
+            timeline.fail(RestartTimeline.Phase.PROCESS_EXITED);
+            exhibitor.getRestartStats().record(timeline, false);
             exhibitor.getLog().add(ActivityLog.Type.ERROR, "Trying to kill running instance", e);
         }
         return success;
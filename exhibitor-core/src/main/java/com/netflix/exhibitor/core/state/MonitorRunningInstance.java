@@ -20,14 +20,16 @@ import com.google.common.annotations.VisibleForTesting;
 import com.netflix.exhibitor.core.Exhibitor;
 import com.netflix.exhibitor.core.activity.Activity;
 import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.activity.DeadlineActivity;
 import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.activity.RepeatingActivity;
 import com.netflix.exhibitor.core.activity.RepeatingActivityImpl;
+import com.netflix.exhibitor.core.config.ConfigDiff;
 import com.netflix.exhibitor.core.config.ConfigListener;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.EncodedConfigParser;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.IntConfigs;
-import com.netflix.exhibitor.core.config.StringConfigs;
 import com.netflix.exhibitor.core.controlpanel.ControlPanelTypes;
 import java.io.Closeable;
 import java.io.IOException;
@@ -42,13 +44,20 @@ public class MonitorRunningInstance implements Closeable
     private final AtomicBoolean                     currentIsLeader = new AtomicBoolean(false);
     private final RepeatingActivity                 repeatingActivity;
     private final AtomicInteger                     restartCount = new AtomicInteger(1);
+    private final CheckCadence                      cadence = new CheckCadence();   // protected by sync
+    private final DynamicReconfig                   dynamicReconfig;
+    private final AtomicReference<ConfigWorkState>  configWorkState = new AtomicReference<ConfigWorkState>();
+    private final Activity                          configWork;
 
     private static final int    DOWN_RECHECK_FACTOR = 10;
 
+    private static final int    DEADLINE_FACTOR = 5;    // a check only probes the local server, each probe bounded by connect + read timeouts. Config stores and reconfigs run in configWork
+
     public MonitorRunningInstance(Exhibitor exhibitor)
     {
         this.exhibitor = exhibitor;
-        Activity activity = new Activity()
+        dynamicReconfig = new DynamicReconfig(exhibitor);
+        Activity activity = new DeadlineActivity()
         {
             @Override
             public void completed(boolean wasSuccessful)
@@ -56,6 +65,18 @@ public class MonitorRunningInstance implements Closeable
                 // NOP
             }
 
+            @Override
+            public long getDeadlineMs()
+            {
+                return (long)exhibitor.getConnectionTimeOutMs() * DEADLINE_FACTOR;
+            }
+
+            @Override
+            public void deadlineExceeded()
+            {
+                // NOP - the check is re-queued and the next one will pick up the state
+            }
+
             @Override
             public Boolean call() throws Exception
             {
@@ -64,6 +85,22 @@ public class MonitorRunningInstance implements Closeable
             }
         };
 
+        configWork = new Activity()
+        {
+            @Override
+            public void completed(boolean wasSuccessful)
+            {
+                // NOP
+            }
+
+            @Override
+            public Boolean call() throws Exception
+            {
+                doConfigWork();
+                return true;
+            }
+        };
+
         repeatingActivity = new RepeatingActivityImpl(exhibitor.getLog(), exhibitor.getActivityQueue(), QueueGroups.MAIN, activity, exhibitor.getConfigManager().getConfig().getInt(IntConfigs.CHECK_MS));
     }
 
@@ -75,11 +112,17 @@ public class MonitorRunningInstance implements Closeable
             new ConfigListener()
             {
                 @Override
-                public void configUpdated()
+                public void configUpdated(ConfigDiff diff)
                 {
-                    repeatingActivity.setTimePeriodMs(exhibitor.getConfigManager().getConfig().getInt(IntConfigs.CHECK_MS));
+                    long        nextCheckMs;
+                    synchronized(cadence)
+                    {
+                        nextCheckMs = cadence.getPeriodMs(diff.getNewConfig().getInt(IntConfigs.CHECK_MS));
+                    }
+                    repeatingActivity.setTimePeriodMs(nextCheckMs);
                 }
-            }
+            },
+            IntConfigs.CHECK_MS
         );
     }
 
@@ -110,11 +153,16 @@ public class MonitorRunningInstance implements Closeable
     {
         InstanceConfig  config = exhibitor.getConfigManager().getConfig();
         StateAndLeader  stateAndLeader = getStateAndLeader();
-        InstanceState   instanceState = new InstanceState(new ServerList(config.getString(StringConfigs.SERVERS_SPEC)), stateAndLeader.getState(), new RestartSignificantConfig(config));
+        InstanceState   instanceState = new InstanceState(getServerList(config), stateAndLeader.getState(), new RestartSignificantConfig(config));
 
         currentIsLeader.set(stateAndLeader.isLeader());
+        updateCadence(config, stateAndLeader);
+        RestartPipeline.observe(exhibitor, stateAndLeader.getState());
 
-        exhibitor.getConfigManager().checkRollingConfig(instanceState);
+        // rolling config stores and reconfigs can take much longer than the check's deadline. The restart count
+        // goes with the state it was taken with - a restart made by this check is seen by the next one
+        configWorkState.set(new ConfigWorkState(instanceState, restartCount.get()));
+        exhibitor.getActivityQueue().replace(QueueGroups.MAIN, configWork);
 
         InstanceState   localCurrentInstanceState = currentInstanceState.get();
         if ( instanceState.equals(localCurrentInstanceState) )
@@ -127,6 +175,21 @@ public class MonitorRunningInstance implements Closeable
         }
     }
 
+    private void updateCadence(InstanceConfig config, StateAndLeader stateAndLeader)
+    {
+        long        nextCheckMs;
+        synchronized(cadence)
+        {
+            nextCheckMs = cadence.update(stateAndLeader.getState(), stateAndLeader.isLeader(), config.getInt(IntConfigs.CHECK_MS));
+        }
+        repeatingActivity.setTimePeriodMs(nextCheckMs);
+    }
+
+    private ServerList getServerList(InstanceConfig config)
+    {
+        return ConfigSnapshot.of(config).getServerList();
+    }
+
     @VisibleForTesting
     protected StateAndLeader getStateAndLeader() throws Exception
     {
@@ -154,15 +217,65 @@ public class MonitorRunningInstance implements Closeable
         return (us == null) || !us.equals(localUs);
     }
 
+    @VisibleForTesting
+    void doConfigWork() throws Exception
+    {
+        ConfigWorkState     state = configWorkState.get();
+        if ( state != null )
+        {
+            exhibitor.getConfigManager().checkRollingConfig(state.instanceState, state.restartCount);
+            checkDynamicReconfig(exhibitor.getConfigManager().getConfig(), currentIsLeader.get());
+        }
+    }
+
+    private void checkDynamicReconfig(InstanceConfig config, boolean isLeader)
+    {
+        // the leader applies membership changes. The reconfig is versioned so a stale leader can't clobber a newer config
+        if ( DynamicReconfig.isEnabled(config) && isLeader && !exhibitor.getConfigManager().isRolling() )
+        {
+            try
+            {
+                dynamicReconfig.reconcile(config);
+            }
+            catch ( Exception e )
+            {
+                exhibitor.getLog().add(ActivityLog.Type.ERROR, "Could not reconfigure the ensemble", e);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    boolean canReconfigureLive(InstanceState instanceState, InstanceState localCurrentInstanceState)
+    {
+        if ( (localCurrentInstanceState == null) || (localCurrentInstanceState.getState() != InstanceStateTypes.SERVING) )
+        {
+            return false;
+        }
+        if ( !DynamicReconfig.isEnabled(exhibitor.getConfigManager().getConfig()) )
+        {
+            return false;
+        }
+
+        // an instance joining or leaving the ensemble still needs a start/stop
+        ServerSpec us = UsState.findUs(exhibitor, instanceState.getServerList().getSpecs());
+        ServerSpec localUs = UsState.findUs(exhibitor, localCurrentInstanceState.getServerList().getSpecs());
+        return (us != null) && (localUs != null);
+    }
+
     private void handleServerListChange(InstanceState instanceState, InstanceState localCurrentInstanceState) throws Exception
     {
         boolean         serverListChange = serverListHasChanged(instanceState, localCurrentInstanceState);
         boolean         configChange = (localCurrentInstanceState != null) && !localCurrentInstanceState.getCurrentConfig().equals(instanceState.getCurrentConfig());
+        boolean         reconfigureLive = serverListChange && !configChange && canReconfigureLive(instanceState, localCurrentInstanceState);
         currentInstanceState.set(instanceState);
 
         exhibitor.getLog().add(ActivityLog.Type.INFO, "State: " + instanceState.getState().getDescription());
 
-        if ( serverListChange )
+        if ( reconfigureLive )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Server list has changed - it will be applied with dynamic reconfiguration");
+        }
+        else if ( serverListChange )
         {
             exhibitor.getLog().add(ActivityLog.Type.INFO, "Server list has changed");
             restartZooKeeperAndIncrementCount(localCurrentInstanceState);
@@ -234,7 +347,13 @@ public class MonitorRunningInstance implements Closeable
             return;
         }
 
-        exhibitor.getActivityQueue().add(QueueGroups.MAIN, new KillRunningInstance(exhibitor, true));
+        if ( !exhibitor.getActivityQueue().isIdle(QueueGroups.PROCESS) )
+        {
+            exhibitor.getLog().add(ActivityLog.Type.INFO, "Restart of ZooKeeper skipped as a stop/start is already in progress");
+            return;
+        }
+
+        exhibitor.getActivityQueue().add(QueueGroups.PROCESS, new KillRunningInstance(exhibitor, true));
     }
 
     private void restartZooKeeperAndIncrementCount(InstanceState currentInstanceState) throws Exception
@@ -245,11 +364,10 @@ public class MonitorRunningInstance implements Closeable
 
     private int getDownInstanceRestartMs(InstanceConfig config)
     {
-        EncodedConfigParser     parser = new EncodedConfigParser(exhibitor.getConfigManager().getConfig().getString(StringConfigs.ZOO_CFG_EXTRA));
+        EncodedConfigParser     parser = ConfigSnapshot.of(config).getZooCfgExtra();
         int                     tickTime = parseInt(parser.getValue("tickTime"));
         int                     initLimit = parseInt(parser.getValue("initLimit"));
         int                     syncLimit = parseInt(parser.getValue("syncLimit"));
-
         if ( (tickTime > 0) && ((initLimit > 0) || (syncLimit > 0)) )
         {
             return 2 * tickTime * Math.max(initLimit, syncLimit);  // ZK should sync or fail within the initLimit/syncLimit
@@ -270,4 +388,16 @@ public class MonitorRunningInstance implements Closeable
         }
         return 0;
     }
+
+    private static class ConfigWorkState
+    {
+        private final InstanceState instanceState;
+        private final int           restartCount;
+
+        private ConfigWorkState(InstanceState instanceState, int restartCount)
+        {
+            this.instanceState = instanceState;
+            this.restartCount = restartCount;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.activity.ActivityLog;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the instance and follows it through to serving, recording each phase in a {@link RestartTimeline}.
+ * Starting only waits for the process. Joining the quorum can take arbitrarily long so serving is picked
+ * up later from the instance monitor's checks via {@link #observe(Exhibitor, InstanceStateTypes)}.
+ */
+class RestartPipeline
+{
+    static final long           PROCESS_START_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Start the instance and wait until its process is running
+     *
+     * @param exhibitor main instance
+     * @param timeline the timeline - may already have stop phases marked
+     * @param startTimeoutMs max time to wait for the process to start
+     * @return true if the process started
+     * @throws Exception errors
+     */
+    static boolean start(Exhibitor exhibitor, RestartTimeline timeline, long startTimeoutMs) throws Exception
+    {
+        boolean     isStarted = false;
+        try
+        {
+            exhibitor.getProcessOperations().startInstance(timeline);
+            isStarted = timeline.await(RestartTimeline.Phase.PROCESS_STARTED, startTimeoutMs);
+        }
+        finally
+        {
+            exhibitor.getServerSnapshots().invalidate();
+            if ( isStarted )
+            {
+                exhibitor.getRestartStats().awaitServing(timeline);
+                exhibitor.getLog().add(ActivityLog.Type.INFO, "ZooKeeper process started in " + timeline.getTotalMs() + " ms (" + timeline + ")");
+            }
+            else
+            {
+                exhibitor.getRestartStats().record(timeline, false);
+                exhibitor.getLog().add(ActivityLog.Type.ERROR, "ZooKeeper process not started after " + timeline.getTotalMs() + " ms (" + timeline + ")");
+            }
+        }
+        return isStarted;
+    }
+
+    /**
+     * Advance the restart that is waiting to serve (if any) with a state seen by the instance monitor
+     *
+     * @param exhibitor main instance
+     * @param state the instance's current state
+     */
+    static void observe(Exhibitor exhibitor, InstanceStateTypes state)
+    {
+        RestartStats        restartStats = exhibitor.getRestartStats();
+        RestartTimeline     timeline = restartStats.getAwaitingServing();
+        if ( timeline == null )
+        {
+            return;
+        }
+
+        if ( (state == InstanceStateTypes.NOT_SERVING) || (state == InstanceStateTypes.SERVING) )
+        {
+            timeline.mark(RestartTimeline.Phase.PORT_ACCEPTING);
+        }
+        if ( state == InstanceStateTypes.SERVING )
+        {
+            timeline.mark(RestartTimeline.Phase.SERVING);
+            if ( restartStats.servingReached(timeline) )
+            {
+                exhibitor.getLog().add(ActivityLog.Type.INFO, "ZooKeeper serving in " + timeline.getElapsedMs(RestartTimeline.Phase.SERVING) + " ms (" + timeline + ")");
+            }
+        }
+    }
+
+    private RestartPipeline()
+    {
+    }
+}
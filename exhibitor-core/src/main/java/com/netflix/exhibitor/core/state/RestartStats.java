@@ -0,0 +1,180 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
+import com.netflix.exhibitor.core.servo.GaugeSet;
+import com.netflix.servo.MonitorRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Telemetry for the stops/starts of the ZooKeeper instance
+ */
+public class RestartStats
+{
+    private final Histogram                                     totalMs = new Histogram(new ExponentiallyDecayingReservoir());
+    private final AtomicLong                                    failureCount = new AtomicLong(0);
+    private final AtomicReference<RestartTimeline>              lastTimeline = new AtomicReference<RestartTimeline>();
+    private final AtomicReference<RestartTimeline>              awaitingServing = new AtomicReference<RestartTimeline>();
+    private final AtomicLong                                    lastTotalMs = new AtomicLong(0);
+    private final Map<RestartTimeline.Phase, AtomicLong>        lastPhaseMs = new EnumMap<RestartTimeline.Phase, AtomicLong>(RestartTimeline.Phase.class);
+    private final GaugeSet                                      gauges;
+
+    public RestartStats()
+    {
+        for ( RestartTimeline.Phase phase : RestartTimeline.Phase.values() )
+        {
+            lastPhaseMs.put(phase, new AtomicLong(0));
+        }
+        gauges = buildGauges();
+    }
+
+    /**
+     * Record a finished stop/start
+     *
+     * @param timeline the timeline
+     * @param reachedServing true if the instance reached the serving phase
+     */
+    public void record(RestartTimeline timeline, boolean reachedServing)
+    {
+        long        total = timeline.getTotalMs();
+        lastTimeline.set(timeline);
+        lastTotalMs.set(total);
+        for ( RestartTimeline.Phase phase : RestartTimeline.Phase.values() )
+        {
+            Long    elapsedMs = timeline.getElapsedMs(phase);
+            lastPhaseMs.get(phase).set((elapsedMs != null) ? elapsedMs : 0);
+        }
+
+        if ( reachedServing )
+        {
+            totalMs.update(total);
+        }
+        else
+        {
+            failureCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Note a restart whose process has started and that is now waiting to serve. A previous restart
+     * that is still waiting never reached serving and is recorded as such.
+     *
+     * @param timeline the timeline
+     */
+    public void awaitServing(RestartTimeline timeline)
+    {
+        RestartTimeline     previous = awaitingServing.getAndSet(timeline);
+        if ( previous != null )
+        {
+            record(previous, false);
+        }
+    }
+
+    /**
+     * @return the restart that is waiting to serve or null
+     */
+    public RestartTimeline getAwaitingServing()
+    {
+        return awaitingServing.get();
+    }
+
+    /**
+     * Record that a restart waiting to serve has reached serving
+     *
+     * @param timeline the timeline
+     * @return true if the timeline was still waiting (and has now been recorded)
+     */
+    public boolean servingReached(RestartTimeline timeline)
+    {
+        if ( awaitingServing.compareAndSet(timeline, null) )
+        {
+            record(timeline, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the most recent timeline or null
+     */
+    public RestartTimeline getLastTimeline()
+    {
+        return lastTimeline.get();
+    }
+
+    /**
+     * @return total time of the restarts that reached serving
+     */
+    public Snapshot getTotalMs()
+    {
+        return totalMs.getSnapshot();
+    }
+
+    /**
+     * @return number of restarts that did not reach serving
+     */
+    public long getFailureCount()
+    {
+        return failureCount.get();
+    }
+
+    /**
+     * Publish the telemetry via Servo
+     *
+     * @param registry registry to publish to
+     */
+    public void startMonitoring(MonitorRegistry registry)
+    {
+        gauges.register(registry);
+    }
+
+    /**
+     * Remove everything published via {@link #startMonitoring(MonitorRegistry)}
+     */
+    public void stopMonitoring()
+    {
+        gauges.unregister();
+    }
+
+    private GaugeSet buildGauges()
+    {
+        GaugeSet    gauges = new GaugeSet("restart")
+            .add("restart_count", new Callable<Number>()
+            {
+                @Override
+                public Number call() throws Exception
+                {
+                    return totalMs.getCount();
+                }
+            })
+            .add("restart_failure_count", failureCount)
+            .addHistogram("restart", totalMs)
+            .add("restart_last_ms", lastTotalMs);
+        for ( RestartTimeline.Phase phase : RestartTimeline.Phase.values() )
+        {
+            gauges.add("restart_last_" + phase.name().toLowerCase() + "_ms", lastPhaseMs.get(phase));
+        }
+        return gauges;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Records when each phase of a stop/start of the ZooKeeper instance was reached. Phases are
+ * marked from whichever thread observes them and can be waited on.
+ */
+public class RestartTimeline
+{
+    private final long                                      startNs = System.nanoTime();
+    private final ImmutableMap<Phase, SettableFuture<Long>> phases;
+
+    private static final long       FAILED = -1;
+
+    public enum Phase
+    {
+        STOP_REQUESTED,
+        PROCESS_EXITED,
+        FILES_WRITTEN,
+        PROCESS_STARTED,
+        PORT_ACCEPTING,
+        SERVING
+    }
+
+    public RestartTimeline()
+    {
+        ImmutableMap.Builder<Phase, SettableFuture<Long>>   builder = ImmutableMap.builder();
+        for ( Phase phase : Phase.values() )
+        {
+            builder.put(phase, SettableFuture.<Long>create());
+        }
+        phases = builder.build();
+    }
+
+    /**
+     * Record that the given phase has been reached. Only the first mark counts.
+     *
+     * @param phase the phase
+     */
+    public void mark(Phase phase)
+    {
+        phases.get(phase).set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+    }
+
+    /**
+     * Record that the given phase will not be reached. Waiters return immediately.
+     *
+     * @param phase the phase
+     */
+    public void fail(Phase phase)
+    {
+        phases.get(phase).set(FAILED);
+    }
+
+    /**
+     * Wait for the given phase
+     *
+     * @param phase the phase
+     * @param timeoutMs max time to wait
+     * @return true if the phase was reached
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(Phase phase, long timeoutMs) throws InterruptedException
+    {
+        try
+        {
+            return phases.get(phase).get(Math.max(0, timeoutMs), TimeUnit.MILLISECONDS) != FAILED;
+        }
+        catch ( TimeoutException e )
+        {
+            return false;
+        }
+        catch ( ExecutionException e )
+        {
+            throw new RuntimeException(e);  // futures are never failed
+        }
+    }
+
+    /**
+     * @param phase the phase
+     * @return time from the start of the timeline to when the phase was reached or null if it hasn't been
+     */
+    public Long getElapsedMs(Phase phase)
+    {
+        SettableFuture<Long>    future = phases.get(phase);
+        if ( future.isDone() )
+        {
+            Long    value = getDone(future);
+            return (value != FAILED) ? value : null;
+        }
+        return null;
+    }
+
+    /**
+     * @return time since the timeline was started
+     */
+    public long getTotalMs()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder   str = new StringBuilder();
+        for ( Phase phase : Phase.values() )
+        {
+            Long    elapsedMs = getElapsedMs(phase);
+            if ( elapsedMs != null )
+            {
+                if ( str.length() > 0 )
+                {
+                    str.append(", ");
+                }
+                str.append(phase.name().toLowerCase().replace('_', ' ')).append(" +").append(elapsedMs).append("ms");
+            }
+        }
+        return str.toString();
+    }
+
+    private static Long getDone(SettableFuture<Long> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return FAILED;
+        }
+        catch ( ExecutionException e )
+        {
+            throw new RuntimeException(e);  // futures are never failed
+        }
+    }
+}
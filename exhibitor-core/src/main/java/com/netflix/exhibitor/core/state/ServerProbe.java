@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+
+/**
+ * Backend used to find out the health, mode and metrics of a ZooKeeper instance
+ */
+public interface ServerProbe
+{
+    /**
+     * Start probing the given instance. The returned future never fails - an instance that
+     * can't be reached results in a {@link InstanceStateTypes#DOWN} snapshot.
+     *
+     * @param hostname the instance
+     * @param config current config (for ports, etc.)
+     * @param timeoutMs max time to wait for the instance
+     * @return the snapshot
+     */
+    public ListenableFuture<ServerSnapshot> submit(String hostname, InstanceConfig config, int timeoutMs);
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point in time view of a ZooKeeper instance as reported by a {@link ServerProbe}
+ */
+public class ServerSnapshot
+{
+    private final long                      timestampMs = System.currentTimeMillis();
+    private final boolean                   isOk;
+    private final InstanceStateTypes        state;
+    private final boolean                   isLeader;
+    private final String                    mode;
+    private final Map<String, Number>       monitorValues;
+
+    /**
+     * Build a snapshot from four letter word responses
+     *
+     * @param ruok RUOK response
+     * @param srvr SRVR response
+     * @param mntr MNTR response
+     * @return snapshot
+     */
+    static ServerSnapshot fromFourLetterWords(FourLetterWord ruok, FourLetterWord srvr, FourLetterWord mntr)
+    {
+        InstanceStateTypes  state = InstanceStateTypes.DOWN;
+        String              mode = null;
+
+        boolean             isOk = "imok".equals(ruok.getResponse());
+        if ( isOk )
+        {
+            // The following code depends on inside knowledge of the "srvr" response. If they change it
+            // this code might break
+
+            for ( String line : srvr.getResponseLines() )
+            {
+                if ( line.contains("not currently serving") )
+                {
+                    state = InstanceStateTypes.NOT_SERVING;
+                    break;
+                }
+
+                if ( line.toLowerCase().startsWith("mode") )
+                {
+                    state = InstanceStateTypes.SERVING;
+                    String[]        parts = line.split(":");
+                    if ( parts.length > 1 )
+                    {
+                        mode = parts[1].trim().toLowerCase();
+                    }
+                    break;
+                }
+            }
+        }
+
+        return new ServerSnapshot(isOk, state, mode, parseMonitorValues(mntr.getResponseLines()));
+    }
+
+    /**
+     * Parse the numeric values of an MNTR response. Integral values are returned as Longs, others as Doubles.
+     *
+     * @param lines response lines
+     * @return name to value
+     */
+    public static Map<String, Number> parseMonitorValues(List<String> lines)
+    {
+        Map<String, Number>     values = Maps.newHashMap();
+        for ( String line : lines )
+        {
+            String[]        parts = line.split("\\s");
+            if ( parts.length == 2 )
+            {
+                Number      value = parseNumber(parts[1]);
+                if ( value != null )
+                {
+                    values.put(parts[0], value);
+                }
+            }
+        }
+        return ImmutableMap.copyOf(values);
+    }
+
+    /**
+     * @param isOk true if the instance is running
+     * @param state the state
+     * @param mode server mode (leader, follower, etc.) or null
+     * @param monitorValues numeric metrics keyed by MNTR name
+     */
+    ServerSnapshot(boolean isOk, InstanceStateTypes state, String mode, Map<String, Number> monitorValues)
+    {
+        this.isOk = isOk;
+        this.state = state;
+        this.mode = mode;
+        this.isLeader = (state == InstanceStateTypes.SERVING) && ("leader".equals(mode) || "standalone".equals(mode));
+        this.monitorValues = ImmutableMap.copyOf(monitorValues);
+    }
+
+    /**
+     * @return when the snapshot was taken
+     */
+    public long getTimestampMs()
+    {
+        return timestampMs;
+    }
+
+    /**
+     * @return true if the instance is running
+     */
+    public boolean isOk()
+    {
+        return isOk;
+    }
+
+    /**
+     * @return DOWN, NOT_SERVING or SERVING
+     */
+    public InstanceStateTypes getState()
+    {
+        return state;
+    }
+
+    /**
+     * @return true if the instance is the leader or is standalone
+     */
+    public boolean isLeader()
+    {
+        return isLeader;
+    }
+
+    /**
+     * @return the server mode (leader, follower, observer, standalone...) or null if not serving
+     */
+    public String getMode()
+    {
+        return mode;
+    }
+
+    /**
+     * @return numeric metrics keyed by their MNTR name (zk_avg_latency, etc.) - empty if not available
+     */
+    public Map<String, Number> getMonitorValues()
+    {
+        return monitorValues;
+    }
+
+    static Number parseNumber(String str)
+    {
+        try
+        {
+            return Long.parseLong(str);
+        }
+        catch ( NumberFormatException ignore )
+        {
+            // ignore
+        }
+        try
+        {
+            return Double.parseDouble(str);
+        }
+        catch ( NumberFormatException ignore )
+        {
+            // ignore
+        }
+        return null;
+    }
+}
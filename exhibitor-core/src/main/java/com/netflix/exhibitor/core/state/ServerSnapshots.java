@@ -0,0 +1,199 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single source of data about the local ZooKeeper instance. Responses are cached for a short time
+ * and concurrent requests share one probe so that the instance monitor, Servo and the UI don't each
+ * connect to the instance. Snapshots come from the AdminServer when {@link IntConfigs#ADMIN_SERVER_PORT}
+ * is set and from four letter words otherwise.
+ */
+public class ServerSnapshots
+{
+    private final Exhibitor                                     exhibitor;
+    private final long                                          ttlNs;
+    private final Map<FourLetterWord.Word, Cached<FourLetterWord>> cache = Maps.newEnumMap(FourLetterWord.Word.class);    // protected by sync
+    private final ServerProbe                                   adminServerProbe = new AdminServerProbe();
+    private final ServerProbe                                   fourLetterWordProbe;
+    private final ServerProbe                                   fourLetterWordProbeNoMonitorValues;
+    private Cached<ServerSnapshot>                              snapshot = null;    // protected by sync
+    private Cached<ServerSnapshot>                              stateSnapshot = null;    // protected by sync
+    private int                                                 snapshotAdminServerPort = 0;    // protected by sync
+
+    public static final int     DEFAULT_TTL_MS = 1000;
+
+    private static class Cached<T>
+    {
+        private final ListenableFuture<T>   future;
+        private final long                  submittedNs = System.nanoTime();
+
+        private Cached(ListenableFuture<T> future)
+        {
+            this.future = future;
+        }
+
+        private boolean isStale(long ttlNs)
+        {
+            return future.isDone() && ((System.nanoTime() - submittedNs) >= ttlNs);
+        }
+    }
+
+    /**
+     * @param exhibitor main instance
+     */
+    public ServerSnapshots(Exhibitor exhibitor)
+    {
+        this(exhibitor, DEFAULT_TTL_MS);
+    }
+
+    /**
+     * @param exhibitor main instance
+     * @param ttlMs how long responses are served from the cache
+     */
+    public ServerSnapshots(Exhibitor exhibitor, int ttlMs)
+    {
+        this.exhibitor = exhibitor;
+        fourLetterWordProbe = new FourLetterWordServerProbe(exhibitor.getFourLetterWordProbes(), true);
+        fourLetterWordProbeNoMonitorValues = new FourLetterWordServerProbe(exhibitor.getFourLetterWordProbes(), false);
+        ttlNs = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    /**
+     * Return a snapshot of the local instance including the monitor values. Requires at most one round trip.
+     *
+     * @return snapshot
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ServerSnapshot getSnapshot() throws InterruptedException
+    {
+        return getSnapshot(true);
+    }
+
+    /**
+     * Return a snapshot of the local instance. When <code>includeMonitorValues</code> is false the
+     * monitor values may be missing - use this for state checks so that they don't pay for MNTR.
+     *
+     * @param includeMonitorValues if false, the snapshot may skip collecting metrics
+     * @return snapshot
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public ServerSnapshot getSnapshot(boolean includeMonitorValues) throws InterruptedException
+    {
+        ListenableFuture<ServerSnapshot>    future = submitSnapshot(includeMonitorValues);
+        try
+        {
+            return future.get();
+        }
+        catch ( ExecutionException e )
+        {
+            // probes never fail
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Return the (possibly cached) response to the given word from the local instance
+     *
+     * @param word the word
+     * @return response
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public FourLetterWord get(FourLetterWord.Word word) throws InterruptedException
+    {
+        return FourLetterWordProbes.get(submit(word));
+    }
+
+    /**
+     * Return the backend to use for the given config
+     *
+     * @param config the config
+     * @param includeMonitorValues if false, the backend may skip collecting metrics
+     * @return backend
+     */
+    public ServerProbe getProbe(InstanceConfig config, boolean includeMonitorValues)
+    {
+        if ( config.getInt(IntConfigs.ADMIN_SERVER_PORT) > 0 )
+        {
+            return adminServerProbe;
+        }
+        return includeMonitorValues ? fourLetterWordProbe : fourLetterWordProbeNoMonitorValues;
+    }
+
+    /**
+     * Drop all cached responses - e.g. after the instance has been stopped or started
+     */
+    public synchronized void invalidate()
+    {
+        cache.clear();
+        snapshot = null;
+        stateSnapshot = null;
+    }
+
+    private synchronized ListenableFuture<ServerSnapshot> submitSnapshot(boolean includeMonitorValues)
+    {
+        InstanceConfig      config = exhibitor.getConfigManager().getConfig();
+        int                 adminServerPort = config.getInt(IntConfigs.ADMIN_SERVER_PORT);
+        if ( adminServerPort != snapshotAdminServerPort )
+        {
+            snapshot = null;
+            stateSnapshot = null;
+            snapshotAdminServerPort = adminServerPort;
+        }
+
+        boolean             snapshotIsFresh = (snapshot != null) && !snapshot.isStale(ttlNs);
+        if ( includeMonitorValues )
+        {
+            if ( !snapshotIsFresh )
+            {
+                snapshot = new Cached<ServerSnapshot>(getProbe(config, true).submit("localhost", config, exhibitor.getConnectionTimeOutMs()));
+            }
+            return snapshot.future;
+        }
+
+        if ( snapshotIsFresh )
+        {
+            // a full snapshot is also a valid state snapshot
+            return snapshot.future;
+        }
+        if ( (stateSnapshot == null) || stateSnapshot.isStale(ttlNs) )
+        {
+            stateSnapshot = new Cached<ServerSnapshot>(getProbe(config, false).submit("localhost", config, exhibitor.getConnectionTimeOutMs()));
+        }
+        return stateSnapshot.future;
+    }
+
+    private synchronized ListenableFuture<FourLetterWord> submit(FourLetterWord.Word word)
+    {
+        Cached<FourLetterWord>      cached = cache.get(word);
+        if ( (cached == null) || cached.isStale(ttlNs) )
+        {
+            int     port = exhibitor.getConfigManager().getConfig().getInt(IntConfigs.CLIENT_PORT);
+            cached = new Cached<FourLetterWord>(exhibitor.getFourLetterWordProbes().submit(word, "localhost", port, exhibitor.getConnectionTimeOutMs()));
+            cache.put(word, cached);
+        }
+        return cached.future;
+    }
+}
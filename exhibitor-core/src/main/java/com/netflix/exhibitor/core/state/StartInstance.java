@@ -17,13 +17,16 @@
 package com.netflix.exhibitor.core.state;
 
 import com.netflix.exhibitor.core.Exhibitor;
-import com.netflix.exhibitor.core.activity.Activity;
 import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.activity.DeadlineActivity;
+import java.util.concurrent.TimeUnit;
 
-public class StartInstance implements Activity
+public class StartInstance implements DeadlineActivity
 {
     private final Exhibitor exhibitor;
 
+    private static final long   DEADLINE_MS = TimeUnit.MINUTES.toMillis(5);
+
     public StartInstance(Exhibitor exhibitor)
     {
         this.exhibitor = exhibitor;
@@ -35,6 +38,18 @@ public class StartInstance implements Activity
         // NOP
     }
 
+    @Override
+    public long getDeadlineMs()
+    {
+        return DEADLINE_MS;
+    }
+
+    @Override
+    public void deadlineExceeded()
+    {
+        // NOP
+    }
+
     @Override
     public Boolean call() throws Exception
     {
@@ -43,8 +58,7 @@ public class StartInstance implements Activity
         boolean     success = false;
         try
         {
-            exhibitor.getProcessOperations().startInstance();
-            success = true;
+            success = RestartPipeline.start(exhibitor, new RestartTimeline(), RestartPipeline.PROCESS_START_TIMEOUT_MS);
         }
         catch ( Exception e )
         {
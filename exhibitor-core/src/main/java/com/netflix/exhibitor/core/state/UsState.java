@@ -18,8 +18,8 @@ package com.netflix.exhibitor.core.state;
 
 import com.google.common.collect.Iterables;
 import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.config.ConfigSnapshot;
 import com.netflix.exhibitor.core.config.InstanceConfig;
-import com.netflix.exhibitor.core.config.StringConfigs;
 import java.util.List;
 
 public class UsState
@@ -31,7 +31,7 @@ public class UsState
     public UsState(Exhibitor exhibitor)
     {
         config = exhibitor.getConfigManager().getConfig();
-        serverList = new ServerList(config.getString(StringConfigs.SERVERS_SPEC));
+        serverList = ConfigSnapshot.of(config).getServerList();
         us = findUs(exhibitor, serverList.getSpecs());
     }
 
@@ -260,11 +260,15 @@ function buildNewConfig()
     newConfig.clientPort = $('#config-client-port').val();
     newConfig.connectPort = $('#config-connect-port').val();
     newConfig.electionPort = $('#config-election-port').val();
+    newConfig.adminServerPort = $('#config-admin-server-port').val();
+    newConfig.dynamicReconfig = $('#config-dynamic-reconfig').val();
     newConfig.checkMs = $('#config-check-ms').val();
     newConfig.cleanupPeriodMs = $('#config-cleanup-ms').val();
     newConfig.cleanupMaxFiles = $('#config-cleanup-max-files').val();
     newConfig.backupPeriodMs = $('#config-backup-ms').val();
     newConfig.backupMaxStoreMs = $('#config-backup-max-store-ms').val();
+    newConfig.backupCompressionThreads = $('#config-backup-compression-threads').val();
+    newConfig.backupCodec = $('#config-backup-codec').val();
     newConfig.autoManageInstances = $('#cp-auto-init-instances').prop("checked") ? "1" : "0";
 
     var zooCfgTab = $('#config-custom').val().split("\n");
@@ -371,11 +375,15 @@ function ableConfig(enable)
     $('#config-client-port').prop('disabled', !enable);
     $('#config-connect-port').prop('disabled', !enable);
     $('#config-election-port').prop('disabled', !enable);
+    $('#config-admin-server-port').prop('disabled', !enable);
+    $('#config-dynamic-reconfig').prop('disabled', !enable);
     $('#config-check-ms').prop('disabled', !enable);
     $('#config-cleanup-ms').prop('disabled', !enable);
     $('#config-cleanup-max-files').prop('disabled', !enable);
     $('#config-backup-ms').prop('disabled', !enable);
     $('#config-backup-max-store-ms').prop('disabled', !enable);
+    $('#config-backup-compression-threads').prop('disabled', !enable);
+    $('#config-backup-codec').prop('disabled', !enable);
 
     for ( var i = 0; i < configExtraTab.length; ++i )
     {
@@ -415,11 +423,15 @@ function updateConfig()
     $('#config-client-port').val(systemConfig.clientPort);
     $('#config-connect-port').val(systemConfig.connectPort);
     $('#config-election-port').val(systemConfig.electionPort);
+    $('#config-admin-server-port').val(systemConfig.adminServerPort);
+    $('#config-dynamic-reconfig').val(systemConfig.dynamicReconfig);
     $('#config-check-ms').val(systemConfig.checkMs);
     $('#config-cleanup-ms').val(systemConfig.cleanupPeriodMs);
     $('#config-cleanup-max-files').val(systemConfig.cleanupMaxFiles);
     $('#config-backup-ms').val(systemConfig.backupPeriodMs);
     $('#config-backup-max-store-ms').val(systemConfig.backupMaxStoreMs);
+    $('#config-backup-compression-threads').val(systemConfig.backupCompressionThreads);
+    $('#config-backup-codec').val(systemConfig.backupCodec);
 
     $('#rolling-config-floater-status').html(systemConfig.rollStatus);
     if ( systemConfig.rollInProgress )
@@ -544,6 +556,8 @@ function checkConfigConfirmation()
         || (newConfig.clientPort != systemConfig.clientPort)
         || (newConfig.connectPort != systemConfig.connectPort)
         || (newConfig.electionPort != systemConfig.electionPort)
+        || (newConfig.adminServerPort != systemConfig.adminServerPort)
+        || (newConfig.dynamicReconfig != systemConfig.dynamicReconfig)
         || (newConfig.javaEnvironment != systemConfig.javaEnvironment)
         || (newConfig.log4jProperties != systemConfig.log4jProperties)
         || (JSON.stringify(newConfig.zooCfgExtra) != JSON.stringify(systemConfig.zooCfgExtra))
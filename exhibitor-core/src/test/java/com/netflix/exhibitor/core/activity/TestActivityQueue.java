@@ -16,6 +16,7 @@
 
 package com.netflix.exhibitor.core.activity;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.apache.curator.utils.CloseableUtils;
 import org.testng.Assert;
@@ -226,6 +227,471 @@ public class TestActivityQueue
         }
     }
     
+    @Test
+    public void testReplaceChurn() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue();
+        queue.start();
+        try
+        {
+            final AtomicInteger     count = new AtomicInteger(0);
+            final CountDownLatch    latch = new CountDownLatch(1);
+            Activity                activity = new Activity()
+            {
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    count.incrementAndGet();
+                    latch.countDown();
+                    return true;
+                }
+            };
+
+            for ( int i = 0; i < 10000; ++i )
+            {
+                queue.replace(QueueGroups.MAIN, activity, 1 + (i % 60), TimeUnit.MINUTES);
+            }
+            Assert.assertEquals(queue.getQueueDepth(QueueGroups.MAIN), 1);
+            Assert.assertEquals(queue.getQueueDepth(QueueGroups.IO), 0);
+
+            queue.replace(QueueGroups.MAIN, activity, 100, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            Assert.assertEquals(count.get(), 1);
+            Assert.assertEquals(queue.getQueueDepth(QueueGroups.MAIN), 0);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue();
+        queue.start();
+        try
+        {
+            final AtomicBoolean     called = new AtomicBoolean(false);
+            Activity                activity = new Activity()
+            {
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    called.set(true);
+                    return true;
+                }
+            };
+
+            queue.add(QueueGroups.IO, activity, 500, TimeUnit.MILLISECONDS);
+            Assert.assertEquals(queue.getQueueDepth(QueueGroups.IO), 1);
+            Assert.assertTrue(queue.remove(QueueGroups.IO, activity));
+            Assert.assertFalse(queue.remove(QueueGroups.IO, activity));
+            Assert.assertEquals(queue.getQueueDepth(QueueGroups.IO), 0);
+
+            Thread.sleep(1000);
+            Assert.assertFalse(called.get());
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    @Test
+    public void testStats() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue();
+        queue.start();
+        try
+        {
+            final AtomicInteger     count = new AtomicInteger(0);
+            Activity                activity = new Activity()
+            {
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    if ( count.incrementAndGet() == 2 )
+                    {
+                        throw new Exception("test");
+                    }
+                    Thread.sleep(10);
+                    return true;
+                }
+            };
+
+            for ( int i = 0; i < 3; ++i )
+            {
+                queue.add(QueueGroups.MAIN, activity);
+            }
+            for ( int i = 0; (i < 100) && (queue.getActivityStats().getEntries().size() == 0 || queue.getActivityStats().getEntries().get(0).getExecutionCount() < 3); ++i )
+            {
+                Thread.sleep(10);
+            }
+
+            List<ActivityStats.Entry>   entries = queue.getActivityStats().getEntries();
+            Assert.assertEquals(entries.size(), 1);
+            ActivityStats.Entry         entry = entries.get(0);
+            Assert.assertEquals(entry.getName(), activity.getClass().getName().substring(getClass().getPackage().getName().length() + 1));
+            Assert.assertTrue(entry.getName().startsWith(getClass().getSimpleName() + "$"));
+            Assert.assertNotEquals(ActivityStats.getName(newLatchActivity(new CountDownLatch(1))), entry.getName());  // each anonymous activity is its own entry
+            Assert.assertEquals(entry.getLastGroup(), QueueGroups.MAIN);
+            Assert.assertEquals(entry.getExecutionCount(), 3);
+            Assert.assertEquals(entry.getFailureCount(), 1);
+            Assert.assertTrue(entry.getLastRunMs() > 0);
+            Assert.assertTrue(entry.getExecutionMs().getMax() >= 10);
+
+            RepeatingActivity       repeating = new RepeatingActivityImpl(null, queue, QueueGroups.IO, activity, 10);
+            repeating.start();
+            try
+            {
+                for ( int i = 0; (i < 100) && (entry.getExecutionCount() < 5); ++i )
+                {
+                    Thread.sleep(10);
+                }
+            }
+            finally
+            {
+                CloseableUtils.closeQuietly(repeating);
+            }
+            Assert.assertEquals(queue.getActivityStats().getEntries().size(), 1);   // the repeating wrapper is reported as the actual activity
+            Assert.assertTrue(entry.getExecutionCount() >= 5);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue();
+        queue.start();
+        final CountDownLatch    release = new CountDownLatch(1);
+        try
+        {
+            final AtomicBoolean     exceeded = new AtomicBoolean(false);
+            final AtomicInteger     calls = new AtomicInteger(0);
+            DeadlineActivity        hung = new DeadlineActivity()
+            {
+                @Override
+                public long getDeadlineMs()
+                {
+                    return 100;
+                }
+
+                @Override
+                public void deadlineExceeded()
+                {
+                    exceeded.set(true);
+                }
+
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    calls.incrementAndGet();
+
+                    // ignores interruption to simulate an uncooperative blocking call
+                    while ( release.getCount() > 0 )
+                    {
+                        try
+                        {
+                            release.await();
+                        }
+                        catch ( InterruptedException ignore )
+                        {
+                            // ignore
+                        }
+                    }
+                    return true;
+                }
+            };
+
+            final CountDownLatch    latch = new CountDownLatch(1);
+            Activity                next = new Activity()
+            {
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                    latch.countDown();
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    return true;
+                }
+            };
+
+            queue.add(QueueGroups.MAIN, hung);
+            queue.add(QueueGroups.MAIN, next);
+
+            // the overrun activity is abandoned and the rest of MAIN proceeds on a replacement worker
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(exceeded.get());
+            Assert.assertEquals(queue.getActivityStats().getEntries().get(0).getTimeoutCount(), 1);
+
+            // the overrun activity isn't executed again while its abandoned call is still running
+            queue.add(QueueGroups.MAIN, hung);
+            Thread.sleep(1000);
+            Assert.assertEquals(calls.get(), 1);
+            Assert.assertFalse(queue.isIdle(QueueGroups.MAIN));
+
+            release.countDown();
+            for ( int i = 0; (i < 50) && (calls.get() < 2); ++i )
+            {
+                Thread.sleep(100);
+            }
+            Assert.assertEquals(calls.get(), 2);
+
+            // completed() runs just before the worker releases the lane
+            for ( int i = 0; (i < 50) && !queue.isIdle(QueueGroups.MAIN); ++i )
+            {
+                Thread.sleep(100);
+            }
+            Assert.assertTrue(queue.isIdle(QueueGroups.MAIN));
+
+            // the replacement worker keeps draining the lane
+            final CountDownLatch    again = new CountDownLatch(1);
+            queue.add(QueueGroups.MAIN, newLatchActivity(again));
+            Assert.assertTrue(again.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            release.countDown();
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    @Test
+    public void testConcurrentLaneDeadline() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue();
+        queue.start();
+        final CountDownLatch    release = new CountDownLatch(1);
+        try
+        {
+            final AtomicInteger     running = new AtomicInteger(0);
+            for ( int i = 0; i < 2; ++i )
+            {
+                queue.add
+                (
+                    QueueGroups.BACKUP,
+                    new DeadlineActivity()
+                    {
+                        @Override
+                        public long getDeadlineMs()
+                        {
+                            return 100;
+                        }
+
+                        @Override
+                        public void deadlineExceeded()
+                        {
+                        }
+
+                        @Override
+                        public void completed(boolean wasSuccessful)
+                        {
+                        }
+
+                        @Override
+                        public Boolean call() throws Exception
+                        {
+                            running.incrementAndGet();
+                            while ( release.getCount() > 0 )
+                            {
+                                try
+                                {
+                                    release.await();
+                                }
+                                catch ( InterruptedException ignore )
+                                {
+                                    // ignore
+                                }
+                            }
+                            return true;
+                        }
+                    }
+                );
+            }
+
+            final CountDownLatch    latch = new CountDownLatch(1);
+            queue.add(QueueGroups.BACKUP, newLatchActivity(latch));
+
+            // the first overrun gets a replacement worker, the second hits the cap of one abandoned thread
+            Assert.assertFalse(latch.await(1, TimeUnit.SECONDS));
+            Assert.assertEquals(running.get(), 2);
+
+            release.countDown();
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            release.countDown();
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    private static Activity newLatchActivity(final CountDownLatch latch)
+    {
+        return new Activity()
+        {
+            @Override
+            public void completed(boolean wasSuccessful)
+            {
+                latch.countDown();
+            }
+
+            @Override
+            public Boolean call() throws Exception
+            {
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testRepeatingDeadline() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue();
+        queue.start();
+        final CountDownLatch    release = new CountDownLatch(1);
+        try
+        {
+            final AtomicInteger     count = new AtomicInteger(0);
+            DeadlineActivity        activity = new DeadlineActivity()
+            {
+                @Override
+                public long getDeadlineMs()
+                {
+                    return 100;
+                }
+
+                @Override
+                public void deadlineExceeded()
+                {
+                }
+
+                @Override
+                public void completed(boolean wasSuccessful)
+                {
+                }
+
+                @Override
+                public Boolean call() throws Exception
+                {
+                    if ( count.incrementAndGet() == 1 )
+                    {
+                        release.await();    // hang the first execution until interrupted
+                    }
+                    return true;
+                }
+            };
+
+            RepeatingActivity       repeating = new RepeatingActivityImpl(null, queue, QueueGroups.MAIN, activity, 10);
+            repeating.start();
+            try
+            {
+                for ( int i = 0; (i < 100) && (count.get() < 5); ++i )
+                {
+                    Assert.assertTrue(queue.getQueueDepth(QueueGroups.MAIN) <= 1);  // the hung execution must not re-queue a duplicate
+                    Thread.sleep(10);
+                }
+                release.countDown();
+                Thread.sleep(100);
+                Assert.assertTrue(queue.getQueueDepth(QueueGroups.MAIN) <= 1);
+                Assert.assertTrue(count.get() >= 5);
+            }
+            finally
+            {
+                CloseableUtils.closeQuietly(repeating);
+            }
+        }
+        finally
+        {
+            release.countDown();
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    @Test
+    public void testGroupThreads() throws Exception
+    {
+        ActivityQueue queue = new ActivityQueue(ImmutableMap.of(QueueGroups.INDEX, 2));
+        queue.start();
+        try
+        {
+            final CountDownLatch    bothRunning = new CountDownLatch(2);
+            final CountDownLatch    release = new CountDownLatch(1);
+            for ( int i = 0; i < 2; ++i )
+            {
+                queue.add
+                (
+                    QueueGroups.INDEX,
+                    new Activity()
+                    {
+                        @Override
+                        public void completed(boolean wasSuccessful)
+                        {
+                        }
+
+                        @Override
+                        public Boolean call() throws Exception
+                        {
+                            bothRunning.countDown();
+                            release.await();
+                            return true;
+                        }
+                    }
+                );
+            }
+
+            Assert.assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+            Assert.assertFalse(queue.isIdle(QueueGroups.INDEX));
+            Assert.assertTrue(queue.isIdle(QueueGroups.PROCESS));
+
+            release.countDown();
+            for ( int i = 0; (i < 50) && !queue.isIdle(QueueGroups.INDEX); ++i )
+            {
+                Thread.sleep(100);
+            }
+            Assert.assertTrue(queue.isIdle(QueueGroups.INDEX));
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(queue);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSerialGroupThreads() throws Exception
+    {
+        new ActivityQueue(ImmutableMap.of(QueueGroups.MAIN, 2));
+    }
+
     @Test
     public void testDelay() throws Exception
     {
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class TestBackupCodecs
+{
+    private final BackupCodecs  codecs = new BackupCodecs(ImmutableList.<BackupCodec>of());
+
+    private File        directory;
+    private File        source;
+    private byte[]      data;
+
+    @BeforeMethod
+    public void     setup() throws Exception
+    {
+        directory = Files.createTempDir();
+        source = new File(directory, "source");
+
+        StringBuilder   str = new StringBuilder();
+        for ( int i = 0; i < 100000; ++i )
+        {
+            str.append("entry ").append(i).append('\n');
+        }
+        data = str.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(data, source);
+    }
+
+    @AfterMethod
+    public void     tearDown() throws Exception
+    {
+        for ( File file : directory.listFiles() )
+        {
+            Assert.assertTrue(file.delete());
+        }
+        Assert.assertTrue(directory.delete());
+    }
+
+    @Test
+    public void     testRoundTrips() throws Exception
+    {
+        for ( String name : ImmutableList.of(GzipBackupCodec.NAME, ZstdBackupCodec.NAME) )
+        {
+            for ( int threads : new int[]{1, 4} )
+            {
+                BackupCodec     codec = codecs.get(name);
+                byte[]          encoded = encode(codec, threads);
+                Assert.assertTrue(encoded.length < data.length, name);
+                Assert.assertSame(codecs.detect(encoded, encoded.length), codec, name);
+
+                File            encodedFile = new File(directory, "encoded");
+                Files.write(encoded, encodedFile);
+                ByteArrayOutputStream   out = new ByteArrayOutputStream();
+                codecs.decode(encodedFile, out, threads);
+                Assert.assertEquals(out.toByteArray(), data, name);
+
+                Assert.assertEquals(ByteStreams.toByteArray(codecs.decode(new BufferedInputStream(new ByteArrayInputStream(encoded)))), data, name);
+            }
+        }
+    }
+
+    @Test
+    public void     testUnknownFormat() throws Exception
+    {
+        try
+        {
+            codecs.decode(new BufferedInputStream(new ByteArrayInputStream("not a backup".getBytes(StandardCharsets.UTF_8))));
+            Assert.fail();
+        }
+        catch ( IOException expected )
+        {
+            // expected
+        }
+        Assert.assertNull(codecs.get("foo"));
+    }
+
+    @Test
+    public void     testAdditionalCodec() throws Exception
+    {
+        BackupCodec     testCodec = new GzipBackupCodec()
+        {
+            @Override
+            public String getName()
+            {
+                return "test";
+            }
+
+            @Override
+            public boolean canDecode(byte[] header, int length)
+            {
+                return (length > 0) && (header[0] == 'e');
+            }
+        };
+        BackupCodecs    withTest = new BackupCodecs(ImmutableList.of(testCodec));
+        Assert.assertSame(withTest.get("test"), testCodec);
+        Assert.assertSame(withTest.detect(data, data.length), testCodec);
+        Assert.assertNull(codecs.detect(data, data.length));
+    }
+
+    private byte[] encode(BackupCodec codec, int threads) throws Exception
+    {
+        ByteArrayOutputStream   out = new ByteArrayOutputStream();
+        codec.encode(source, out, threads);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class TestBackupManifest
+{
+    private static final Map<String, String>    CONFIG = ImmutableMap.of("bucket-name", "foo");
+
+    private File        directory;
+    private File        manifestFile;
+    private File        log;
+
+    @BeforeMethod
+    public void     setup() throws Exception
+    {
+        directory = Files.createTempDir();
+        manifestFile = new File(directory, "manifest");
+        log = new File(directory, "log.1");
+        Files.write("one", log, StandardCharsets.UTF_8);
+        setModifiedDateInPast(log);
+    }
+
+    @AfterMethod
+    public void     tearDown() throws Exception
+    {
+        for ( File file : directory.listFiles() )
+        {
+            Assert.assertTrue(file.delete());
+        }
+        Assert.assertTrue(directory.delete());
+    }
+
+    @Test
+    public void     testRoundTrip() throws Exception
+    {
+        BackupManifest      manifest = BackupManifest.load(manifestFile, CONFIG);
+        BackupManifest.Stat stat = new BackupManifest.Stat(log);
+        Assert.assertFalse(manifest.isUnchanged(log, stat));
+
+        manifest.record(log, stat, BackupManifest.hash(log));
+        manifest.save();
+        Assert.assertEquals(directory.listFiles().length, 2);   // no temp file left behind
+
+        BackupManifest      loaded = BackupManifest.load(manifestFile, CONFIG);
+        Assert.assertTrue(loaded.isUnchanged(log, new BackupManifest.Stat(log)));
+        Assert.assertTrue(loaded.hasContent(log, BackupManifest.hash(log)));
+
+        Files.write("two", log, StandardCharsets.UTF_8);
+        setModifiedDateInPast(log);
+        Assert.assertFalse(loaded.isUnchanged(log, new BackupManifest.Stat(log)));
+        Assert.assertFalse(loaded.hasContent(log, BackupManifest.hash(log)));
+    }
+
+    @Test
+    public void     testConfigChangeResets() throws Exception
+    {
+        BackupManifest      manifest = BackupManifest.load(manifestFile, CONFIG);
+        manifest.record(log, new BackupManifest.Stat(log), BackupManifest.hash(log));
+        manifest.save();
+
+        BackupManifest      loaded = BackupManifest.load(manifestFile, ImmutableMap.of("bucket-name", "bar"));
+        Assert.assertFalse(loaded.isUnchanged(log, new BackupManifest.Stat(log)));
+    }
+
+    @Test
+    public void     testRecentModificationIsNotTrusted() throws Exception
+    {
+        Assert.assertTrue(log.setLastModified(System.currentTimeMillis()));
+
+        BackupManifest      manifest = BackupManifest.load(manifestFile, CONFIG);
+        BackupManifest.Stat stat = new BackupManifest.Stat(log);
+        manifest.record(log, stat, BackupManifest.hash(log));
+
+        // a write within the same modified-date tick wouldn't change the stat - so the hash must be checked
+        Assert.assertFalse(manifest.isUnchanged(log, new BackupManifest.Stat(log)));
+        Assert.assertTrue(manifest.hasContent(log, BackupManifest.hash(log)));
+    }
+
+    @Test
+    public void     testRemoveAndRetain() throws Exception
+    {
+        File                other = new File(directory, "log.2");
+        Files.write("other", other, StandardCharsets.UTF_8);
+        setModifiedDateInPast(other);
+
+        BackupManifest      manifest = BackupManifest.load(manifestFile, CONFIG);
+        manifest.record(log, new BackupManifest.Stat(log), BackupManifest.hash(log));
+        manifest.record(other, new BackupManifest.Stat(other), BackupManifest.hash(other));
+
+        manifest.retain(ImmutableList.of(log.getName()));
+        Assert.assertTrue(manifest.isUnchanged(log, new BackupManifest.Stat(log)));
+        Assert.assertFalse(manifest.isUnchanged(other, new BackupManifest.Stat(other)));
+
+        manifest.remove(log.getName());
+        Assert.assertFalse(manifest.isUnchanged(log, new BackupManifest.Stat(log)));
+    }
+
+    private void    setModifiedDateInPast(File f)
+    {
+        Assert.assertTrue(f.setLastModified(System.currentTimeMillis() - (10 * BackupManifest.MODIFIED_GRANULARITY_MS)));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+public class TestParallelGzip
+{
+    private File        directory;
+
+    @BeforeMethod
+    public void     setup() throws Exception
+    {
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void     tearDown() throws Exception
+    {
+        for ( File file : directory.listFiles() )
+        {
+            Assert.assertTrue(file.delete());
+        }
+        Assert.assertTrue(directory.delete());
+    }
+
+    @Test
+    public void     testRoundTrip() throws Exception
+    {
+        byte[]      data = makeData((ParallelGzip.BLOCK_SIZE * 5) + 123);
+        File        compressed = compress(data, 4);
+
+        // standard gzip readers see one stream
+        GZIPInputStream     in = new GZIPInputStream(new ByteArrayInputStream(Files.toByteArray(compressed)));
+        Assert.assertEquals(ByteStreams.toByteArray(in), data);
+
+        Assert.assertEquals(decompress(compressed, 4), data);
+        Assert.assertEquals(decompress(compressed, 1), data);
+    }
+
+    @Test
+    public void     testSingleThreadedIsPlainGzip() throws Exception
+    {
+        byte[]      data = makeData(ParallelGzip.BLOCK_SIZE * 2);
+        File        compressed = compress(data, 1);
+        Assert.assertEquals(decompress(compressed, 4), data);
+    }
+
+    @Test
+    public void     testEmpty() throws Exception
+    {
+        File        compressed = compress(new byte[0], 4);
+        Assert.assertEquals(decompress(compressed, 4), new byte[0]);
+        Assert.assertEquals(decompress(compressed, 1), new byte[0]);
+    }
+
+    @Test
+    public void     testCorruption() throws Exception
+    {
+        File        compressed = compress(makeData(ParallelGzip.BLOCK_SIZE * 2), 4);
+        byte[]      bytes = Files.toByteArray(compressed);
+        bytes[bytes.length - 5] ^= 0xff;    // last block's CRC
+        Files.write(bytes, compressed);
+        try
+        {
+            decompress(compressed, 4);
+            Assert.fail();
+        }
+        catch ( IOException expected )
+        {
+            // expected
+        }
+    }
+
+    private File compress(byte[] data, int threads) throws Exception
+    {
+        File        source = new File(directory, "source");
+        Files.write(data, source);
+        ByteArrayOutputStream   out = new ByteArrayOutputStream();
+        new GzipBackupCodec().encode(source, out, threads);
+
+        File        compressed = new File(directory, "compressed");
+        Files.write(out.toByteArray(), compressed);
+        return compressed;
+    }
+
+    private byte[] decompress(File compressed, int threads) throws Exception
+    {
+        ByteArrayOutputStream   out = new ByteArrayOutputStream();
+        ParallelGzip.decompress(compressed, out, threads);
+        return out.toByteArray();
+    }
+
+    // compressible, but not trivially
+    private byte[] makeData(int length)
+    {
+        Random      random = new Random(1);
+        byte[]      data = new byte[length];
+        for ( int i = 0; i < length; ++i )
+        {
+            data[i] = (byte)('a' + random.nextInt(8));
+        }
+        return data;
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.netflix.exhibitor.core.backup.s3;
 
+import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.*;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -28,14 +29,20 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MockS3Client implements S3Client
 {
     private final List<byte[]>              uploadedBytes = new CopyOnWriteArrayList<byte[]>();
     private final ObjectListing             listing;
     private final Map<String, S3Object>     uploads = Maps.newConcurrentMap();
+    private final AtomicInteger             listCount = new AtomicInteger();
+    private final Map<String, Map<Integer, byte[]>> multipartUploads = Maps.newConcurrentMap();
+    private final AtomicInteger             uploadIds = new AtomicInteger();
 
     private static final String BYTES_HEADER = "__internal_index__";
 
@@ -91,6 +98,8 @@ public class MockS3Client implements S3Client
         object.setKey(request.getKey());
         ObjectMetadata      metadata = new ObjectMetadata();
         metadata.setContentLength(bytes.length);
+        metadata.setLastModified(new Date());
+        metadata.setHeader(Headers.ETAG, S3Utils.toHex(md5bytes));
         metadata.setUserMetadata(userData);
         object.setObjectMetadata(metadata);
         uploads.put(request.getKey(), object);
@@ -103,7 +112,12 @@ public class MockS3Client implements S3Client
     @Override
     public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) throws Exception
     {
-        return new InitiateMultipartUploadResult();
+        InitiateMultipartUploadResult   result = new InitiateMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setUploadId(Integer.toString(uploadIds.incrementAndGet()));
+        multipartUploads.put(result.getUploadId(), new ConcurrentSkipListMap<Integer, byte[]>());
+        return result;
     }
 
     @Override
@@ -128,6 +142,17 @@ public class MockS3Client implements S3Client
         return s3Object;
     }
 
+    @Override
+    public synchronized S3Object getObject(GetObjectRequest request) throws Exception
+    {
+        S3Object            s3Object = uploads.get(request.getKey());
+        if ( (s3Object != null) && request.getNonmatchingETagConstraints().contains(s3Object.getObjectMetadata().getETag()) )
+        {
+            return null;
+        }
+        return getObject(request.getBucketName(), request.getKey());
+    }
+
     @Override
     public ObjectMetadata getObjectMetadata(String bucket, String key) throws Exception
     {
@@ -142,6 +167,7 @@ public class MockS3Client implements S3Client
     @Override
     public synchronized ObjectListing listObjects(ListObjectsRequest request) throws Exception
     {
+        listCount.incrementAndGet();
         if ( listing != null )
         {
             return listing;
@@ -184,12 +210,12 @@ public class MockS3Client implements S3Client
     }
 
     @Override
-    public synchronized UploadPartResult uploadPart(UploadPartRequest request) throws Exception
+    public UploadPartResult uploadPart(UploadPartRequest request) throws Exception
     {
         ByteArrayOutputStream       out = new ByteArrayOutputStream();
         ByteStreams.copy(request.getInputStream(), out);
 
-        uploadedBytes.add(out.toByteArray());
+        multipartUploads.get(request.getUploadId()).put(request.getPartNumber(), out.toByteArray());
 
         byte[]              md5bytes = S3Utils.md5(out.toByteArray(), out.size());
 
@@ -202,11 +228,29 @@ public class MockS3Client implements S3Client
     @Override
     public void completeMultipartUpload(CompleteMultipartUploadRequest request) throws Exception
     {
+        Map<Integer, byte[]>    parts = multipartUploads.remove(request.getUploadId());
+        ByteArrayOutputStream   out = new ByteArrayOutputStream();
+        for ( PartETag partETag : request.getPartETags() )
+        {
+            out.write(parts.get(partETag.getPartNumber()));
+        }
+        putObject(new PutObjectRequest(request.getBucketName(), request.getKey(), new ByteArrayInputStream(out.toByteArray()), null));
     }
 
     @Override
     public void abortMultipartUpload(AbortMultipartUploadRequest request) throws Exception
     {
+        multipartUploads.remove(request.getUploadId());
+    }
+
+    public int getOpenMultipartUploadCount()
+    {
+        return multipartUploads.size();
+    }
+
+    public int getListCount()
+    {
+        return listCount.get();
     }
 
     public List<byte[]> getUploadedBytes()
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup.s3;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.netflix.exhibitor.core.backup.BackupMetaData;
+import com.netflix.exhibitor.core.backup.BackupProvider;
+import com.netflix.exhibitor.core.s3.PropertyBasedS3ClientConfig;
+import com.netflix.exhibitor.core.s3.PropertyBasedS3Credential;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.io.File;
+import java.util.Map;
+import java.util.Properties;
+
+public class TestS3BackupCatalog
+{
+    @Test
+    public void     testOneListingPerCycle() throws Exception
+    {
+        MockS3Client            s3Client = new MockS3Client();
+        S3BackupProvider        provider = new S3BackupProvider(new MockS3ClientFactory(s3Client), new PropertyBasedS3Credential(new Properties()), new PropertyBasedS3ClientConfig(new Properties()), null);
+        Map<String, String>     config = Maps.newHashMap();
+        File                    source = Filer.getFile();
+
+        Assert.assertEquals(provider.uploadBackup(null, new BackupMetaData("one", 1), source, config), BackupProvider.UploadResult.SUCCEEDED);
+        Assert.assertEquals(provider.uploadBackup(null, new BackupMetaData("two", 1), source, config), BackupProvider.UploadResult.SUCCEEDED);
+        Assert.assertEquals(provider.uploadBackup(null, new BackupMetaData("one", 1), source, config), BackupProvider.UploadResult.DUPLICATE);
+        Assert.assertEquals(provider.uploadBackup(null, new BackupMetaData("one", 2), source, config), BackupProvider.UploadResult.REPLACED_OLD_VERSION);
+        Assert.assertEquals(s3Client.getListCount(), 1);
+
+        // the catalog stays in sync with the bucket
+        Assert.assertEquals(provider.getAvailableBackups(null, config).size(), 2);
+        Assert.assertEquals(provider.uploadBackup(null, new BackupMetaData("one", 2), source, config), BackupProvider.UploadResult.DUPLICATE);
+        Assert.assertEquals(s3Client.getListCount(), 2);
+    }
+
+    @Test
+    public void     testLocationChange() throws Exception
+    {
+        S3BackupCatalog     catalog = new S3BackupCatalog(Long.MAX_VALUE);
+        BackupMetaData      backup = new BackupMetaData("one", 1);
+        catalog.reset("bucket/a", ImmutableList.of(backup));
+        Assert.assertTrue(catalog.isCurrent("bucket/a"));
+        Assert.assertTrue(catalog.contains("bucket/a", backup));
+
+        Assert.assertFalse(catalog.isCurrent("bucket/b"));
+        Assert.assertFalse(catalog.contains("bucket/b", backup));
+        catalog.added("bucket/b", new BackupMetaData("two", 1));
+        Assert.assertTrue(catalog.getVersions("bucket/a", "two").isEmpty());
+    }
+
+    @Test
+    public void     testExpiry() throws Exception
+    {
+        S3BackupCatalog     catalog = new S3BackupCatalog(0);
+        catalog.reset("bucket/a", ImmutableList.<BackupMetaData>of());
+        Assert.assertFalse(catalog.isCurrent("bucket/a"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.backup.s3;
+
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.apache.curator.retry.RetryNTimes;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestS3MultipartUploadStream
+{
+    private static final int        PART_SIZE = 1024;
+
+    @Test
+    public void     testParallelParts() throws Exception
+    {
+        final AtomicInteger     inFlight = new AtomicInteger();
+        final AtomicInteger     maxInFlight = new AtomicInteger();
+        MockS3Client            s3Client = new MockS3Client()
+        {
+            @Override
+            public UploadPartResult uploadPart(UploadPartRequest request) throws Exception
+            {
+                int     count = inFlight.incrementAndGet();
+                synchronized(maxInFlight)
+                {
+                    maxInFlight.set(Math.max(maxInFlight.get(), count));
+                }
+                try
+                {
+                    Thread.sleep(50);
+                    return super.uploadPart(request);
+                }
+                finally
+                {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+
+        byte[]                      data = new byte[(PART_SIZE * 10) + 17];
+        new Random().nextBytes(data);
+
+        S3MultipartUploadStream     out = makeStream(s3Client, 3);
+        for ( int offset = 0; offset < data.length; offset += 100 )
+        {
+            out.write(data, offset, Math.min(100, data.length - offset));
+        }
+        out.close();
+
+        Assert.assertEquals(s3Client.getUploadedBytes().size(), 1);
+        Assert.assertEquals(s3Client.getUploadedBytes().get(0), data);
+        Assert.assertTrue(maxInFlight.get() > 1);
+        Assert.assertTrue(maxInFlight.get() <= 3);
+        Assert.assertEquals(s3Client.getOpenMultipartUploadCount(), 0);
+    }
+
+    @Test
+    public void     testSmallUploadIsSinglePut() throws Exception
+    {
+        MockS3Client                s3Client = new MockS3Client();
+        byte[]                      data = new byte[PART_SIZE];
+        new Random().nextBytes(data);
+
+        S3MultipartUploadStream     out = makeStream(s3Client, 3);
+        out.write(data);
+        out.close();
+
+        Assert.assertEquals(s3Client.getUploadedBytes().size(), 1);
+        Assert.assertEquals(s3Client.getUploadedBytes().get(0), data);
+        Assert.assertEquals(s3Client.getOpenMultipartUploadCount(), 0);
+    }
+
+    @Test
+    public void     testFailedPartAborts() throws Exception
+    {
+        final AtomicInteger     attempts = new AtomicInteger();
+        MockS3Client            s3Client = new MockS3Client()
+        {
+            @Override
+            public UploadPartResult uploadPart(UploadPartRequest request) throws Exception
+            {
+                attempts.incrementAndGet();
+                throw new Exception("test");
+            }
+        };
+
+        S3MultipartUploadStream     out = makeStream(s3Client, 2);
+        try
+        {
+            out.write(new byte[PART_SIZE * 4]);
+            out.close();
+            Assert.fail();
+        }
+        catch ( IOException e )
+        {
+            out.abort();
+        }
+        Assert.assertTrue(attempts.get() >= 2);    // the part was retried
+        Assert.assertEquals(s3Client.getOpenMultipartUploadCount(), 0);
+        Assert.assertTrue(s3Client.getUploadedBytes().isEmpty());
+    }
+
+    private S3MultipartUploadStream makeStream(MockS3Client s3Client, int concurrency)
+    {
+        Throttle    throttle = new Throttle("test", new Throttle.ThroughputFunction()
+        {
+            @Override
+            public int targetThroughput()
+            {
+                return 0;
+            }
+        });
+        return new S3MultipartUploadStream(s3Client, "bucket", "key", new RetryNTimes(1, 0), throttle, PART_SIZE, concurrency);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.activity.ActivityQueue;
+import org.apache.curator.utils.CloseableUtils;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestConfigCache
+{
+    private File        directory;
+
+    @BeforeMethod
+    public void     setup() throws Exception
+    {
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void     tearDown() throws Exception
+    {
+        for ( File file : directory.listFiles() )
+        {
+            Assert.assertTrue(file.delete());
+        }
+        Assert.assertTrue(directory.delete());
+    }
+
+    @Test
+    public void     testRoundTrip() throws Exception
+    {
+        ConfigCache     cache = new ConfigCache(new File(directory, "cache.properties"));
+        Assert.assertNull(cache.load());
+
+        ConfigCollection    collection = new ConfigCollectionImpl(makeConfig("S:1:one,S:2:two", 1000), makeConfig("S:1:one,S:2:two,S:3:three", 2000), ImmutableList.of("three", "one", "two"), 1);
+        cache.store(new LoadedInstanceConfig(collection, 12345));
+
+        LoadedInstanceConfig    loaded = cache.load();
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(loaded.getVersion(), 12345);
+        Assert.assertEquals(loaded.getConfig().getRootConfig().getString(StringConfigs.SERVERS_SPEC), "S:1:one,S:2:two");
+        Assert.assertEquals(loaded.getConfig().getRootConfig().getInt(IntConfigs.CHECK_MS), 1000);
+        Assert.assertEquals(loaded.getConfig().getRollingConfig().getString(StringConfigs.SERVERS_SPEC), "S:1:one,S:2:two,S:3:three");
+        Assert.assertEquals(loaded.getConfig().getRollingConfig().getInt(IntConfigs.CHECK_MS), 2000);
+        Assert.assertEquals(loaded.getConfig().getRollingConfigState().getRollingHostNames(), ImmutableList.of("three", "one", "two"));
+        Assert.assertEquals(loaded.getConfig().getRollingConfigState().getRollingHostNamesIndex(), 1);
+        Assert.assertEquals(directory.listFiles().length, 1);   // no temp file left behind
+    }
+
+    @Test
+    public void     testCorruptCacheIsIgnored() throws Exception
+    {
+        File        file = new File(directory, "cache.properties");
+        Files.write("not a cache", file, StandardCharsets.UTF_8);
+        Assert.assertNull(new ConfigCache(file).load());
+    }
+
+    @Test
+    public void     testStartFromCache() throws Exception
+    {
+        ConfigCache     cache = new ConfigCache(new File(directory, "cache.properties"));
+        cache.store(new LoadedInstanceConfig(new ConfigCollectionImpl(makeConfig("S:1:one", 1000), null), 1));
+
+        final CountDownLatch    providerLatch = new CountDownLatch(1);
+        final LoadedInstanceConfig  remoteConfig = new LoadedInstanceConfig(new ConfigCollectionImpl(makeConfig("S:1:one,S:2:two", 1000), null), 2);
+        ConfigProvider          provider = Mockito.mock(ConfigProvider.class);
+        Mockito.when(provider.loadConfig()).thenAnswer
+        (
+            new Answer<LoadedInstanceConfig>()
+            {
+                @Override
+                public LoadedInstanceConfig answer(InvocationOnMock invocation) throws Throwable
+                {
+                    providerLatch.await();  // simulates an unavailable provider
+                    return remoteConfig;
+                }
+            }
+        );
+
+        ActivityQueue       activityQueue = new ActivityQueue();
+        Exhibitor           mockExhibitor = Mockito.mock(Exhibitor.class);
+        Mockito.when(mockExhibitor.getLog()).thenReturn(new ActivityLog(100));
+        Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
+        Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("one");
+
+        activityQueue.start();
+        ConfigManager       manager = new ConfigManager(mockExhibitor, provider, 100000, cache);
+        try
+        {
+            manager.start();
+            Assert.assertEquals(manager.getLoadedInstanceConfig().getVersion(), 1);
+            Assert.assertEquals(manager.getConfig().getString(StringConfigs.SERVERS_SPEC), "S:1:one");
+
+            providerLatch.countDown();
+            long        startMs = System.currentTimeMillis();
+            while ( manager.getLoadedInstanceConfig().getVersion() != 2 )
+            {
+                Assert.assertTrue((System.currentTimeMillis() - startMs) < TimeUnit.SECONDS.toMillis(10), "Config was not reconciled");
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(manager.getConfig().getString(StringConfigs.SERVERS_SPEC), "S:1:one,S:2:two");
+            Assert.assertEquals(cache.load().getVersion(), 2);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(manager);
+            CloseableUtils.closeQuietly(activityQueue);
+        }
+    }
+
+    private InstanceConfig makeConfig(String serversSpec, int checkMs)
+    {
+        Properties      properties = new Properties();
+        properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.SERVERS_SPEC, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), serversSpec);
+        properties.setProperty(PropertyBasedInstanceConfig.toName(IntConfigs.CHECK_MS, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), Integer.toString(checkMs));
+        return new PropertyBasedInstanceConfig(properties, new Properties()).getRootConfig();
+    }
+}
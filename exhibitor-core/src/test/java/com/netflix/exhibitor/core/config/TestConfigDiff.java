@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.netflix.exhibitor.core.Exhibitor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestConfigDiff
+{
+    @Test
+    public void testDiff()
+    {
+        Properties          oldProperties = new Properties();
+        oldProperties.setProperty(PropertyBasedInstanceConfig.toName(IntConfigs.BACKUP_MAX_STORE_MS, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "1000");
+        oldProperties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.SERVERS_SPEC, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "S:1:one");
+        Properties          newProperties = new Properties();
+        newProperties.putAll(oldProperties);
+        newProperties.setProperty(PropertyBasedInstanceConfig.toName(IntConfigs.BACKUP_MAX_STORE_MS, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "2000");
+
+        ConfigDiff          diff = new ConfigDiff(snapshot(oldProperties), snapshot(newProperties));
+        Assert.assertFalse(diff.isEmpty());
+        Assert.assertEquals(diff.getChangedInts(), ImmutableSet.of(IntConfigs.BACKUP_MAX_STORE_MS));
+        Assert.assertTrue(diff.getChangedStrings().isEmpty());
+        Assert.assertEquals(diff.getOldConfig().getInt(IntConfigs.BACKUP_MAX_STORE_MS), 1000);
+        Assert.assertEquals(diff.getNewConfig().getInt(IntConfigs.BACKUP_MAX_STORE_MS), 2000);
+        Assert.assertTrue(diff.isChanged(ImmutableSet.<StringConfigs>of(), ImmutableSet.of(IntConfigs.BACKUP_MAX_STORE_MS)));
+        Assert.assertFalse(diff.isChanged(ImmutableSet.of(StringConfigs.SERVERS_SPEC), ImmutableSet.of(IntConfigs.CHECK_MS)));
+        Assert.assertEquals(diff.toString(), "BACKUP_MAX_STORE_MS: 1000 -> 2000");
+
+        Assert.assertTrue(new ConfigDiff(snapshot(oldProperties), snapshot(oldProperties)).isEmpty());
+    }
+
+    @Test
+    public void testSubscriptions() throws Exception
+    {
+        Exhibitor                   exhibitor = Mockito.mock(Exhibitor.class, Mockito.RETURNS_MOCKS);
+        Mockito.when(exhibitor.getThisJVMHostname()).thenReturn("one");
+        ConfigProvider              provider = Mockito.mock(ConfigProvider.class);
+        Mockito.when(provider.loadConfig()).thenReturn(new LoadedInstanceConfig(new PropertyBasedInstanceConfig(new Properties(), new Properties()), 1));
+        Mockito.when(provider.storeConfig(Mockito.any(ConfigCollection.class), Mockito.anyLong())).thenAnswer
+        (
+            new Answer<LoadedInstanceConfig>()
+            {
+                @Override
+                public LoadedInstanceConfig answer(InvocationOnMock invocation) throws Throwable
+                {
+                    return new LoadedInstanceConfig((ConfigCollection)invocation.getArguments()[0], 2);
+                }
+            }
+        );
+
+        ConfigManager               manager = new ConfigManager(exhibitor, provider, 1000);
+        final List<ConfigDiff>      all = Lists.newArrayList();
+        final List<ConfigDiff>      checkOnly = Lists.newArrayList();
+        final List<ConfigDiff>      backupOnly = Lists.newArrayList();
+        manager.addConfigListener(new ConfigListener()
+        {
+            @Override
+            public void configUpdated(ConfigDiff diff)
+            {
+                all.add(diff);
+            }
+        });
+        manager.addConfigListener(new ConfigListener()
+        {
+            @Override
+            public void configUpdated(ConfigDiff diff)
+            {
+                checkOnly.add(diff);
+            }
+        }, IntConfigs.CHECK_MS);
+        manager.addConfigListener(new ConfigListener()
+        {
+            @Override
+            public void configUpdated(ConfigDiff diff)
+            {
+                backupOnly.add(diff);
+            }
+        }, IntConfigs.BACKUP_MAX_STORE_MS, StringConfigs.BACKUP_EXTRA);
+        final AtomicInteger         legacyCount = new AtomicInteger(0);
+        manager.addConfigListener(new ConfigListener()
+        {
+            @SuppressWarnings("deprecation")
+            @Override
+            public void configUpdated()
+            {
+                legacyCount.incrementAndGet();  // listeners written against the no-arg callback are still called
+            }
+        });
+
+        Properties                  properties = new Properties();
+        properties.setProperty(PropertyBasedInstanceConfig.toName(IntConfigs.BACKUP_MAX_STORE_MS, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "2000");
+        Assert.assertTrue(manager.updateConfig(new PropertyBasedInstanceConfig(properties, new Properties()).getRootConfig()));
+
+        Assert.assertEquals(all.size(), 1);
+        Assert.assertEquals(legacyCount.get(), 1);
+        Assert.assertEquals(checkOnly.size(), 0);
+        Assert.assertEquals(backupOnly.size(), 1);
+        Assert.assertEquals(backupOnly.get(0).getChangedInts(), ImmutableSet.of(IntConfigs.BACKUP_MAX_STORE_MS));
+    }
+
+    private static ConfigSnapshot snapshot(Properties properties)
+    {
+        return ConfigSnapshot.of(new PropertyBasedInstanceConfig(properties, new Properties()).getRootConfig());
+    }
+}
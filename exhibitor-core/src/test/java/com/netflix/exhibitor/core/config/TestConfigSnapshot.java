@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config;
+
+import com.netflix.exhibitor.core.Exhibitor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.util.Properties;
+
+public class TestConfigSnapshot
+{
+    @Test
+    public void testSnapshot()
+    {
+        Properties                  properties = new Properties();
+        properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.SERVERS_SPEC, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "S:1:one,O:2:two");
+        properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "tickTime=2000&syncLimit=5");
+        properties.setProperty(PropertyBasedInstanceConfig.toName(IntConfigs.CLIENT_PORT, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "2181");
+        PropertyBasedInstanceConfig source = new PropertyBasedInstanceConfig(properties, new Properties());
+
+        ConfigSnapshot              snapshot = ConfigSnapshot.of(source.getRootConfig());
+        Assert.assertSame(ConfigSnapshot.of(snapshot), snapshot);
+        for ( StringConfigs config : StringConfigs.values() )
+        {
+            Assert.assertEquals(snapshot.getString(config), source.getRootConfig().getString(config));
+        }
+        for ( IntConfigs config : IntConfigs.values() )
+        {
+            Assert.assertEquals(snapshot.getInt(config), source.getRootConfig().getInt(config));
+        }
+        Assert.assertEquals(snapshot.getServerList().getSpecs().size(), 2);
+        Assert.assertEquals(snapshot.getZooCfgExtra().getValue("syncLimit"), "5");
+        Assert.assertEquals(snapshot.getBackupExtra().getFieldValues().size(), 0);
+    }
+
+    @Test
+    public void testOnePerVersion() throws Exception
+    {
+        Exhibitor                   exhibitor = Mockito.mock(Exhibitor.class, Mockito.RETURNS_MOCKS);
+        Mockito.when(exhibitor.getThisJVMHostname()).thenReturn("one");
+        ConfigProvider              provider = Mockito.mock(ConfigProvider.class);
+        Properties                  properties = new Properties();
+        Mockito.when(provider.loadConfig()).thenReturn(new LoadedInstanceConfig(new PropertyBasedInstanceConfig(properties, new Properties()), 1));
+
+        ConfigManager               manager = new ConfigManager(exhibitor, provider, 1000);
+        ConfigSnapshot              snapshot = manager.getConfigSnapshot();
+        Assert.assertSame(manager.getConfig(), snapshot);
+        Assert.assertSame(manager.getConfigSnapshot(), snapshot);
+
+        manager.testingSetLoadedInstanceConfig(new LoadedInstanceConfig(new PropertyBasedInstanceConfig(properties, new Properties()), 2));
+        Assert.assertNotSame(manager.getConfigSnapshot(), snapshot);
+    }
+}
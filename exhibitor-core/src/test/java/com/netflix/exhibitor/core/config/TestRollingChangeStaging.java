@@ -27,6 +27,7 @@ import com.netflix.exhibitor.core.processes.ProcessOperations;
 import com.netflix.exhibitor.core.state.InstanceState;
 import com.netflix.exhibitor.core.state.InstanceStateTypes;
 import com.netflix.exhibitor.core.state.MonitorRunningInstance;
+import com.netflix.exhibitor.core.state.RestartTimeline;
 import com.netflix.exhibitor.core.state.StateAndLeader;
 import org.apache.curator.utils.CloseableUtils;
 import org.mockito.Mockito;
@@ -249,7 +250,7 @@ public class TestRollingChangeStaging
         private final AtomicLong lastStartMs = new AtomicLong();
 
         @Override
-        public void startInstance() throws Exception
+        public void startInstance(RestartTimeline timeline) throws Exception
         {
             lastStartMs.set(System.currentTimeMillis());
             Thread.sleep(1000);
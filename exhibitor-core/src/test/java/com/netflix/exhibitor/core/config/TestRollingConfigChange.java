@@ -34,7 +34,11 @@ import org.testng.annotations.Test;
 import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -69,6 +73,7 @@ public class TestRollingConfigChange
         Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("one");
         Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
 
         final AtomicLong    modified = new AtomicLong(1);
         ConfigProvider      provider = new ConfigProvider()
@@ -182,6 +187,7 @@ public class TestRollingConfigChange
         Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("one");
         Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
 
         ConfigProvider      provider = new ConfigWrapper(new AtomicLong(1));
 
@@ -242,6 +248,7 @@ public class TestRollingConfigChange
         Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("_xxxx_");
         Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
 
         ConfigProvider      provider = new ConfigWrapper(new AtomicLong(1));
         ConfigManager       manager = new ConfigManager(mockExhibitor, provider, 10, 1);
@@ -293,6 +300,7 @@ public class TestRollingConfigChange
         Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("one");
         Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
 
         final AtomicLong    modified = new AtomicLong(1);
         ConfigProvider      provider = new ConfigWrapper(modified);
@@ -380,6 +388,7 @@ public class TestRollingConfigChange
         Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("one");
         Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
 
         final AtomicLong    modified = new AtomicLong(1);
         ConfigProvider      provider = new ConfigProvider()
@@ -497,6 +506,7 @@ public class TestRollingConfigChange
         Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("one");
         Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
 
         final AtomicLong    modified = new AtomicLong(1);
         ConfigProvider      provider = new ConfigProvider()
@@ -568,6 +578,79 @@ public class TestRollingConfigChange
         }
     }
 
+    @Test
+    public void testObserverBatches() throws Exception
+    {
+        ServerList          serverList = new ServerList("1:v1,2:v2,3:v3,O:4:o1,O:5:o2,O:6:o3,O:7:o4,O:8:o5,O:9:o6");
+
+        final CountDownLatch            preflightLatch = new CountDownLatch(serverList.getSpecs().size() - 1);
+        RemoteInstanceRequestClient     mockClient = new RemoteInstanceRequestClient()
+        {
+            @Override
+            public void close() throws IOException
+            {
+            }
+
+            @Override
+            public <T> T getWebResource(URI remoteUri, MediaType type, Class<T> clazz) throws Exception
+            {
+                // the first pre-flight only completes if every remaining instance is probed at the same time
+                preflightLatch.countDown();
+                if ( !preflightLatch.await(5, TimeUnit.SECONDS) )
+                {
+                    throw new Exception("probes were not concurrent");
+                }
+                return clazz.cast("foo");
+            }
+        };
+
+        ActivityLog         log = new ActivityLog(100);
+        ActivityQueue       activityQueue = new ActivityQueue();
+        Exhibitor           mockExhibitor = Mockito.mock(Exhibitor.class);
+        MonitorRunningInstance mockMonitorRunningInstance = makeMockMonitorRunningInstance();
+        Mockito.when(mockExhibitor.getMonitorRunningInstance()).thenReturn(mockMonitorRunningInstance);
+        Mockito.when(mockExhibitor.getLog()).thenReturn(log);
+        Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
+        Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn("v1");
+        Mockito.when(mockExhibitor.getRemoteInstanceRequestClient()).thenReturn(mockClient);
+        Mockito.when(mockExhibitor.getConnectionTimeOutMs()).thenReturn(5000);
+
+        final AtomicLong    modified = new AtomicLong(1);
+        ConfigProvider      provider = new ConfigWrapper(modified);
+
+        InstanceState       state = new InstanceState(serverList, InstanceStateTypes.SERVING, new RestartSignificantConfig(null));
+
+        ConfigManager       manager = new ConfigManager(mockExhibitor, provider, 10, ConfigManager.DEFAULT_MAX_ATTEMPTS, 5, null);
+        manager.start();
+        try
+        {
+            Properties                      properties = new Properties();
+            properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.SERVERS_SPEC, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), serverList.toSpecString());
+            PropertyBasedInstanceConfig     config = new PropertyBasedInstanceConfig(properties, DefaultProperties.get(null));
+            manager.startRollingConfig(config.getRootConfig(), null);
+            Assert.assertEquals(manager.getRollingConfigState().getRollingHostNames(), Arrays.asList("v1", "v2", "v3", "o1", "o2", "o3", "o4", "o5", "o6"));
+
+            // voters one at a time, then observers in batches of 5
+            List<String>        expectedDrivers = Arrays.asList("v1", "v2", "v3", "o5", "o6");
+            for ( String hostname : expectedDrivers )
+            {
+                Assert.assertTrue(manager.isRolling());
+
+                RollingReleaseState     rollingState = new RollingReleaseState(state, manager.getCollection());
+                Assert.assertEquals(rollingState.getCurrentRollingHostname(), hostname);
+
+                Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn(hostname);
+                manager.checkRollingConfig(state);
+            }
+
+            Assert.assertFalse(manager.isRolling());
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(manager);
+        }
+    }
+
     private MonitorRunningInstance makeMockMonitorRunningInstance()
     {
         final AtomicInteger restartCounter = new AtomicInteger(1);
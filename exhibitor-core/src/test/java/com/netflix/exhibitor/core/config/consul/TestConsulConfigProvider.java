@@ -1,6 +1,7 @@
 package com.netflix.exhibitor.core.config.consul;
 
 import com.google.common.net.HostAndPort;
+import com.netflix.exhibitor.core.config.ConfigWatcher;
 import com.netflix.exhibitor.core.config.LoadedInstanceConfig;
 import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
 import com.netflix.exhibitor.core.config.StringConfigs;
@@ -15,6 +16,9 @@ import org.testng.annotations.*;
 
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 
 public class TestConsulConfigProvider {
@@ -67,4 +71,68 @@ public class TestConsulConfigProvider {
             CloseableUtils.closeQuietly(config);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentModification() throws Exception {
+        ConsulConfigProvider config1 = new ConsulConfigProvider(client, "prefix", new Properties());
+        ConsulConfigProvider config2 = new ConsulConfigProvider(client, "prefix", new Properties());
+
+        try {
+            LoadedInstanceConfig loaded1 = config1.storeConfig(makeConfig("1,2,3"), 0);
+            Assert.assertNotNull(loaded1);
+            Assert.assertNull(config2.storeConfig(makeConfig("4,5,6"), 0), "Stale version must not be stored");
+
+            LoadedInstanceConfig loaded2 = config2.loadConfig();
+            Assert.assertEquals(loaded2.getVersion(), loaded1.getVersion());
+            Assert.assertEquals(loaded2.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "1,2,3");
+
+            Assert.assertNotNull(config2.storeConfig(makeConfig("4,5,6"), loaded2.getVersion()));
+            Assert.assertNull(config1.storeConfig(makeConfig("7,8,9"), loaded1.getVersion()));
+            Assert.assertEquals(config1.loadConfig().getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "4,5,6");
+
+            List<SessionInfo> sessions = client.sessionClient().listSessions();
+            Assert.assertEquals(sessions.size(), 0, "Consul session still exists!");
+        }
+        finally {
+            CloseableUtils.closeQuietly(config2);
+            CloseableUtils.closeQuietly(config1);
+        }
+    }
+
+    @Test
+    public void testWatcher() throws Exception {
+        ConsulConfigProvider config1 = new ConsulConfigProvider(client, "prefix", new Properties());
+        ConsulConfigProvider config2 = new ConsulConfigProvider(client, "prefix", new Properties());
+
+        try {
+            final BlockingQueue<LoadedInstanceConfig> pushed = new LinkedBlockingQueue<LoadedInstanceConfig>();
+            config1.setConfigWatcher(new ConfigWatcher() {
+                @Override
+                public void configChanged(LoadedInstanceConfig newConfig) {
+                    pushed.add(newConfig);
+                }
+            });
+            config1.start();
+
+            LoadedInstanceConfig stored = config2.storeConfig(makeConfig("1,2,3"), 0);
+            Assert.assertNotNull(stored);
+
+            LoadedInstanceConfig newConfig;
+            do {
+                newConfig = pushed.poll(timing.forWaiting().milliseconds(), TimeUnit.MILLISECONDS);
+                Assert.assertNotNull(newConfig);
+            } while (newConfig.getVersion() != stored.getVersion());
+            Assert.assertEquals(newConfig.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "1,2,3");
+        }
+        finally {
+            CloseableUtils.closeQuietly(config2);
+            CloseableUtils.closeQuietly(config1);
+        }
+    }
+
+    private PropertyBasedInstanceConfig makeConfig(String zooCfgExtra) {
+        Properties properties = new Properties();
+        properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), zooCfgExtra);
+        return new PropertyBasedInstanceConfig(properties, new Properties());
+    }
+}
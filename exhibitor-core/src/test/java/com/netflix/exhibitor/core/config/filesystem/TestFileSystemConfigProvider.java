@@ -0,0 +1,213 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config.filesystem;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.netflix.exhibitor.core.config.AutoManageLockArguments;
+import com.netflix.exhibitor.core.config.ConfigWatcher;
+import com.netflix.exhibitor.core.config.LoadedInstanceConfig;
+import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
+import com.netflix.exhibitor.core.config.StringConfigs;
+import org.apache.curator.utils.CloseableUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class TestFileSystemConfigProvider
+{
+    private static final String FILE_NAME = "exhibitor.properties";
+
+    private File directory;
+
+    @BeforeMethod
+    public void setup()
+    {
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        File[]      files = directory.listFiles();
+        if ( files != null )
+        {
+            for ( File f : files )
+            {
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception
+    {
+        FileSystemConfigProvider    provider = newProvider();
+        try
+        {
+            LoadedInstanceConfig    empty = provider.loadConfig();
+            Assert.assertEquals(empty.getVersion(), 0);
+
+            LoadedInstanceConfig    stored = provider.storeConfig(makeConfig("1,2,3"), empty.getVersion());
+            Assert.assertNotNull(stored);
+            Assert.assertTrue(stored.getVersion() > empty.getVersion());
+
+            LoadedInstanceConfig    loaded = provider.loadConfig();
+            Assert.assertEquals(loaded.getVersion(), stored.getVersion());
+            Assert.assertEquals(loaded.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "1,2,3");
+            Assert.assertSame(provider.loadConfig(), loaded);   // unchanged file is not re-parsed
+
+            Assert.assertNull(provider.storeConfig(makeConfig("4,5,6"), empty.getVersion()));
+
+            // successive stores must always advance the version
+            LoadedInstanceConfig    restored = provider.storeConfig(makeConfig("4,5,6"), loaded.getVersion());
+            Assert.assertNotNull(restored);
+            Assert.assertTrue(restored.getVersion() > loaded.getVersion());
+            Assert.assertEquals(provider.loadConfig().getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "4,5,6");
+
+            // no temp files are left behind
+            Assert.assertEquals(Sets.newHashSet(directory.list()), Sets.newHashSet(Arrays.asList(FILE_NAME, FILE_NAME + ".lock")));
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(provider);
+        }
+    }
+
+    @Test
+    public void testExternalEdit() throws Exception
+    {
+        FileSystemConfigProvider    provider = newProvider();
+        try
+        {
+            LoadedInstanceConfig    stored = provider.storeConfig(makeConfig("1,2,3"), 0);
+            Assert.assertNotNull(stored);
+            Assert.assertEquals(provider.loadConfig().getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "1,2,3");
+
+            File        file = new File(directory, FILE_NAME);
+            String      name = PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX);
+            Files.asCharSink(file, Charsets.ISO_8859_1).write(name + "=a,b,c,d,e\n");
+            Assert.assertTrue(file.setLastModified(stored.getVersion() + 2000));
+
+            Assert.assertEquals(provider.loadConfig().getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "a,b,c,d,e");
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(provider);
+        }
+    }
+
+    @Test
+    public void testLegacyTruncatedRead() throws Exception
+    {
+        FileSystemConfigProvider    provider = newProvider();
+        try
+        {
+            LoadedInstanceConfig    stored = provider.storeConfig(makeConfig("1,2,3"), 0);
+            Assert.assertNotNull(stored);
+
+            // older instances truncate the file before writing it
+            final File      file = new File(directory, FILE_NAME);
+            final String    name = PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX);
+            Files.asCharSink(file, Charsets.ISO_8859_1).write("");
+            Thread      writer = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        Thread.sleep(150);
+                        Files.asCharSink(file, Charsets.ISO_8859_1).write(name + "=a,b,c\n");
+                    }
+                    catch ( Exception e )
+                    {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            writer.start();
+
+            Assert.assertEquals(provider.loadConfig().getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "a,b,c");
+            writer.join();
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(provider);
+        }
+    }
+
+    @Test
+    public void testWatcher() throws Exception
+    {
+        FileSystemConfigProvider    provider = newProvider();
+        FileSystemConfigProvider    otherProvider = newProvider();
+        try
+        {
+            final BlockingQueue<LoadedInstanceConfig>   pushed = new LinkedBlockingQueue<LoadedInstanceConfig>();
+            provider.setConfigWatcher
+            (
+                new ConfigWatcher()
+                {
+                    @Override
+                    public void configChanged(LoadedInstanceConfig newConfig)
+                    {
+                        pushed.add(newConfig);
+                    }
+                }
+            );
+            provider.start();
+            Assert.assertFalse(provider.seesAllChanges());
+
+            LoadedInstanceConfig    stored = otherProvider.storeConfig(makeConfig("1,2,3"), 0);
+            Assert.assertNotNull(stored);
+
+            LoadedInstanceConfig    newConfig = pushed.poll(10, TimeUnit.SECONDS);
+            Assert.assertNotNull(newConfig);
+            Assert.assertEquals(newConfig.getVersion(), stored.getVersion());
+            Assert.assertEquals(newConfig.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "1,2,3");
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(otherProvider);
+            CloseableUtils.closeQuietly(provider);
+        }
+    }
+
+    private FileSystemConfigProvider newProvider() throws Exception
+    {
+        return new FileSystemConfigProvider(directory, FILE_NAME, new AutoManageLockArguments("exhibitor-lock-"));
+    }
+
+    private PropertyBasedInstanceConfig makeConfig(String zooCfgExtra)
+    {
+        Properties      properties = new Properties();
+        properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), zooCfgExtra);
+        return new PropertyBasedInstanceConfig(properties, new Properties());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.config.s3;
+
+import com.amazonaws.services.s3.model.S3Object;
+import com.netflix.exhibitor.core.backup.s3.MockS3Client;
+import com.netflix.exhibitor.core.backup.s3.MockS3ClientFactory;
+import com.netflix.exhibitor.core.config.LoadedInstanceConfig;
+import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
+import com.netflix.exhibitor.core.config.StringConfigs;
+import com.netflix.exhibitor.core.s3.PropertyBasedS3Credential;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestS3ConfigProvider
+{
+    @Test
+    public void testConditionalLoad() throws Exception
+    {
+        final AtomicInteger     downloadCount = new AtomicInteger(0);
+        MockS3Client            client = new MockS3Client()
+        {
+            @Override
+            public synchronized S3Object getObject(String bucket, String key) throws Exception
+            {
+                downloadCount.incrementAndGet();
+                return super.getObject(bucket, key);
+            }
+        };
+        S3ConfigArguments       arguments = new S3ConfigArguments("bucket", "key", null);
+        S3ConfigProvider        provider = new S3ConfigProvider(new MockS3ClientFactory(client), new PropertyBasedS3Credential(new Properties()), arguments, "foo", null);
+        S3ConfigProvider        otherProvider = new S3ConfigProvider(new MockS3ClientFactory(client), new PropertyBasedS3Credential(new Properties()), arguments, "bar", null);
+
+        Assert.assertEquals(provider.loadConfig().getVersion(), 0);
+
+        LoadedInstanceConfig    stored = provider.storeConfig(makeConfig("1,2,3"), 0);
+        Assert.assertNotNull(stored);
+
+        // the store invalidates the cache so the next load fetches the body
+        downloadCount.set(0);
+        LoadedInstanceConfig    loaded = provider.loadConfig();
+        Assert.assertEquals(downloadCount.get(), 1);
+        Assert.assertEquals(loaded.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "1,2,3");
+
+        // unchanged - served from the cache
+        Assert.assertSame(provider.loadConfig(), loaded);
+        Assert.assertSame(provider.loadConfig(), loaded);
+        Assert.assertEquals(downloadCount.get(), 1);
+
+        // changed by another instance
+        Assert.assertNotNull(otherProvider.storeConfig(makeConfig("4,5,6"), loaded.getVersion()));
+        LoadedInstanceConfig    reloaded = provider.loadConfig();
+        Assert.assertNotSame(reloaded, loaded);
+        Assert.assertEquals(reloaded.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA), "4,5,6");
+    }
+
+    private PropertyBasedInstanceConfig makeConfig(String zooCfgExtra)
+    {
+        Properties      properties = new Properties();
+        properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), zooCfgExtra);
+        return new PropertyBasedInstanceConfig(properties, new Properties());
+    }
+}
@@ -16,9 +16,13 @@
 
 package com.netflix.exhibitor.core.config.s3;
 
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.google.common.collect.Lists;
 import com.netflix.exhibitor.core.activity.ActivityLog;
 import com.netflix.exhibitor.core.backup.s3.MockS3Client;
+import com.netflix.exhibitor.core.config.PseudoLockBase;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -59,6 +63,17 @@ public class TestS3PseudoLock
 
     @Test(enabled = false) // Too flaky to be useful right now. See https://github.com/soabase/exhibitor/issues/329.
     public void         testBlocking() throws Exception
+    {
+        testBlocking(0);
+    }
+
+    @Test
+    public void         testBlockingStronglyConsistent() throws Exception
+    {
+        testBlocking(PseudoLockBase.STRONGLY_CONSISTENT);
+    }
+
+    private void        testBlocking(final int settlingMs) throws Exception
     {
         final int       QTY = 5;
         final int       POLLING_MS = 1;
@@ -79,7 +94,7 @@ public class TestS3PseudoLock
                     @Override
                     public Void call() throws Exception
                     {
-                        S3PseudoLock lock = new S3PseudoLock(client, "foo", "bar", Integer.MAX_VALUE, POLLING_MS, 0);
+                        S3PseudoLock lock = new S3PseudoLock(client, "foo", "bar", Integer.MAX_VALUE, POLLING_MS, settlingMs);
                         try
                         {
                             Assert.assertTrue(lock.lock(mockLog, 10, TimeUnit.SECONDS));
@@ -161,4 +176,56 @@ public class TestS3PseudoLock
         Assert.assertTrue(lock.lock(mockLog, 5, TimeUnit.SECONDS));
         lock.unlock();
     }
+
+    @Test
+    public void         testContended() throws Exception
+    {
+        MockS3Client        client = new MockS3Client();
+        ActivityLog         mockLog = Mockito.mock(ActivityLog.class);
+
+        S3PseudoLock        lock1 = new S3PseudoLock(client, "foo", "bar", 10000, 1, PseudoLockBase.STRONGLY_CONSISTENT);
+        S3PseudoLock        lock2 = new S3PseudoLock(client, "foo", "bar", 10000, 1, PseudoLockBase.STRONGLY_CONSISTENT);
+        Assert.assertTrue(lock1.lock(mockLog, 5, TimeUnit.SECONDS));
+        Assert.assertFalse(lock2.lock(mockLog, 100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(lock1.getFileNames("bar").size(), 1);  // the loser's key was withdrawn
+
+        lock1.unlock();
+        Assert.assertTrue(lock2.lock(mockLog, 5, TimeUnit.SECONDS));
+        lock2.unlock();
+    }
+
+    @Test
+    public void         testPagedListing() throws Exception
+    {
+        final ObjectListing     firstPage = new ObjectListing();
+        firstPage.setTruncated(true);
+        for ( int i = 0; i < 3; ++i )
+        {
+            S3ObjectSummary     summary = new S3ObjectSummary();
+            summary.setKey("bar_" + i);
+            firstPage.getObjectSummaries().add(summary);
+        }
+        MockS3Client        client = new MockS3Client()
+        {
+            @Override
+            public synchronized ObjectListing listObjects(ListObjectsRequest request) throws Exception
+            {
+                return firstPage;
+            }
+
+            @Override
+            public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) throws Exception
+            {
+                Assert.assertSame(previousObjectListing, firstPage);
+                ObjectListing       listing = new ObjectListing();
+                S3ObjectSummary     summary = new S3ObjectSummary();
+                summary.setKey("bar_3");
+                listing.getObjectSummaries().add(summary);
+                return listing;
+            }
+        };
+
+        S3PseudoLock        lock = new S3PseudoLock(client, "foo", "bar", 10000, 1, 0);
+        Assert.assertEquals(lock.getFileNames("bar"), Lists.newArrayList("bar_0", "bar_1", "bar_2", "bar_3"));
+    }
 }
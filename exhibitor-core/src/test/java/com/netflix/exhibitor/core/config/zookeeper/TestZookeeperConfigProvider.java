@@ -16,6 +16,7 @@
 
 package com.netflix.exhibitor.core.config.zookeeper;
 
+import com.netflix.exhibitor.core.config.ConfigWatcher;
 import com.netflix.exhibitor.core.config.LoadedInstanceConfig;
 import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
 import com.netflix.exhibitor.core.config.StringConfigs;
@@ -32,7 +33,10 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 public class TestZookeeperConfigProvider
 {
@@ -96,7 +100,14 @@ public class TestZookeeperConfigProvider
 
             Assert.assertNull(config1.storeConfig(new PropertyBasedInstanceConfig(properties, new Properties()), loaded1.getVersion()));
 
+            // config1 reads from its cache which may lag behind config2's write
+            long                    waitUntil = System.currentTimeMillis() + timing.forWaiting().milliseconds();
             LoadedInstanceConfig    newLoaded1 = config1.loadConfig();
+            while ( (newLoaded1.getVersion() == loaded1.getVersion()) && (System.currentTimeMillis() < waitUntil) )
+            {
+                Thread.sleep(10);
+                newLoaded1 = config1.loadConfig();
+            }
             Assert.assertNotEquals(loaded1.getVersion(), newLoaded1.getVersion());
         }
         finally
@@ -106,6 +117,52 @@ public class TestZookeeperConfigProvider
         }
     }
 
+    @Test
+    public void testWatcher() throws Exception
+    {
+        ZookeeperConfigProvider config1 = new ZookeeperConfigProvider(client, "/foo", new Properties(), "foo");
+        ZookeeperConfigProvider config2 = new ZookeeperConfigProvider(client, "/foo", new Properties(), "bar");
+        try
+        {
+            final BlockingQueue<LoadedInstanceConfig>   pushed = new LinkedBlockingQueue<LoadedInstanceConfig>();
+            config1.setConfigWatcher
+            (
+                new ConfigWatcher()
+                {
+                    @Override
+                    public void configChanged(LoadedInstanceConfig newConfig)
+                    {
+                        pushed.add(newConfig);
+                    }
+                }
+            );
+            config1.start();
+            config2.start();
+
+            Properties              properties = new Properties();
+            properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "1,2,3");
+            LoadedInstanceConfig    stored = config2.storeConfig(new PropertyBasedInstanceConfig(properties, new Properties()), -1);
+
+            LoadedInstanceConfig    first = pushed.poll(timing.forWaiting().milliseconds(), TimeUnit.MILLISECONDS);
+            Assert.assertNotNull(first);
+            Assert.assertEquals(first.getVersion(), stored.getVersion());
+            Assert.assertEquals("1,2,3", first.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA));
+
+            properties.setProperty(PropertyBasedInstanceConfig.toName(StringConfigs.ZOO_CFG_EXTRA, PropertyBasedInstanceConfig.ROOT_PROPERTY_PREFIX), "4,5,6");
+            stored = config2.storeConfig(new PropertyBasedInstanceConfig(properties, new Properties()), stored.getVersion());
+
+            LoadedInstanceConfig    second = pushed.poll(timing.forWaiting().milliseconds(), TimeUnit.MILLISECONDS);
+            Assert.assertNotNull(second);
+            Assert.assertEquals(second.getVersion(), stored.getVersion());
+            Assert.assertEquals("4,5,6", second.getConfig().getRootConfig().getString(StringConfigs.ZOO_CFG_EXTRA));
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(config2);
+            CloseableUtils.closeQuietly(config1);
+        }
+    }
+
     @Test
     public void testBasic() throws Exception
     {
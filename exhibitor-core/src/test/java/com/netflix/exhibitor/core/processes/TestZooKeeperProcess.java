@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.processes;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.io.File;
+import java.time.Instant;
+import java.util.Optional;
+
+public class TestZooKeeperProcess
+{
+    @Test
+    public void testPidFile() throws Exception
+    {
+        File        directory = Files.createTempDir();
+        Process     process = new ProcessBuilder("sleep", "60").start();
+        try
+        {
+            File        pidFile = ZooKeeperProcess.getPidFile(directory);
+            Assert.assertNull(ZooKeeperProcess.readPidFile(pidFile));
+
+            Files.asCharSink(pidFile, Charsets.UTF_8).write("not a pid\n");
+            Assert.assertNull(ZooKeeperProcess.readPidFile(pidFile));
+
+            Files.asCharSink(pidFile, Charsets.UTF_8).write(process.pid() + "\n");
+            ProcessHandle   handle = ZooKeeperProcess.readPidFile(pidFile);
+            Assert.assertNotNull(handle);
+            Assert.assertEquals(handle.pid(), process.pid());
+
+            // not QuorumPeerMain so it must not be tracked
+            Assert.assertNull(new ZooKeeperProcess().track(pidFile));
+
+            Assert.assertTrue(ZooKeeperProcess.terminate(handle, 1000, 1000));
+            Assert.assertFalse(process.isAlive());
+            Assert.assertNull(ZooKeeperProcess.readPidFile(pidFile));
+        }
+        finally
+        {
+            process.destroyForcibly();
+            for ( File f : directory.listFiles() )
+            {
+                f.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testIsZooKeeper()
+    {
+        Optional<String[]>  hidden = Optional.empty();
+        long                pidFileModifiedMs = System.currentTimeMillis();
+        Instant             before = Instant.ofEpochMilli(pidFileModifiedMs - 60000);
+        Instant             after = Instant.ofEpochMilli(pidFileModifiedMs + 60000);
+
+        Assert.assertTrue(ZooKeeperProcess.isZooKeeper(Optional.of(new String[]{"java", ZooKeeperProcess.MAIN_CLASS}), Optional.of(after), pidFileModifiedMs));
+        Assert.assertFalse(ZooKeeperProcess.isZooKeeper(Optional.of(new String[]{"sleep", "60"}), Optional.of(before), pidFileModifiedMs));
+
+        // arguments hidden by the OS - fall back to the start time
+        Assert.assertTrue(ZooKeeperProcess.isZooKeeper(hidden, Optional.of(before), pidFileModifiedMs));
+        Assert.assertFalse(ZooKeeperProcess.isZooKeeper(hidden, Optional.of(after), pidFileModifiedMs));
+        Assert.assertFalse(ZooKeeperProcess.isZooKeeper(hidden, Optional.<Instant>empty(), pidFileModifiedMs));
+        Assert.assertFalse(ZooKeeperProcess.isZooKeeper(hidden, Optional.of(before), 0));
+    }
+}
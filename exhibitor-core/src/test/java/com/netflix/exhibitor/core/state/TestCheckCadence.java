@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCheckCadence
+{
+    @Test
+    public void testBackoffAndRapid()
+    {
+        CheckCadence    cadence = new CheckCadence();
+        int             checkMs = 8000;
+        long            rapidMs = checkMs / CheckCadence.RAPID_DIVISOR;
+
+        long            periodMs = 0;
+        for ( int i = 0; i < 20; ++i )
+        {
+            long    nextPeriodMs = cadence.update(InstanceStateTypes.SERVING, false, checkMs);
+            Assert.assertTrue(nextPeriodMs >= periodMs);
+            periodMs = nextPeriodMs;
+        }
+        Assert.assertEquals(periodMs, checkMs * CheckCadence.MAX_BACKOFF_FACTOR);    // a stable serving follower backs off
+
+        Assert.assertEquals(cadence.update(InstanceStateTypes.NOT_SERVING, false, checkMs), rapidMs);
+        Assert.assertEquals(cadence.update(InstanceStateTypes.NOT_SERVING, false, checkMs), rapidMs * 2);
+        for ( int i = 0; i < 20; ++i )
+        {
+            periodMs = cadence.update(InstanceStateTypes.NOT_SERVING, false, checkMs);
+        }
+        Assert.assertEquals(periodMs, checkMs);
+
+        Assert.assertEquals(cadence.update(InstanceStateTypes.SERVING, false, checkMs), rapidMs);
+        cadence.update(InstanceStateTypes.SERVING, false, checkMs);
+        Assert.assertEquals(cadence.update(InstanceStateTypes.SERVING, true, checkMs), rapidMs);   // leader change
+        for ( int i = 0; i < 20; ++i )
+        {
+            periodMs = cadence.update(InstanceStateTypes.SERVING, true, checkMs);
+        }
+        Assert.assertEquals(periodMs, checkMs);    // the leader is still checked at the configured period
+    }
+
+    @Test
+    public void testCheckMsChange()
+    {
+        CheckCadence    cadence = new CheckCadence();
+        Assert.assertEquals(cadence.getPeriodMs(8000), 8000);
+
+        cadence.update(InstanceStateTypes.SERVING, false, 8000);
+        cadence.update(InstanceStateTypes.NOT_SERVING, false, 8000);
+        Assert.assertEquals(cadence.getPeriodMs(16000), 16000 / CheckCadence.RAPID_DIVISOR);   // still rapid after a transition
+        for ( int i = 0; i < 20; ++i )
+        {
+            cadence.update(InstanceStateTypes.NOT_SERVING, false, 8000);
+        }
+        Assert.assertEquals(cadence.getPeriodMs(4000), 4000);
+    }
+
+    @Test
+    public void testSmallCheckMs()
+    {
+        CheckCadence    cadence = new CheckCadence();
+        Assert.assertEquals(cadence.update(InstanceStateTypes.DOWN, false, 1), 1);
+        Assert.assertEquals(cadence.update(InstanceStateTypes.SERVING, false, 1), 1);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import com.netflix.exhibitor.core.config.StringConfigs;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestDynamicReconfig
+{
+    private static final String CURRENT_CONFIG =
+        "server.1=foo:2888:3888:participant;0.0.0.0:2181\n" +
+        "server.2=bar:2888:3888:participant;0.0.0.0:2181\n" +
+        "server.3=baz:2888:3888:participant;0.0.0.0:2181\n" +
+        "version=100000000\n";
+
+    private final InstanceConfig config = new InstanceConfig()
+    {
+        @Override
+        public String getString(StringConfigs config)
+        {
+            return null;
+        }
+
+        @Override
+        public int getInt(IntConfigs config)
+        {
+            switch ( config )
+            {
+                case CLIENT_PORT:
+                {
+                    return 2181;
+                }
+
+                case CONNECT_PORT:
+                {
+                    return 2888;
+                }
+
+                case ELECTION_PORT:
+                {
+                    return 3888;
+                }
+            }
+            return 0;
+        }
+    };
+
+    @Test
+    public void testNoChange()
+    {
+        DynamicReconfig.Change change = DynamicReconfig.computeChange(CURRENT_CONFIG, new ServerList("S:1:foo,S:2:bar,S:3:baz"), config);
+        Assert.assertTrue(change.isEmpty());
+
+        // 3.4 style values without a role are participants
+        change = DynamicReconfig.computeChange("server.1=foo:2888:3888\nversion=1\n", new ServerList("S:1:foo"), config);
+        Assert.assertTrue(change.isEmpty());
+    }
+
+    @Test
+    public void testAddAndRemove()
+    {
+        DynamicReconfig.Change change = DynamicReconfig.computeChange(CURRENT_CONFIG, new ServerList("S:1:foo,S:3:baz,S:4:qux,O:5:quux"), config);
+        Assert.assertEquals(change.joining, ImmutableList.of("server.4=qux:2888:3888:participant;2181", "server.5=quux:2888:3888:observer;2181"));
+        Assert.assertEquals(change.leaving, ImmutableList.of("2"));
+    }
+
+    @Test
+    public void testRoleChange()
+    {
+        DynamicReconfig.Change change = DynamicReconfig.computeChange(CURRENT_CONFIG, new ServerList("S:1:foo,S:2:bar,O:3:baz"), config);
+        Assert.assertEquals(change.joining, ImmutableList.of("server.3=baz:2888:3888:observer;2181"));
+        Assert.assertTrue(change.leaving.isEmpty());
+    }
+
+    @Test
+    public void testVersion()
+    {
+        Assert.assertEquals(DynamicReconfig.getVersion(CURRENT_CONFIG), 0x100000000L);
+        Assert.assertEquals(DynamicReconfig.getVersion("server.1=foo:2888:3888\n"), -1);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.curator.utils.CloseableUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Selector;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TestFourLetterWordProbes
+{
+    @Test
+    public void testConcurrentProbes() throws Exception
+    {
+        final ServerSocket      server = new ServerSocket(0);
+        ExecutorService         service = Executors.newCachedThreadPool();
+        FourLetterWordProbes    probes = new FourLetterWordProbes();
+        probes.start();
+        try
+        {
+            service.submit
+            (
+                new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        for(;;)
+                        {
+                            final Socket    socket = server.accept();
+                            InputStream     in = socket.getInputStream();
+                            byte[]          word = new byte[4];
+                            ByteStreams.readFully(in, word);
+                            OutputStream    out = socket.getOutputStream();
+                            out.write("imok".getBytes());
+                            out.close();
+                            socket.close();
+                        }
+                    }
+                }
+            );
+
+            List<ListenableFuture<FourLetterWord>>  futures = Lists.newArrayList();
+            for ( int i = 0; i < 50; ++i )
+            {
+                futures.add(probes.submit(FourLetterWord.Word.RUOK, "localhost", server.getLocalPort(), 10000));
+            }
+            for ( ListenableFuture<FourLetterWord> future : futures )
+            {
+                Assert.assertEquals(future.get(10, TimeUnit.SECONDS).getResponse(), "imok");
+            }
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(probes);
+            service.shutdownNow();
+            server.close();
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception
+    {
+        ServerSocket            server = new ServerSocket(0);  // accepts via the backlog but never responds
+        FourLetterWordProbes    probes = new FourLetterWordProbes();
+        probes.start();
+        try
+        {
+            long                            startMs = System.currentTimeMillis();
+            ListenableFuture<FourLetterWord>  future = probes.submit(FourLetterWord.Word.RUOK, "localhost", server.getLocalPort(), 250);
+            Assert.assertEquals(future.get(10, TimeUnit.SECONDS).getResponse(), "");
+            long                            elapsedMs = System.currentTimeMillis() - startMs;
+            Assert.assertTrue(elapsedMs >= 250, "elapsed: " + elapsedMs);
+            Assert.assertTrue(elapsedMs < 5000, "elapsed: " + elapsedMs);
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(probes);
+            server.close();
+        }
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception
+    {
+        ServerSocket    server = new ServerSocket(0);
+        int             port = server.getLocalPort();
+        server.close();
+
+        FourLetterWordProbes    probes = new FourLetterWordProbes();
+        probes.start();
+        try
+        {
+            Assert.assertEquals(probes.submit(FourLetterWord.Word.RUOK, "localhost", port, 10000).get(10, TimeUnit.SECONDS).getResponse(), "");
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(probes);
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception
+    {
+        FourLetterWordProbes    probes = new FourLetterWordProbes();
+        probes.start();
+        probes.close();
+        Assert.assertEquals(probes.submit(FourLetterWord.Word.RUOK, "localhost", 1, 10000).get(10, TimeUnit.SECONDS).getResponse(), "");
+    }
+
+    @Test
+    public void testLoopFailure() throws Exception
+    {
+        ServerSocket            server = new ServerSocket(0);  // accepts via the backlog but never responds
+        Selector                selector = Selector.open();
+        FourLetterWordProbes    probes = new FourLetterWordProbes(selector);
+        probes.start();
+        try
+        {
+            ListenableFuture<FourLetterWord>  inFlight = probes.submit(FourLetterWord.Word.RUOK, "localhost", server.getLocalPort(), 60000);
+            selector.close();   // the loop's next select fails with ClosedSelectorException
+
+            Assert.assertEquals(inFlight.get(10, TimeUnit.SECONDS).getResponse(), "");
+            Assert.assertEquals(probes.submit(FourLetterWord.Word.RUOK, "localhost", server.getLocalPort(), 60000).get(10, TimeUnit.SECONDS).getResponse(), "");
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(probes);
+            server.close();
+        }
+    }
+
+    @Test
+    public void testCloseBeforeStart() throws Exception
+    {
+        Selector                selector = Selector.open();
+        FourLetterWordProbes    probes = new FourLetterWordProbes(selector);
+        ListenableFuture<FourLetterWord>  queued = probes.submit(FourLetterWord.Word.RUOK, "localhost", 1, 60000);
+        probes.close();
+        Assert.assertFalse(selector.isOpen());
+        Assert.assertEquals(queued.get(10, TimeUnit.SECONDS).getResponse(), "");
+    }
+}
@@ -16,16 +16,23 @@
 
 package com.netflix.exhibitor.core.state;
 
+import com.google.common.collect.Lists;
 import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.activity.Activity;
+import com.netflix.exhibitor.core.activity.ActivityQueue;
+import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.config.ConfigManager;
 import com.netflix.exhibitor.core.config.InstanceConfig;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.StringConfigs;
 import com.netflix.exhibitor.core.controlpanel.ControlPanelTypes;
 import com.netflix.exhibitor.core.controlpanel.ControlPanelValues;
+import org.apache.curator.utils.CloseableUtils;
 import org.mockito.Mockito;
 import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
+import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,6 +40,18 @@ import java.util.prefs.Preferences;
 
 public class TestMonitorRunningInstance
 {
+    private final List<FourLetterWordProbes> fourLetterWordProbesList = Lists.newArrayList();
+
+    @AfterMethod
+    public void tearDown()
+    {
+        for ( FourLetterWordProbes fourLetterWordProbes : fourLetterWordProbesList )
+        {
+            CloseableUtils.closeQuietly(fourLetterWordProbes);
+        }
+        fourLetterWordProbesList.clear();
+    }
+
     @Test
     public void testServerListHasChanged() throws Exception
     {
@@ -221,7 +240,75 @@ public class TestMonitorRunningInstance
         Assert.assertTrue(semaphore.tryAcquire(10, TimeUnit.SECONDS));
     }
 
-    private Exhibitor makeMockExhibitor(InstanceConfig config, String us)
+    @Test
+    public void testConfigWorkRunsOutsideTheCheck() throws Exception
+    {
+        InstanceConfig config = new InstanceConfig()
+        {
+            @Override
+            public String getString(StringConfigs config)
+            {
+                return (config == StringConfigs.SERVERS_SPEC) ? "1:foo,2:bar" : null;
+            }
+
+            @Override
+            public int getInt(IntConfigs config)
+            {
+                return (config == IntConfigs.CHECK_MS) ? 10000 : 0;
+            }
+        };
+        Exhibitor mockExhibitor = makeMockExhibitor(config, "foo");
+        ActivityQueue activityQueue = Mockito.mock(ActivityQueue.class);
+        Mockito.when(mockExhibitor.getActivityQueue()).thenReturn(activityQueue);
+        MonitorRunningInstance monitor = new MonitorRunningInstance(mockExhibitor);
+
+        // the check has a deadline - it must only queue the rolling config work
+        monitor.doWork();
+        Mockito.verify(mockExhibitor.getConfigManager(), Mockito.never()).checkRollingConfig(Mockito.any(InstanceState.class), Mockito.anyInt());
+        Mockito.verify(activityQueue).replace(Mockito.eq(QueueGroups.MAIN), Mockito.any(Activity.class));
+
+        monitor.doConfigWork();
+        Mockito.verify(mockExhibitor.getConfigManager()).checkRollingConfig(Mockito.any(InstanceState.class), Mockito.eq(monitor.getRestartCount()));
+    }
+
+    @Test
+    public void testCanReconfigureLive() throws Exception
+    {
+        final AtomicInteger dynamicReconfig = new AtomicInteger(1);
+        InstanceConfig config = new InstanceConfig()
+        {
+            @Override
+            public String getString(StringConfigs config)
+            {
+                return null;
+            }
+
+            @Override
+            public int getInt(IntConfigs config)
+            {
+                return (config == IntConfigs.DYNAMIC_RECONFIG) ? dynamicReconfig.get() : 0;
+            }
+        };
+        Exhibitor mockExhibitor = makeMockExhibitor(config, "foo");
+        MonitorRunningInstance monitor = new MonitorRunningInstance(mockExhibitor);
+
+        RestartSignificantConfig restartSignificantConfig = new RestartSignificantConfig(config);
+        InstanceState localCurrentInstanceState = new InstanceState(new ServerList("S:1:foo,S:2:bar,S:3:baz"), InstanceStateTypes.SERVING, restartSignificantConfig);
+        InstanceState added = new InstanceState(new ServerList("S:1:foo,S:2:bar,S:3:baz,S:4:qux,S:5:quux"), InstanceStateTypes.SERVING, restartSignificantConfig);
+        InstanceState demoted = new InstanceState(new ServerList("O:1:foo,S:2:bar,S:3:baz"), InstanceStateTypes.SERVING, restartSignificantConfig);
+        InstanceState removed = new InstanceState(new ServerList("S:2:bar,S:3:baz"), InstanceStateTypes.SERVING, restartSignificantConfig);
+        Assert.assertTrue(monitor.canReconfigureLive(added, localCurrentInstanceState));
+        Assert.assertTrue(monitor.canReconfigureLive(demoted, localCurrentInstanceState));
+        Assert.assertFalse(monitor.canReconfigureLive(removed, localCurrentInstanceState)); // we're leaving - needs a stop
+
+        InstanceState notServing = new InstanceState(new ServerList("S:1:foo,S:2:bar,S:3:baz"), InstanceStateTypes.DOWN, restartSignificantConfig);
+        Assert.assertFalse(monitor.canReconfigureLive(added, notServing));
+
+        dynamicReconfig.set(0);
+        Assert.assertFalse(monitor.canReconfigureLive(added, localCurrentInstanceState));
+    }
+
+    private Exhibitor makeMockExhibitor(InstanceConfig config, String us) throws Exception
     {
         Preferences preferences = Mockito.mock(Preferences.class);
         ControlPanelValues controlPanelValues = new ControlPanelValues(preferences)
@@ -240,6 +327,13 @@ public class TestMonitorRunningInstance
         Mockito.when(mockExhibitor.getConfigManager()).thenReturn(configManager);
         Mockito.when(mockExhibitor.getThisJVMHostname()).thenReturn(us);
         Mockito.when(mockExhibitor.getControlPanelValues()).thenReturn(controlPanelValues);
+
+        FourLetterWordProbes fourLetterWordProbes = new FourLetterWordProbes();
+        fourLetterWordProbes.start();
+        fourLetterWordProbesList.add(fourLetterWordProbes);
+        Mockito.when(mockExhibitor.getFourLetterWordProbes()).thenReturn(fourLetterWordProbes);
+        ServerSnapshots serverSnapshots = new ServerSnapshots(mockExhibitor);
+        Mockito.when(mockExhibitor.getServerSnapshots()).thenReturn(serverSnapshots);
         return mockExhibitor;
     }
 }
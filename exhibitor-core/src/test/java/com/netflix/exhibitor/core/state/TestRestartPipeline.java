@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.activity.ActivityLog;
+import com.netflix.exhibitor.core.processes.ProcessOperations;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestRestartPipeline
+{
+    @Test
+    public void testTimeline() throws Exception
+    {
+        RestartTimeline     timeline = new RestartTimeline();
+        Assert.assertFalse(timeline.await(RestartTimeline.Phase.STOP_REQUESTED, 10));
+        Assert.assertNull(timeline.getElapsedMs(RestartTimeline.Phase.STOP_REQUESTED));
+
+        timeline.mark(RestartTimeline.Phase.STOP_REQUESTED);
+        Assert.assertTrue(timeline.await(RestartTimeline.Phase.STOP_REQUESTED, 10));
+        Assert.assertNotNull(timeline.getElapsedMs(RestartTimeline.Phase.STOP_REQUESTED));
+
+        timeline.fail(RestartTimeline.Phase.PROCESS_STARTED);
+        Assert.assertFalse(timeline.await(RestartTimeline.Phase.PROCESS_STARTED, 10000));
+        Assert.assertNull(timeline.getElapsedMs(RestartTimeline.Phase.PROCESS_STARTED));
+
+        Assert.assertTrue(timeline.toString().startsWith("stop requested +"));
+    }
+
+    @Test
+    public void testStartToServing() throws Exception
+    {
+        ExecutorService     service = Executors.newCachedThreadPool();
+        try
+        {
+            RestartStats        restartStats = new RestartStats();
+            Exhibitor           exhibitor = newExhibitor(newProcessOperations(service, true), restartStats);
+
+            RestartTimeline     timeline = new RestartTimeline();
+            timeline.mark(RestartTimeline.Phase.STOP_REQUESTED);
+            timeline.mark(RestartTimeline.Phase.PROCESS_EXITED);
+            Assert.assertTrue(RestartPipeline.start(exhibitor, timeline, 10000));
+            Assert.assertSame(restartStats.getAwaitingServing(), timeline);
+            Assert.assertNull(restartStats.getLastTimeline());
+
+            // an instance waiting for the quorum is not a failure
+            RestartPipeline.observe(exhibitor, InstanceStateTypes.NOT_SERVING);
+            Assert.assertNotNull(timeline.getElapsedMs(RestartTimeline.Phase.PORT_ACCEPTING));
+            Assert.assertNull(timeline.getElapsedMs(RestartTimeline.Phase.SERVING));
+            Assert.assertEquals(restartStats.getFailureCount(), 0);
+
+            RestartPipeline.observe(exhibitor, InstanceStateTypes.SERVING);
+            Assert.assertNull(restartStats.getAwaitingServing());
+
+            long                previousMs = 0;
+            for ( RestartTimeline.Phase phase : RestartTimeline.Phase.values() )
+            {
+                Long    elapsedMs = timeline.getElapsedMs(phase);
+                Assert.assertNotNull(elapsedMs, phase.name());
+                Assert.assertTrue(elapsedMs >= previousMs, phase.name());
+                previousMs = elapsedMs;
+            }
+            Assert.assertEquals(restartStats.getTotalMs().size(), 1);
+            Assert.assertEquals(restartStats.getFailureCount(), 0);
+            Assert.assertSame(restartStats.getLastTimeline(), timeline);
+
+            RestartPipeline.observe(exhibitor, InstanceStateTypes.SERVING);
+            Assert.assertEquals(restartStats.getTotalMs().size(), 1);
+        }
+        finally
+        {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testProcessNotStarted() throws Exception
+    {
+        ExecutorService     service = Executors.newCachedThreadPool();
+        try
+        {
+            RestartStats        restartStats = new RestartStats();
+            Exhibitor           exhibitor = newExhibitor(newProcessOperations(service, false), restartStats);
+
+            RestartTimeline     timeline = new RestartTimeline();
+            Assert.assertFalse(RestartPipeline.start(exhibitor, timeline, 10000));
+            Assert.assertNull(restartStats.getAwaitingServing());
+            Assert.assertEquals(restartStats.getFailureCount(), 1);
+            Assert.assertSame(restartStats.getLastTimeline(), timeline);
+        }
+        finally
+        {
+            service.shutdownNow();
+        }
+    }
+
+    private static Exhibitor newExhibitor(ProcessOperations processOperations, RestartStats restartStats)
+    {
+        Exhibitor           exhibitor = Mockito.mock(Exhibitor.class);
+        Mockito.when(exhibitor.getLog()).thenReturn(new ActivityLog(100));
+        Mockito.when(exhibitor.getProcessOperations()).thenReturn(processOperations);
+        Mockito.when(exhibitor.getRestartStats()).thenReturn(restartStats);
+        Mockito.when(exhibitor.getServerSnapshots()).thenReturn(Mockito.mock(ServerSnapshots.class));
+        return exhibitor;
+    }
+
+    private static ProcessOperations newProcessOperations(final ExecutorService launcher, final boolean starts)
+    {
+        return new ProcessOperations()
+        {
+            @Override
+            public void startInstance(final RestartTimeline timeline) throws Exception
+            {
+                timeline.mark(RestartTimeline.Phase.FILES_WRITTEN);
+                launcher.submit
+                (
+                    new Callable<Void>()
+                    {
+                        @Override
+                        public Void call() throws Exception
+                        {
+                            Thread.sleep(50);
+                            if ( starts )
+                            {
+                                timeline.mark(RestartTimeline.Phase.PROCESS_STARTED);
+                            }
+                            else
+                            {
+                                timeline.fail(RestartTimeline.Phase.PROCESS_STARTED);
+                            }
+                            return null;
+                        }
+                    }
+                );
+            }
+
+            @Override
+            public void killInstance() throws Exception
+            {
+            }
+
+            @Override
+            public void cleanupInstance() throws Exception
+            {
+            }
+        };
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012 Netflix, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.netflix.exhibitor.core.state;
+
+import com.google.common.io.ByteStreams;
+import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.config.ConfigManager;
+import com.netflix.exhibitor.core.config.InstanceConfig;
+import com.netflix.exhibitor.core.config.IntConfigs;
+import org.apache.curator.utils.CloseableUtils;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestServerSnapshots
+{
+    @Test
+    public void testParse()
+    {
+        ServerSnapshot  snapshot = ServerSnapshot.fromFourLetterWords(new FourLetterWord("imok"), new FourLetterWord("Zookeeper version: 3.6.3\nLatency min/avg/max: 0/0.0/0\nMode: follower\nNode count: 5\n"), new FourLetterWord("zk_version\t3.6.3\nzk_znode_count\t5\nzk_watch_count\t2\n"));
+        Assert.assertTrue(snapshot.isOk());
+        Assert.assertEquals(snapshot.getState(), InstanceStateTypes.SERVING);
+        Assert.assertEquals(snapshot.getMode(), "follower");
+        Assert.assertFalse(snapshot.isLeader());
+        Assert.assertEquals(snapshot.getMonitorValues().get("zk_znode_count"), Long.valueOf(5));
+        Assert.assertFalse(snapshot.getMonitorValues().containsKey("zk_version"));
+
+        snapshot = ServerSnapshot.fromFourLetterWords(new FourLetterWord("imok"), new FourLetterWord("Mode: leader\n"), new FourLetterWord(""));
+        Assert.assertTrue(snapshot.isLeader());
+
+        snapshot = ServerSnapshot.fromFourLetterWords(new FourLetterWord("imok"), new FourLetterWord("This ZooKeeper instance is not currently serving requests\n"), new FourLetterWord(""));
+        Assert.assertEquals(snapshot.getState(), InstanceStateTypes.NOT_SERVING);
+
+        snapshot = ServerSnapshot.fromFourLetterWords(new FourLetterWord(""), new FourLetterWord("Mode: leader\n"), new FourLetterWord(""));
+        Assert.assertEquals(snapshot.getState(), InstanceStateTypes.DOWN);
+        Assert.assertFalse(snapshot.isLeader());
+    }
+
+    @Test
+    public void testParseAdminServer()
+    {
+        AdminServerProbe    probe = new AdminServerProbe();
+
+        ServerSnapshot      snapshot = probe.parse("{\"version\":\"3.6.3\",\"avg_latency\":0.5,\"znode_count\":5,\"server_state\":\"leader\",\"command\":\"monitor\",\"error\":null}");
+        Assert.assertTrue(snapshot.isOk());
+        Assert.assertEquals(snapshot.getState(), InstanceStateTypes.SERVING);
+        Assert.assertEquals(snapshot.getMode(), "leader");
+        Assert.assertTrue(snapshot.isLeader());
+        Assert.assertEquals(snapshot.getMonitorValues().get("zk_znode_count").intValue(), 5);
+        Assert.assertEquals(snapshot.getMonitorValues().get("zk_avg_latency").doubleValue(), 0.5);
+        Assert.assertFalse(snapshot.getMonitorValues().containsKey("zk_version"));
+
+        snapshot = probe.parse("{\"command\":\"monitor\",\"error\":\"This ZooKeeper instance is not currently serving requests\"}");
+        Assert.assertTrue(snapshot.isOk());
+        Assert.assertEquals(snapshot.getState(), InstanceStateTypes.NOT_SERVING);
+        Assert.assertFalse(snapshot.isLeader());
+
+        snapshot = probe.parse("<html>");
+        Assert.assertFalse(snapshot.isOk());
+        Assert.assertEquals(snapshot.getState(), InstanceStateTypes.DOWN);
+    }
+
+    @Test
+    public void testCache() throws Exception
+    {
+        final ServerSocket      server = new ServerSocket(0);
+        final AtomicInteger     connectionCount = new AtomicInteger(0);
+        ExecutorService         service = Executors.newSingleThreadExecutor();
+        FourLetterWordProbes    probes = new FourLetterWordProbes();
+        probes.start();
+        try
+        {
+            service.submit
+            (
+                new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        for(;;)
+                        {
+                            Socket          socket = server.accept();
+                            connectionCount.incrementAndGet();
+                            byte[]          word = new byte[4];
+                            ByteStreams.readFully(socket.getInputStream(), word);
+                            String          response = new String(word).equals("ruok") ? "imok" : "Mode: standalone\n";
+                            OutputStream    out = socket.getOutputStream();
+                            out.write(response.getBytes());
+                            out.close();
+                            socket.close();
+                        }
+                    }
+                }
+            );
+
+            InstanceConfig      config = Mockito.mock(InstanceConfig.class);
+            Mockito.when(config.getInt(IntConfigs.CLIENT_PORT)).thenReturn(server.getLocalPort());
+            ConfigManager       configManager = Mockito.mock(ConfigManager.class);
+            Mockito.when(configManager.getConfig()).thenReturn(config);
+            Exhibitor           exhibitor = Mockito.mock(Exhibitor.class);
+            Mockito.when(exhibitor.getConfigManager()).thenReturn(configManager);
+            Mockito.when(exhibitor.getFourLetterWordProbes()).thenReturn(probes);
+            Mockito.when(exhibitor.getConnectionTimeOutMs()).thenReturn(5000);
+
+            ServerSnapshots     snapshots = new ServerSnapshots(exhibitor, 60000);
+            for ( int i = 0; i < 10; ++i )
+            {
+                ServerSnapshot  snapshot = snapshots.getSnapshot();
+                Assert.assertEquals(snapshot.getState(), InstanceStateTypes.SERVING);
+                Assert.assertTrue(snapshot.isLeader());
+            }
+            Assert.assertEquals(connectionCount.get(), 3);  // RUOK, SRVR and MNTR once each
+
+            for ( int i = 0; i < 10; ++i )
+            {
+                Assert.assertEquals(snapshots.get(FourLetterWord.Word.RUOK).getResponse(), "imok");
+            }
+            Assert.assertEquals(connectionCount.get(), 4);
+
+            snapshots.invalidate();
+            snapshots.getSnapshot();
+            Assert.assertEquals(connectionCount.get(), 7);
+
+            for ( int i = 0; i < 10; ++i )
+            {
+                Assert.assertEquals(snapshots.getSnapshot(false).getState(), InstanceStateTypes.SERVING);
+            }
+            Assert.assertEquals(connectionCount.get(), 7);  // the full snapshot is still fresh
+
+            snapshots.invalidate();
+            snapshots.getSnapshot(false);
+            Assert.assertEquals(connectionCount.get(), 9);  // RUOK and SRVR only
+        }
+        finally
+        {
+            CloseableUtils.closeQuietly(probes);
+            service.shutdownNow();
+            server.close();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.netflix.exhibitor.core.Exhibitor;
+import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.JQueryStyle;
 import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
@@ -104,6 +105,9 @@ public class ExhibitorCLI
     public static final String ACL_ID = "aclid";
     public static final String ACL_PERMISSIONS = "aclperms";
     public static final String SERVO_INTEGRATION = "servo";
+    public static final String QUEUE_GROUP_THREADS = "queuethreads";
+    public static final String CONFIG_CACHE_PATH = "configcachepath";
+    public static final String LOCK_STRONGLY_CONSISTENT = "lockstronglyconsistent";
 
     public static final String SECURITY_FILE = "security";
     public static final String REALM = "realm";
@@ -192,6 +196,9 @@ public class ExhibitorCLI
         generalOptions.addOption(null, SERVO_INTEGRATION, true, "true/false (default is false). If enabled, ZooKeeper will be queried once a minute for its state via the 'mntr' four letter word (this requires ZooKeeper 3.4.x+). Servo will be used to publish this data via JMX.");
         generalOptions.addOption(null, INITIAL_CONFIG_FILE, true, "Full path to a file that contains initial/default values for Exhibitor/ZooKeeper config values. The file is a standard property file. The property names are listed below. The file can specify some or all of the properties.");
         generalOptions.addOption(null, PREFERENCES_PATH, true, "Certain values (such as Control Panel values) are stored in a preferences file. By default, Preferences.userRoot() is used. Use this option to specify a different file path.");
+        generalOptions.addOption(null, CONFIG_CACHE_PATH, true, "Full path to a file used to cache the shared config locally. If set, Exhibitor starts from the cached config without waiting for the config provider and reconciles with it in the background.");
+        generalOptions.addOption(null, LOCK_STRONGLY_CONSISTENT, true, "true/false (default is false). If true, the shared config lock for the file and s3 config types is acquired without waiting for a settling period. Only use this when the store has consistent directory listings (S3 or a local disk - NOT NFS). IMPORTANT: every Exhibitor instance sharing the config must use the same value.");
+        generalOptions.addOption(null, QUEUE_GROUP_THREADS, true, "Threads to use for activity queue groups that allow concurrency. Argument is a comma separated list of [group]:[threads] - e.g. \"index:2,backup:2\". Groups are: " + getQueueGroupOptions() + ". Default is 1 thread per group.");
 
         Options aclOptions = new Options();
         aclOptions.addOption(null, ACL_ID, true, "Enable ACL for Exhibitor's internal ZooKeeper connection. This sets the ACL's ID.");
@@ -309,6 +316,23 @@ public class ExhibitorCLI
         return Joiner.on(", ").join(transformed);
     }
 
+    private String getQueueGroupOptions()
+    {
+        Iterable<String> transformed = Iterables.transform
+            (
+                Arrays.asList(QueueGroups.values()),
+                new Function<QueueGroups, String>()
+                {
+                    @Override
+                    public String apply(QueueGroups group)
+                    {
+                        return group.name().toLowerCase();
+                    }
+                }
+            );
+        return Joiner.on(", ").join(transformed);
+    }
+
 	private void addAll(String sectionName, Options adding)
     {
         //noinspection unchecked
@@ -18,7 +18,9 @@ package com.netflix.exhibitor.standalone;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.netflix.exhibitor.core.activity.QueueGroups;
 import com.netflix.exhibitor.core.backup.BackupProvider;
 import com.netflix.exhibitor.core.backup.filesystem.FileSystemBackupProvider;
 import com.netflix.exhibitor.core.backup.s3.S3BackupProvider;
@@ -31,6 +33,7 @@ import com.netflix.exhibitor.core.config.IntConfigs;
 import com.netflix.exhibitor.core.config.JQueryStyle;
 import com.netflix.exhibitor.core.config.none.NoneConfigProvider;
 import com.netflix.exhibitor.core.config.PropertyBasedInstanceConfig;
+import com.netflix.exhibitor.core.config.PseudoLockBase;
 import com.netflix.exhibitor.core.config.s3.S3ConfigArguments;
 import com.netflix.exhibitor.core.config.s3.S3ConfigAutoManageLockArguments;
 import com.netflix.exhibitor.core.config.s3.S3ConfigProvider;
@@ -236,7 +239,10 @@ public class ExhibitorCreator
             .verifyPeerCert(env.get(ExhibitorEnv.VERIFY_PEER_CERT))
             .build();
 
+        Map<QueueGroups, Integer> queueGroupThreads = getQueueGroupThreads(cli, commandLine.getOptionValue(QUEUE_GROUP_THREADS));
+
         String preferencesPath = commandLine.getOptionValue(PREFERENCES_PATH);
+        String configCachePath = commandLine.getOptionValue(CONFIG_CACHE_PATH);
         String restScheme = httpsConfiguration.getServerKeystorePath() != null ? "https" : "http";
 
         this.builder = ExhibitorArguments.builder()
@@ -252,8 +258,13 @@ public class ExhibitorCreator
             .aclProvider(aclProvider)
             .servoRegistration(servoRegistration)
             .preferencesPath(preferencesPath)
+            .configCachePath(configCachePath)
             .httpsConfiguration(httpsConfiguration)
         ;
+        for ( Map.Entry<QueueGroups, Integer> entry : queueGroupThreads.entrySet() )
+        {
+            this.builder.queueGroupThreads(entry.getKey(), entry.getValue());
+        }
 
         this.securityHandler = handler;
         this.backupProvider = backupProvider;
@@ -557,13 +568,13 @@ public class ExhibitorCreator
         File directory = commandLine.hasOption(FILESYSTEM_CONFIG_DIRECTORY) ? new File(commandLine.getOptionValue(FILESYSTEM_CONFIG_DIRECTORY)) : new File(System.getProperty("user.dir"));
         String name = commandLine.hasOption(FILESYSTEM_CONFIG_NAME) ? commandLine.getOptionValue(FILESYSTEM_CONFIG_NAME) : DEFAULT_FILESYSTEMCONFIG_NAME;
         String lockPrefix = commandLine.hasOption(FILESYSTEM_CONFIG_LOCK_PREFIX) ? commandLine.getOptionValue(FILESYSTEM_CONFIG_LOCK_PREFIX) : DEFAULT_FILESYSTEMCONFIG_LOCK_PREFIX;
-        return new FileSystemConfigProvider(directory, name, defaultProperties, new AutoManageLockArguments(lockPrefix));
+        return new FileSystemConfigProvider(directory, name, defaultProperties, new AutoManageLockArguments(lockPrefix, AutoManageLockArguments.DEFAULT_TIMEOUT_MS, AutoManageLockArguments.DEFAULT_POLLING_MS, getLockSettlingMs(commandLine)));
     }
 
     private ConfigProvider getS3Provider(ExhibitorCLI cli, CommandLine commandLine, PropertyBasedS3Credential awsCredentials, PropertyBasedS3ClientConfig awsClientConfig, String hostname, Properties defaultProperties, String s3Region) throws Exception
     {
         String  prefix = cli.getOptions().hasOption(S3_CONFIG_PREFIX) ? commandLine.getOptionValue(S3_CONFIG_PREFIX) : DEFAULT_PREFIX;
-        return new S3ConfigProvider(new S3ClientFactoryImpl(), awsCredentials, awsClientConfig, getS3Arguments(cli, commandLine.getOptionValue(S3_CONFIG), prefix), hostname, defaultProperties, s3Region);
+        return new S3ConfigProvider(new S3ClientFactoryImpl(), awsCredentials, awsClientConfig, getS3Arguments(cli, commandLine.getOptionValue(S3_CONFIG), prefix, getLockSettlingMs(commandLine)), hostname, defaultProperties, s3Region);
     }
 
     private ConfigProvider getConsulProvider(ExhibitorCLI cli, CommandLine commandLine, Properties defaultProperties) throws Exception {
@@ -623,7 +634,46 @@ public class ExhibitorCreator
         }
     }
 
-    private S3ConfigArguments getS3Arguments(ExhibitorCLI cli, String value, String prefix) throws ExhibitorCreatorExit
+    private Map<QueueGroups, Integer> getQueueGroupThreads(ExhibitorCLI cli, String value) throws ExhibitorCreatorExit
+    {
+        Map<QueueGroups, Integer>   queueGroupThreads = Maps.newHashMap();
+        if ( value == null )
+        {
+            return queueGroupThreads;
+        }
+
+        for ( String spec : value.split(",") )
+        {
+            String[]        parts = spec.split(":");
+            try
+            {
+                if ( parts.length != 2 )
+                {
+                    throw new IllegalArgumentException();
+                }
+                QueueGroups     group = QueueGroups.valueOf(parts[0].trim().toUpperCase());
+                int             threadQty = Integer.parseInt(parts[1].trim());
+                if ( (threadQty <= 0) || (!group.isConcurrencyAllowed() && (threadQty != 1)) )
+                {
+                    throw new IllegalArgumentException();
+                }
+                queueGroupThreads.put(group, threadQty);
+            }
+            catch ( IllegalArgumentException e )
+            {
+                log.error("Bad " + QUEUE_GROUP_THREADS + " argument: " + spec);
+                throw new ExhibitorCreatorExit(cli);
+            }
+        }
+        return queueGroupThreads;
+    }
+
+    private int getLockSettlingMs(CommandLine commandLine)
+    {
+        return "true".equalsIgnoreCase(commandLine.getOptionValue(LOCK_STRONGLY_CONSISTENT, "false")) ? PseudoLockBase.STRONGLY_CONSISTENT : PseudoLockBase.DEFAULT_SETTLING_MS;
+    }
+
+    private S3ConfigArguments getS3Arguments(ExhibitorCLI cli, String value, String prefix, int settlingMs) throws ExhibitorCreatorExit
     {
         String[]        parts = value.split(":");
         if ( parts.length != 2 )
@@ -631,7 +681,7 @@ public class ExhibitorCreator
             log.error("Bad s3config argument: " + value);
             throw new ExhibitorCreatorExit(cli);
         }
-        return new S3ConfigArguments(parts[0].trim(), parts[1].trim(), new S3ConfigAutoManageLockArguments(prefix + "-lock-"));
+        return new S3ConfigArguments(parts[0].trim(), parts[1].trim(), new S3ConfigAutoManageLockArguments(prefix + "-lock-", AutoManageLockArguments.DEFAULT_TIMEOUT_MS, AutoManageLockArguments.DEFAULT_POLLING_MS, settlingMs));
     }
 
     private CuratorFramework makeCurator(final String connectString, int baseSleepTimeMs, int maxRetries, int exhibitorPort, String exhibitorRestPath, int pollingMs)